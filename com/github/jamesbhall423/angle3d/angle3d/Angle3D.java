@@ -25,6 +25,17 @@ public interface Angle3D<T extends Angle3D<T>> extends Cloneable{
      */
     public Vector3D rotate(Vector3D point);
 
+    /**
+     * Rotates a 3D vector by the inverse of this angle.
+     * This is equivalent to {@code inverse().rotate(point)}, but implementations may avoid creating the inverse angle.
+     *
+     * @param point - The vector to be rotated
+     * @return The vector rotated by the inverse of this angle
+     */
+    public default Vector3D inverseRotate(Vector3D point) {
+        return inverse().rotate(point);
+    }
+
     /**
      * Computes the inverse of this angle.
      *
@@ -92,4 +103,14 @@ public interface Angle3D<T extends Angle3D<T>> extends Cloneable{
      * @return The roll angle, in radians
      */
     public double getRoll(AviationMapping mapping);
+
+    /**
+     * Calculates the pitch, yaw and roll components of this angle together using the specified aviation mapping.
+     *
+     * @param mapping - The aviation mapping to use for the calculation
+     * @return The pitch, yaw and roll, in radians
+     */
+    public default Attitude getAttitude(AviationMapping mapping) {
+        return new Attitude(getPitch(mapping), getYaw(mapping), getRoll(mapping));
+    }
 }
@@ -1,4 +1,5 @@
 package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
 import com.github.jamesbhall423.angle3d.position3d.DimensionMapping;
 import com.github.jamesbhall423.angle3d.position3d.SpacialParity3D;
 import com.github.jamesbhall423.angle3d.position3d.Vector3D;
@@ -14,14 +15,30 @@ public abstract class Angle3DSystem<T extends Angle3D<T>> {
      * The spatial parity of this angle system.
      */
     private final SpacialParity3D parity;
+
+    /**
+     * The sine and cosine used to construct angles.
+     */
+    private final TrigProvider trig;
     
     /**
-     * Constructs an {@code Angle3DSystem} with the specified spatial parity.
+     * Constructs an {@code Angle3DSystem} with the specified spatial parity, using {@link TrigProvider#STRICT}.
      *
      * @param parity The spatial parity of the system.
      */
     public Angle3DSystem(SpacialParity3D parity) {
+        this(parity, TrigProvider.STRICT);
+    }
+
+    /**
+     * Constructs an {@code Angle3DSystem} with the specified spatial parity and trigonometric functions.
+     *
+     * @param parity The spatial parity of the system.
+     * @param trig The sine and cosine used to construct angles.
+     */
+    public Angle3DSystem(SpacialParity3D parity, TrigProvider trig) {
         this.parity = parity;
+        this.trig = trig;
     }
     
     /**
@@ -32,6 +49,15 @@ public abstract class Angle3DSystem<T extends Angle3D<T>> {
     public SpacialParity3D parity() {
         return parity;
     }
+
+    /**
+     * Returns the sine and cosine this system uses to construct angles.
+     *
+     * @return The trigonometric provider.
+     */
+    public TrigProvider trig() {
+        return trig;
+    }
     
     /**
      * Creates an {@code Angle3D} object from the specified axis vector.
@@ -91,12 +117,56 @@ public abstract class Angle3DSystem<T extends Angle3D<T>> {
     
     /**
      * Creates an {@code Angle3D} object for a rotation from one dimension mapping to another.
+     * The magnitude is adjusted according to the signs of the axis mappings to calculate the true direction of the rotation angle.
      *
      * @param axisFrom The initial axis mapping.
      * @param axisTo The target axis mapping.
      * @param magnitude The angle magnitude.
      * @return The corresponding {@code Angle3D} object.
+     * @throws IllegalArgumentException if {@code axisFrom} and {@code axisTo} are the same.
      */
-    public abstract T getAngle(DimensionMapping axisFrom, DimensionMapping axisTo, double magnitude);
+    public T getAngle(DimensionMapping axisFrom, DimensionMapping axisTo, double magnitude) {
+        double trueMagnitude = axisFrom.sign() * axisTo.sign() * magnitude;
+        switch (axisFrom.xyz()) {
+            case X:
+                switch (axisTo.xyz()) {
+                    case Y: return angleXY(trueMagnitude);
+                    case Z: return angleXZ(trueMagnitude);
+                }
+                break;
+            case Y:
+                switch (axisTo.xyz()) {
+                    case X: return angleYX(trueMagnitude);
+                    case Z: return angleYZ(trueMagnitude);
+                }
+                break;
+            case Z:
+                switch (axisTo.xyz()) {
+                    case X: return angleZX(trueMagnitude);
+                    case Y: return angleZY(trueMagnitude);
+                }
+                break;
+        }
+        throw new IllegalArgumentException("Axes are the same");
+    }
 
+    /**
+     * Creates an {@code Angle3D} object from aviation angles. The roll is applied first, then the pitch, then the yaw.
+     * <p>
+     * The default implementation composes the three rotations given by {@link #getAngle(DimensionMapping, DimensionMapping, double)}.
+     * Subclasses may override it with a direct construction.
+     * </p>
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @param pitch The pitch angle in radians.
+     * @param yaw The yaw angle in radians.
+     * @param roll The roll angle in radians.
+     * @return The corresponding {@code Angle3D} object.
+     */
+    public T fromAviation(AviationMapping mapping, double pitch, double yaw, double roll) {
+        T pitchT = getAngle(mapping.longitudinal(), mapping.vertical(), pitch);
+        T yawT = getAngle(mapping.lateral(), mapping.longitudinal(), yaw);
+        T rollT = getAngle(mapping.vertical(), mapping.lateral(), roll);
+        return yawT.rotate(pitchT.rotate(rollT));
+    }
 }
@@ -0,0 +1,155 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
+import com.github.jamesbhall423.angle3d.position3d.DimensionMapping;
+/**
+ * The pitch, yaw and roll of an orientation under a particular aviation mapping.
+ * <p>
+ * The values follow the same definitions as {@link Angle3D#getPitch(AviationMapping)},
+ * {@link Angle3D#getYaw(AviationMapping)} and {@link Angle3D#getRoll(AviationMapping)}.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class Attitude {
+    private final double pitch;
+    private final double yaw;
+    private final double roll;
+
+    /**
+     * Constructs an attitude from its three components.
+     *
+     * @param pitch The pitch angle, in radians.
+     * @param yaw The yaw angle, in radians.
+     * @param roll The roll angle, in radians.
+     */
+    public Attitude(double pitch, double yaw, double roll) {
+        this.pitch = pitch;
+        this.yaw = yaw;
+        this.roll = roll;
+    }
+
+    /**
+     * @return The pitch angle, in radians.
+     */
+    public double pitch() {
+        return pitch;
+    }
+
+    /**
+     * @return The yaw angle, in radians.
+     */
+    public double yaw() {
+        return yaw;
+    }
+
+    /**
+     * @return The roll angle, in radians.
+     */
+    public double roll() {
+        return roll;
+    }
+
+    /**
+     * Returns a string representation of the attitude.
+     *
+     * @return A string giving the pitch, yaw and roll.
+     */
+    @Override
+    public String toString() {
+        return "Attitude: (" + pitch + "," + yaw + "," + roll + ")";
+    }
+
+    /**
+     * Computes the attitude of a rotation matrix. The matrix entries are read directly,
+     * so pitch is computed once and no vectors are built.
+     */
+    static Attitude of(RotationMatrix m, AviationMapping mapping) {
+        double pitch = pitch(m, mapping);
+        return new Attitude(pitch, yaw(m, mapping), roll(m, mapping, pitch));
+    }
+
+    static double pitch(RotationMatrix m, AviationMapping mapping) {
+        return fromForwardVertical(component(m, mapping.vertical(), mapping.longitudinal()));
+    }
+
+    static double yaw(RotationMatrix m, AviationMapping mapping) {
+        return fromForward(component(m, mapping.lateral(), mapping.longitudinal()), component(m, mapping.longitudinal(), mapping.longitudinal()));
+    }
+
+    static double roll(RotationMatrix m, AviationMapping mapping, double pitch) {
+        return fromRightVertical(component(m, mapping.vertical(), mapping.lateral()), pitch);
+    }
+
+    /**
+     * The component along aviation axis {@code of} of the unit aviation axis {@code axis} after rotation by {@code m}.
+     */
+    private static double component(RotationMatrix m, DimensionMapping of, DimensionMapping axis) {
+        return of.sign() * axis.sign() * m.get(of.xyz().ordinal(), axis.xyz().ordinal());
+    }
+
+    private static double fromForwardVertical(double forwardVertical) {
+        return Math.asin(forwardVertical);
+    }
+
+    private static double fromForward(double forwardLateral, double forwardLongitudinal) {
+        return Math.atan2(-forwardLateral, forwardLongitudinal);
+    }
+
+    private static double fromRightVertical(double rightVertical, double pitch) {
+        double cosPitch = Math.max(1e-10, Math.cos(pitch));
+        return Math.asin(-rightVertical / cosPitch);
+    }
+
+    /**
+     * Computes the attitudes of every quaternion in a buffer. The needed matrix entries are
+     * evaluated straight from the quaternion components, without allocating per element.
+     */
+    static void of(QuaternionBuffer buffer, AviationMapping mapping, double[] pitch, double[] yaw, double[] roll) {
+        Entry forwardVertical = new Entry(mapping.vertical(), mapping.longitudinal());
+        Entry forwardLateral = new Entry(mapping.lateral(), mapping.longitudinal());
+        Entry forwardLongitudinal = new Entry(mapping.longitudinal(), mapping.longitudinal());
+        Entry rightVertical = new Entry(mapping.vertical(), mapping.lateral());
+        double[] vector = new double[3];
+        for (int n = 0; n < buffer.size(); n++) {
+            double real = buffer.real(n);
+            vector[0] = buffer.i(n);
+            vector[1] = buffer.j(n);
+            vector[2] = buffer.k(n);
+            double sqVector = vector[0] * vector[0] + vector[1] * vector[1] + vector[2] * vector[2];
+            double sqMagnitude = real * real + sqVector;
+            double s = sqMagnitude == 0 ? 0 : 2 / sqMagnitude;
+            double nextPitch = fromForwardVertical(forwardVertical.get(real, vector, sqVector, s));
+            pitch[n] = nextPitch;
+            yaw[n] = fromForward(forwardLateral.get(real, vector, sqVector, s), forwardLongitudinal.get(real, vector, sqVector, s));
+            roll[n] = fromRightVertical(rightVertical.get(real, vector, sqVector, s), nextPitch);
+        }
+    }
+
+    /**
+     * One signed entry of the rotation matrix of a quaternion (w, v), using
+     * M[r][c] = [r == c](1 - s|v|^2) + s v[r] v[c] - s w e(r, c, t) v[t],
+     * where s = 2 / |q|^2, t is the remaining index and e is the Levi-Civita symbol.
+     */
+    private static final class Entry {
+        final int row;
+        final int column;
+        final int other;
+        final double diagonal;
+        final double cross;
+        final double sign;
+
+        Entry(DimensionMapping of, DimensionMapping axis) {
+            row = of.xyz().ordinal();
+            column = axis.xyz().ordinal();
+            other = row == column ? 0 : 3 - row - column;
+            diagonal = row == column ? 1 : 0;
+            cross = row == column ? 0 : ((column - row + 3) % 3 == 1 ? 1 : -1);
+            sign = of.sign() * axis.sign();
+        }
+
+        double get(double real, double[] vector, double sqVector, double s) {
+            double entry = diagonal * (1 - s * sqVector) + s * vector[row] * vector[column] - s * real * cross * vector[other];
+            return sign * entry;
+        }
+    }
+}
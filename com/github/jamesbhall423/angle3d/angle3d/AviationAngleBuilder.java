@@ -19,9 +19,6 @@ public class AviationAngleBuilder {
         return this;
     }
     public <T extends Angle3D<T>> T build(AviationMapping mapping, Angle3DSystem<T> system) {
-        T pitchT = system.getAngle(mapping.longitudinal(), mapping.vertical(), pitch);
-        T yawT = system.getAngle(mapping.lateral(), mapping.longitudinal(), yaw);
-        T rollT = system.getAngle(mapping.vertical(), mapping.lateral(), roll);
-        return yawT.rotate(pitchT.rotate(rollT));
+        return system.fromAviation(mapping, pitch, yaw, roll);
     }
 }
@@ -0,0 +1,127 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * Rotates large numbers of vectors by a single quaternion-based angle.
+ * <p>
+ * The angle is converted to a rotation matrix once per call, and the vectors are then
+ * processed in a tight loop. Vectors may be supplied as separate x, y and z arrays
+ * (structure of arrays) or packed as consecutive xyz triples.
+ * </p>
+ * <p>
+ * {@link #getInstance()} returns an implementation built on the {@code jdk.incubator.vector} module
+ * when that module has been added to the boot layer ({@code --add-modules jdk.incubator.vector}),
+ * and a scalar implementation otherwise. Both give identical results.
+ * </p>
+ *
+ * @author James Hall
+ */
+public abstract class BatchRotator {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPLEMENTATION = "com.github.jamesbhall423.angle3d.angle3d.VectorBatchRotator";
+    private static final BatchRotator INSTANCE = load();
+
+    /**
+     * Package-private constructor; implementations are provided by this package.
+     */
+    BatchRotator() {
+    }
+
+    /**
+     * Returns the fastest implementation available in the running JVM.
+     *
+     * @return The batch rotator.
+     */
+    public static BatchRotator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the scalar implementation, which does not depend on the incubating vector module.
+     *
+     * @return The scalar batch rotator.
+     */
+    public static BatchRotator scalar() {
+        return ScalarBatchRotator.INSTANCE;
+    }
+
+    private static BatchRotator load() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (BatchRotator) Class.forName(VECTOR_IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to the scalar implementation
+            }
+        }
+        return ScalarBatchRotator.INSTANCE;
+    }
+
+    /**
+     * Returns whether this implementation uses the vector API.
+     *
+     * @return {@code true} if vectors are processed several lanes at a time.
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * Rotates vectors held in separate x, y and z arrays.
+     * The output arrays may be the same as the input arrays.
+     *
+     * @param angle The rotation to apply.
+     * @param x The x components of the input vectors.
+     * @param y The y components of the input vectors.
+     * @param z The z components of the input vectors.
+     * @param destX The array receiving the rotated x components.
+     * @param destY The array receiving the rotated y components.
+     * @param destZ The array receiving the rotated z components.
+     * @param count The number of vectors to rotate, starting at index 0.
+     */
+    public void rotate(QuaternionAngle3D angle, double[] x, double[] y, double[] z, double[] destX, double[] destY, double[] destZ, int count) {
+        rotate(angle.matrix(), x, y, z, destX, destY, destZ, count);
+    }
+
+    /**
+     * Rotates packed xyz vectors. The output array may be the same as the input array.
+     *
+     * @param angle The rotation to apply.
+     * @param src The packed vectors to rotate.
+     * @param srcOffset The index in {@code src} of the first x component.
+     * @param dest The array receiving the packed rotated vectors.
+     * @param destOffset The index in {@code dest} of the first x component.
+     * @param count The number of vectors to rotate.
+     */
+    public void rotate(QuaternionAngle3D angle, double[] src, int srcOffset, double[] dest, int destOffset, int count) {
+        rotate(angle.matrix(), src, srcOffset, dest, destOffset, count);
+    }
+
+    /**
+     * Applies a rotation matrix to structure-of-arrays vectors.
+     */
+    abstract void rotate(RotationMatrix m, double[] x, double[] y, double[] z, double[] destX, double[] destY, double[] destZ, int count);
+
+    /**
+     * Applies a rotation matrix to packed xyz vectors.
+     * Deinterleaving packed triples gains little from wide registers, so both implementations share this loop.
+     */
+    void rotate(RotationMatrix m, double[] src, int srcOffset, double[] dest, int destOffset, int count) {
+        double m00 = m.m00, m01 = m.m01, m02 = m.m02;
+        double m10 = m.m10, m11 = m.m11, m12 = m.m12;
+        double m20 = m.m20, m21 = m.m21, m22 = m.m22;
+        for (int n = 0; n < count; n++) {
+            int from = srcOffset + 3 * n;
+            int to = destOffset + 3 * n;
+            double vx = src[from], vy = src[from + 1], vz = src[from + 2];
+            dest[to] = m00 * vx + m01 * vy + m02 * vz;
+            dest[to + 1] = m10 * vx + m11 * vy + m12 * vz;
+            dest[to + 2] = m20 * vx + m21 * vy + m22 * vz;
+        }
+    }
+
+    /**
+     * Returns a string representation of the rotator.
+     *
+     * @return A string naming the implementation.
+     */
+    @Override
+    public String toString() {
+        return "BatchRotator: " + (isVectorized() ? "vector" : "scalar");
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * The fast {@link TrigProvider}.
+ * <p>
+ * The argument is reduced to r = x - k pi/2 with |r| &lt;= pi/4, subtracting k pi/2 in three parts whose
+ * first two have 33 significant bits, so each product is exact for |k| &lt; 2^20. The sine and cosine of r
+ * are the minimax polynomials of fdlibm's kernels, of degree 13 and 14, and the quadrant k mod 4 selects
+ * and signs them. Reducing once serves both functions in {@link #sinCos(double, double[], int)}.
+ * </p>
+ * <p>
+ * Against {@link StrictMath}, which is itself within 1 ulp of the exact value, the results differ by at most
+ * 1 ulp for |x| &lt;= 2 pi and 2 ulp for |x| &lt;= 2^18, including arguments next to multiples of pi/2.
+ * {@code Test.testTrig} sweeps these ranges.
+ * </p>
+ * <p>
+ * Exact powers of two from 2^-30 to 2 are looked up in tables filled by {@link StrictMath}. These are the
+ * half angles of the rotations tried by {@code MomentCalculator.getRotationToAxis}, which halves its step.
+ * Arguments beyond {@link #REDUCTION_LIMIT}, infinities and NaN are passed to {@link Math}.
+ * </p>
+ *
+ * @author James Hall
+ */
+final class FastTrigProvider implements TrigProvider {
+    static final FastTrigProvider INSTANCE = new FastTrigProvider();
+
+    // Largest argument reduced here, keeping |k| well below 2^20
+    static final double REDUCTION_LIMIT = 0x1p18;
+
+    private static final double TWO_OVER_PI = 6.36619772367581382433e-01;
+    // pi/2 in three parts, the first two with 33 significant bits (fdlibm's pio2_1, pio2_2, pio2_2t)
+    private static final double PIO2_1 = 1.57079632673412561417e+00;
+    private static final double PIO2_2 = 6.07710050630396597660e-11;
+    private static final double PIO2_2T = 2.02226624879595063154e-21;
+
+    private static final double S1 = -1.66666666666666324348e-01;
+    private static final double S2 = 8.33333333332248946124e-03;
+    private static final double S3 = -1.98412698298579493134e-04;
+    private static final double S4 = 2.75573137070700676789e-06;
+    private static final double S5 = -2.50507602534068634195e-08;
+    private static final double S6 = 1.58969099521155010221e-10;
+
+    private static final double C1 = 4.16666666666666019037e-02;
+    private static final double C2 = -1.38888888888741095749e-03;
+    private static final double C3 = 2.48015872894767294178e-05;
+    private static final double C4 = -2.75573143513906633035e-07;
+    private static final double C5 = 2.08757232129817482790e-09;
+    private static final double C6 = -1.13596475577881948265e-11;
+
+    private static final int TABLE_MIN_EXPONENT = -30;
+    private static final int TABLE_MAX_EXPONENT = 1;
+    private static final long MANTISSA_BITS = 0x000FFFFFFFFFFFFFL;
+    private static final double[] SIN_TABLE = new double[TABLE_MAX_EXPONENT - TABLE_MIN_EXPONENT + 1];
+    private static final double[] COS_TABLE = new double[SIN_TABLE.length];
+
+    static {
+        for (int n = 0; n < SIN_TABLE.length; n++) {
+            double x = Math.scalb(1.0, n + TABLE_MIN_EXPONENT);
+            SIN_TABLE[n] = StrictMath.sin(x);
+            COS_TABLE[n] = StrictMath.cos(x);
+        }
+    }
+
+    private FastTrigProvider() {
+    }
+
+    @Override
+    public double sin(double angle) {
+        int index = tableIndex(angle);
+        if (index >= 0) return angle < 0 ? -SIN_TABLE[index] : SIN_TABLE[index];
+        if (!(Math.abs(angle) <= REDUCTION_LIMIT)) return Math.sin(angle);
+        double k = Math.rint(angle * TWO_OVER_PI);
+        double r = reduce(angle, k);
+        switch ((int) k & 3) {
+            case 0: return sinKernel(r);
+            case 1: return cosKernel(r);
+            case 2: return -sinKernel(r);
+            default: return -cosKernel(r);
+        }
+    }
+
+    @Override
+    public double cos(double angle) {
+        int index = tableIndex(angle);
+        if (index >= 0) return COS_TABLE[index];
+        if (!(Math.abs(angle) <= REDUCTION_LIMIT)) return Math.cos(angle);
+        double k = Math.rint(angle * TWO_OVER_PI);
+        double r = reduce(angle, k);
+        switch ((int) k & 3) {
+            case 0: return cosKernel(r);
+            case 1: return -sinKernel(r);
+            case 2: return -cosKernel(r);
+            default: return sinKernel(r);
+        }
+    }
+
+    @Override
+    public void sinCos(double angle, double[] dest, int offset) {
+        int index = tableIndex(angle);
+        if (index >= 0) {
+            dest[offset] = angle < 0 ? -SIN_TABLE[index] : SIN_TABLE[index];
+            dest[offset + 1] = COS_TABLE[index];
+            return;
+        }
+        if (!(Math.abs(angle) <= REDUCTION_LIMIT)) {
+            dest[offset] = Math.sin(angle);
+            dest[offset + 1] = Math.cos(angle);
+            return;
+        }
+        double k = Math.rint(angle * TWO_OVER_PI);
+        double r = reduce(angle, k);
+        double s = sinKernel(r);
+        double c = cosKernel(r);
+        // Odd quadrants swap the functions; the sine is negated in quadrants 2 and 3, the cosine in 1 and 2
+        int quadrant = (int) k;
+        boolean swap = (quadrant & 1) != 0;
+        dest[offset] = (1 - (quadrant & 2)) * (swap ? c : s);
+        dest[offset + 1] = (1 - ((quadrant + 1) & 2)) * (swap ? s : c);
+    }
+
+    /**
+     * Returns the table index of an exact power of two, or -1.
+     */
+    private static int tableIndex(double angle) {
+        if ((Double.doubleToRawLongBits(angle) & MANTISSA_BITS) != 0) return -1;
+        int exponent = Math.getExponent(angle);
+        if (exponent < TABLE_MIN_EXPONENT || exponent > TABLE_MAX_EXPONENT) return -1;
+        return exponent - TABLE_MIN_EXPONENT;
+    }
+
+    private static double reduce(double angle, double k) {
+        return ((angle - k * PIO2_1) - k * PIO2_2) - k * PIO2_2T;
+    }
+
+    private static double sinKernel(double r) {
+        double z = r * r;
+        return r + r * z * (S1 + z * (S2 + z * (S3 + z * (S4 + z * (S5 + z * S6)))));
+    }
+
+    private static double cosKernel(double r) {
+        double z = r * r;
+        double hz = 0.5 * z;
+        double w = 1 - hz;
+        return w + (((1 - w) - hz) + z * z * (C1 + z * (C2 + z * (C3 + z * (C4 + z * (C5 + z * C6))))));
+    }
+
+    @Override
+    public String toString() {
+        return "TrigProvider: fast";
+    }
+}
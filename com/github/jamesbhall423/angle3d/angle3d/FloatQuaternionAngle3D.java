@@ -0,0 +1,286 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * Represents a 3D rotational transformation using a quaternion stored in single precision.
+ * <p>
+ * The four components are held as {@code float} fields directly in the angle, so each angle occupies
+ * 32 bytes, against 88 bytes for a {@link QuaternionAngle3D} and its {@link Quaternion} (with compressed references).
+ * All arithmetic is carried out in double precision and rounded to {@code float} when stored,
+ * giving a relative accuracy of about 1e-7.
+ * </p>
+ * <p>
+ * Composition does not normalize the product. Instead each angle counts the compositions since it was last
+ * normalized, and the product is normalized once the count reaches {@link #RENORMALIZE_INTERVAL}.
+ * Vector rotation divides by the squared magnitude, so the small drift in between does not scale vectors.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class FloatQuaternionAngle3D implements Angle3D<FloatQuaternionAngle3D> {
+    /**
+     * The number of compositions after which the product is normalized.
+     */
+    public static final int RENORMALIZE_INTERVAL = 16;
+
+    private final float real;
+    private final float i;
+    private final float j;
+    private final float k;
+    // Compositions since the value was last normalized
+    private final int compositions;
+
+    /**
+     * Constructs an angle from quaternion components, normalizing them and ensuring a non-negative real component.
+     *
+     * @param real The real component.
+     * @param i The i component.
+     * @param j The j component.
+     * @param k The k component.
+     */
+    public FloatQuaternionAngle3D(double real, double i, double j, double k) {
+        this(real, i, j, k, RENORMALIZE_INTERVAL);
+    }
+
+    /**
+     * Constructs an angle, normalizing the components when {@code compositions} has reached the interval.
+     */
+    private FloatQuaternionAngle3D(double real, double i, double j, double k, int compositions) {
+        double scale = real >= 0 ? 1 : -1;
+        if (compositions >= RENORMALIZE_INTERVAL) {
+            double magnitude = Math.sqrt(real * real + i * i + j * j + k * k);
+            if (magnitude == 0) {
+                real = 1;
+                magnitude = 1;
+            }
+            scale /= magnitude;
+            compositions = 0;
+        }
+        this.real = (float) (scale * real);
+        this.i = (float) (scale * i);
+        this.j = (float) (scale * j);
+        this.k = (float) (scale * k);
+        this.compositions = compositions;
+    }
+
+    /**
+     * Converts a double precision angle to single precision.
+     *
+     * @param angle The angle to convert.
+     */
+    public FloatQuaternionAngle3D(QuaternionAngle3D angle) {
+        this(angle.value.real(), angle.value.i(), angle.value.j(), angle.value.k());
+    }
+
+    /**
+     * @return The real component.
+     */
+    public float real() {
+        return real;
+    }
+
+    /**
+     * @return The i component.
+     */
+    public float i() {
+        return i;
+    }
+
+    /**
+     * @return The j component.
+     */
+    public float j() {
+        return j;
+    }
+
+    /**
+     * @return The k component.
+     */
+    public float k() {
+        return k;
+    }
+
+    /**
+     * Converts this angle to double precision.
+     *
+     * @return The equivalent {@code QuaternionAngle3D}.
+     */
+    public QuaternionAngle3D toQuaternionAngle() {
+        return new QuaternionAngle3D(new Quaternion(real, i, j, k).normalize());
+    }
+
+    /**
+     * Rotates another angle by this rotation.
+     *
+     * @param other The other angle to rotate by.
+     * @return A new FloatQuaternionAngle3D representing the combined rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D rotate(FloatQuaternionAngle3D other) {
+        double lr = real, li = i, lj = j, lk = k;
+        double rr = other.real, ri = other.i, rj = other.j, rk = other.k;
+        return new FloatQuaternionAngle3D(lr * rr - li * ri - lj * rj - lk * rk,
+                                          lr * ri + li * rr + lj * rk - lk * rj,
+                                          lr * rj + lj * rr + lk * ri - li * rk,
+                                          lr * rk + lk * rr + li * rj - lj * ri,
+                                          Math.max(compositions, other.compositions) + 1);
+    }
+
+    /**
+     * Rotates a given 3D vector using this rotation, as v + s (w (u x v) + u x (u x v)) with s = 2 / |q|^2.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D rotate(Vector3D point) {
+        return rotate(point, 1);
+    }
+
+    /**
+     * Rotates a given 3D vector by the inverse of this rotation.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D inverseRotate(Vector3D point) {
+        return rotate(point, -1);
+    }
+
+    private Vector3D rotate(Vector3D point, double direction) {
+        double w = direction * real, x = i, y = j, z = k;
+        double s = 2 / (w * w + x * x + y * y + z * z);
+        double px = point.x(), py = point.y(), pz = point.z();
+        double cx = y * pz - z * py, cy = z * px - x * pz, cz = x * py - y * px;
+        double ccx = y * cz - z * cy, ccy = z * cx - x * cz, ccz = x * cy - y * cx;
+        return new Vector3D(px + s * (w * cx + ccx), py + s * (w * cy + ccy), pz + s * (w * cz + ccz));
+    }
+
+    /**
+     * Computes the inverse of this rotation.
+     *
+     * @return A new FloatQuaternionAngle3D representing the inverse rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D inverse() {
+        return new FloatQuaternionAngle3D(real, -i, -j, -k, compositions);
+    }
+
+    /**
+     * Scales this rotation by a given factor.
+     *
+     * @param scale The scaling factor.
+     * @return A new FloatQuaternionAngle3D with the scaled rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D scale(double scale) {
+        double factor = scale * QuaternionSystem.logScale(real, (double) i * i + (double) j * j + (double) k * k);
+        return FloatQuaternionSystem.INSTANCE.fromAxis(factor * i, factor * j, factor * k);
+    }
+
+    /**
+     * Computes the magnitude (angle in radians) of this rotation.
+     *
+     * @return The rotation angle in radians.
+     */
+    @Override
+    public double magnitude() {
+        double sqVector = (double) i * i + (double) j * j + (double) k * k;
+        return QuaternionSystem.logScale(real, sqVector) * Math.sqrt(sqVector);
+    }
+
+    /**
+     * Retrieves the axis of rotation, scaled by the rotation magnitude.
+     *
+     * @return The axis vector scaled by the rotation magnitude.
+     */
+    @Override
+    public Vector3D axis() {
+        double factor = QuaternionSystem.logScale(real, (double) i * i + (double) j * j + (double) k * k);
+        return new Vector3D(factor * i, factor * j, factor * k);
+    }
+
+    /**
+     * Creates and returns a copy of this angle.
+     *
+     * @return A new FloatQuaternionAngle3D instance with the same rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D clone() {
+        try {
+            return (FloatQuaternionAngle3D) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the associated angle system.
+     *
+     * @return The single precision quaternion angle system.
+     */
+    @Override
+    public FloatQuaternionSystem getAngleSystem() {
+        return FloatQuaternionSystem.INSTANCE;
+    }
+
+    private RotationMatrix matrix() {
+        return new RotationMatrix(real, i, j, k);
+    }
+
+    /**
+     * Computes the pitch (rotation about the lateral axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The pitch angle in radians.
+     */
+    @Override
+    public double getPitch(AviationMapping mapping) {
+        return Attitude.pitch(matrix(), mapping);
+    }
+
+    /**
+     * Computes the yaw (rotation about the vertical axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The yaw angle in radians.
+     */
+    @Override
+    public double getYaw(AviationMapping mapping) {
+        return Attitude.yaw(matrix(), mapping);
+    }
+
+    /**
+     * Computes the roll (rotation about the longitudinal axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The roll angle in radians.
+     */
+    @Override
+    public double getRoll(AviationMapping mapping) {
+        RotationMatrix m = matrix();
+        return Attitude.roll(m, mapping, Attitude.pitch(m, mapping));
+    }
+
+    /**
+     * Computes pitch, yaw and roll together.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The attitude of this angle.
+     */
+    @Override
+    public Attitude getAttitude(AviationMapping mapping) {
+        return Attitude.of(matrix(), mapping);
+    }
+
+    /**
+     * Returns a string representation of this angle.
+     *
+     * @return A string describing the quaternion rotation.
+     */
+    @Override
+    public String toString() {
+        return "Angle3D: FloatQuaternion: (" + real + "," + i + "," + j + "," + k + ")";
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.SpacialParity3D;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * A single precision counterpart of {@link QuaternionSystem}, creating {@link FloatQuaternionAngle3D} objects.
+ * <p>
+ * Angles are computed in double precision and rounded when stored, so this system halves the memory
+ * of large orientation sets at the cost of a relative accuracy of about 1e-7.
+ * </p>
+ * <p>
+ * This class follows a singleton pattern, with {@code INSTANCE} as the only instance.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class FloatQuaternionSystem extends Angle3DSystem<FloatQuaternionAngle3D> {
+
+    /**
+     * The singleton instance of {@code FloatQuaternionSystem}.
+     */
+    public static final FloatQuaternionSystem INSTANCE = new FloatQuaternionSystem();
+
+    /**
+     * Private constructor to enforce singleton pattern.
+     * Initializes the system with a right-handed coordinate system.
+     */
+    private FloatQuaternionSystem() {
+        super(SpacialParity3D.RightHandXYZ);
+    }
+
+    /**
+     * Creates the rotation about the XY plane (X -> Y -> -X).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleXY(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), 0, 0, Math.sin(magnitude/2));
+    }
+
+    /**
+     * Creates the rotation about the XZ plane (X -> Z -> -X).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleXZ(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), 0, -Math.sin(magnitude/2), 0);
+    }
+
+    /**
+     * Creates the rotation about the YZ plane (Y -> Z -> -Y).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleYZ(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), Math.sin(magnitude/2), 0, 0);
+    }
+
+    /**
+     * Creates the rotation about the YX plane (Y -> X -> -Y).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleYX(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), 0, 0, -Math.sin(magnitude/2));
+    }
+
+    /**
+     * Creates the rotation about the ZX plane (Z -> X -> -Z).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleZX(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), 0, Math.sin(magnitude/2), 0);
+    }
+
+    /**
+     * Creates the rotation about the ZY plane (Z -> Y -> -Z).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D angleZY(double magnitude) {
+        return new FloatQuaternionAngle3D(Math.cos(magnitude/2), -Math.sin(magnitude/2), 0, 0);
+    }
+
+    /**
+     * Creates a rotation from an axis-angle representation, using {@link QuaternionSystem#exp(Vector3D)}.
+     * The magnitude of the vector is the magnitude of the resulting rotation.
+     *
+     * @param axis The axis of rotation as a {@code Vector3D}.
+     * @return A {@code FloatQuaternionAngle3D} representing the rotation.
+     */
+    @Override
+    public FloatQuaternionAngle3D fromAxis(Vector3D axis) {
+        return fromAxis(axis.x(), axis.y(), axis.z());
+    }
+
+    FloatQuaternionAngle3D fromAxis(double x, double y, double z) {
+        MutableQuaternion result = new MutableQuaternion();
+        QuaternionSystem.exp(x, y, z, result);
+        return new FloatQuaternionAngle3D(result.real(), result.i(), result.j(), result.k());
+    }
+}
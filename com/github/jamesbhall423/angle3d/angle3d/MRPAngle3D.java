@@ -0,0 +1,269 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * Represents a 3D rotational transformation using modified Rodrigues parameters (MRPs).
+ * <p>
+ * The parameters are p = u tan(a/4) for a rotation of angle a about the unit axis u, which equals v / (1 + w)
+ * for the unit quaternion (w, v). Only the three components of p are stored, so an angle occupies 40 bytes.
+ * Rotations with p and with its shadow -p / |p|^2 are the same, and this class always keeps the set with
+ * |p| &lt;= 1, so the parameters stay bounded for every rotation.
+ * </p>
+ * <p>
+ * Composition uses the rational MRP product formula and picks the shadow set by comparing two denominators,
+ * so it needs no square root. The larger denominator is at least half of (1 + |a|^2)(1 + |b|^2), so the product
+ * keeps full precision at and near a composed full turn.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class MRPAngle3D implements Angle3D<MRPAngle3D> {
+    private final double x;
+    private final double y;
+    private final double z;
+
+    /**
+     * Constructs an angle from modified Rodrigues parameters. If |p| &gt; 1 the shadow set is stored instead.
+     *
+     * @param x The x component of p.
+     * @param y The y component of p.
+     * @param z The z component of p.
+     */
+    public MRPAngle3D(double x, double y, double z) {
+        double sqMagnitude = x * x + y * y + z * z;
+        double scale = sqMagnitude > 1 ? -1 / sqMagnitude : 1;
+        this.x = scale * x;
+        this.y = scale * y;
+        this.z = scale * z;
+    }
+
+    /**
+     * Constructs the MRP angle equivalent to a quaternion angle.
+     *
+     * @param angle The quaternion angle to convert.
+     */
+    public MRPAngle3D(QuaternionAngle3D angle) {
+        this(angle.value.i() / (1 + angle.value.real()),
+             angle.value.j() / (1 + angle.value.real()),
+             angle.value.k() / (1 + angle.value.real()));
+    }
+
+    /**
+     * @return The x component of the parameters.
+     */
+    public double x() {
+        return x;
+    }
+
+    /**
+     * @return The y component of the parameters.
+     */
+    public double y() {
+        return y;
+    }
+
+    /**
+     * @return The z component of the parameters.
+     */
+    public double z() {
+        return z;
+    }
+
+    /**
+     * Converts this angle to a quaternion angle, as ((1 - |p|^2), 2p) / (1 + |p|^2).
+     *
+     * @return The equivalent {@code QuaternionAngle3D}.
+     */
+    public QuaternionAngle3D toQuaternionAngle() {
+        double sqMagnitude = x * x + y * y + z * z;
+        double scale = 1 / (1 + sqMagnitude);
+        return new QuaternionAngle3D(new Quaternion((1 - sqMagnitude) * scale, 2 * x * scale, 2 * y * scale, 2 * z * scale));
+    }
+
+    /**
+     * Rotates another angle by this rotation. The product
+     * [(1 - |a|^2) b + (1 - |b|^2) a + 2 a x b] / [1 + |a|^2 |b|^2 - 2 a.b]
+     * is evaluated as a numerator N and denominator D. Since |N|^2 = D E with E = |a|^2 + |b|^2 + 2 a.b, the
+     * shadow set is -N / E, and whichever of D and E is larger gives the set with |p| &lt;= 1. The two sum to
+     * (1 + |a|^2)(1 + |b|^2), so the divisor is never near zero.
+     *
+     * @param other The other angle to rotate by.
+     * @return A new MRPAngle3D representing the combined rotation.
+     */
+    @Override
+    public MRPAngle3D rotate(MRPAngle3D other) {
+        double sqA = x * x + y * y + z * z;
+        double sqB = other.x * other.x + other.y * other.y + other.z * other.z;
+        double dot = x * other.x + y * other.y + z * other.z;
+        double nx = (1 - sqA) * other.x + (1 - sqB) * x + 2 * (y * other.z - z * other.y);
+        double ny = (1 - sqA) * other.y + (1 - sqB) * y + 2 * (z * other.x - x * other.z);
+        double nz = (1 - sqA) * other.z + (1 - sqB) * z + 2 * (x * other.y - y * other.x);
+        double denominator = 1 + sqA * sqB - 2 * dot;
+        double shadowDenominator = sqA + sqB + 2 * dot;
+        double scale = denominator >= shadowDenominator ? 1 / denominator : -1 / shadowDenominator;
+        return new MRPAngle3D(scale * nx, scale * ny, scale * nz);
+    }
+
+    /**
+     * Rotates a given 3D vector using this rotation, as
+     * v + [4 (1 - |p|^2) (p x v) + 8 p x (p x v)] / (1 + |p|^2)^2.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D rotate(Vector3D point) {
+        return rotate(point, x, y, z);
+    }
+
+    /**
+     * Rotates a given 3D vector by the inverse of this rotation.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D inverseRotate(Vector3D point) {
+        return rotate(point, -x, -y, -z);
+    }
+
+    private static Vector3D rotate(Vector3D point, double x, double y, double z) {
+        double sqMagnitude = x * x + y * y + z * z;
+        double denominator = 1 + sqMagnitude;
+        double linear = 4 * (1 - sqMagnitude) / (denominator * denominator);
+        double quadratic = 8 / (denominator * denominator);
+        double px = point.x(), py = point.y(), pz = point.z();
+        double cx = y * pz - z * py, cy = z * px - x * pz, cz = x * py - y * px;
+        double ccx = y * cz - z * cy, ccy = z * cx - x * cz, ccz = x * cy - y * cx;
+        return new Vector3D(px + linear * cx + quadratic * ccx, py + linear * cy + quadratic * ccy, pz + linear * cz + quadratic * ccz);
+    }
+
+    /**
+     * Computes the inverse of this rotation, which has parameters -p.
+     *
+     * @return A new MRPAngle3D representing the inverse rotation.
+     */
+    @Override
+    public MRPAngle3D inverse() {
+        return new MRPAngle3D(-x, -y, -z);
+    }
+
+    /**
+     * Scales this rotation by a given factor.
+     *
+     * @param scale The scaling factor.
+     * @return A new MRPAngle3D with the scaled rotation.
+     */
+    @Override
+    public MRPAngle3D scale(double scale) {
+        return MRPSystem.INSTANCE.fromAxis(axis().scale(scale));
+    }
+
+    /**
+     * Computes the magnitude (angle in radians) of this rotation, 4 atan(|p|).
+     *
+     * @return The rotation angle in radians.
+     */
+    @Override
+    public double magnitude() {
+        double sqMagnitude = x * x + y * y + z * z;
+        return 2 * QuaternionSystem.logScale(1, sqMagnitude) * Math.sqrt(sqMagnitude);
+    }
+
+    /**
+     * Retrieves the axis of rotation, scaled by the rotation magnitude.
+     *
+     * @return The axis vector scaled by the rotation magnitude.
+     */
+    @Override
+    public Vector3D axis() {
+        double scale = 2 * QuaternionSystem.logScale(1, x * x + y * y + z * z);
+        return new Vector3D(scale * x, scale * y, scale * z);
+    }
+
+    /**
+     * Creates and returns a copy of this angle.
+     *
+     * @return A new MRPAngle3D instance with the same rotation.
+     */
+    @Override
+    public MRPAngle3D clone() {
+        try {
+            return (MRPAngle3D) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the associated angle system.
+     *
+     * @return The MRP angle system.
+     */
+    @Override
+    public MRPSystem getAngleSystem() {
+        return MRPSystem.INSTANCE;
+    }
+
+    /**
+     * The rotation matrix of the unnormalized quaternion (1 - |p|^2, 2p).
+     */
+    private RotationMatrix matrix() {
+        return new RotationMatrix(1 - (x * x + y * y + z * z), 2 * x, 2 * y, 2 * z);
+    }
+
+    /**
+     * Computes the pitch (rotation about the lateral axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The pitch angle in radians.
+     */
+    @Override
+    public double getPitch(AviationMapping mapping) {
+        return Attitude.pitch(matrix(), mapping);
+    }
+
+    /**
+     * Computes the yaw (rotation about the vertical axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The yaw angle in radians.
+     */
+    @Override
+    public double getYaw(AviationMapping mapping) {
+        return Attitude.yaw(matrix(), mapping);
+    }
+
+    /**
+     * Computes the roll (rotation about the longitudinal axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The roll angle in radians.
+     */
+    @Override
+    public double getRoll(AviationMapping mapping) {
+        RotationMatrix m = matrix();
+        return Attitude.roll(m, mapping, Attitude.pitch(m, mapping));
+    }
+
+    /**
+     * Computes pitch, yaw and roll together.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The attitude of this angle.
+     */
+    @Override
+    public Attitude getAttitude(AviationMapping mapping) {
+        return Attitude.of(matrix(), mapping);
+    }
+
+    /**
+     * Returns a string representation of this angle.
+     *
+     * @return A string giving the parameters.
+     */
+    @Override
+    public String toString() {
+        return "Angle3D: MRP: (" + x + "," + y + "," + z + ")";
+    }
+}
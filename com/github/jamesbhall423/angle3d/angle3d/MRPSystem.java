@@ -0,0 +1,117 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.SpacialParity3D;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * A modified Rodrigues parameter implementation of {@code Angle3DSystem}, creating {@link MRPAngle3D} objects.
+ * Angles are built through the same quaternion formulas as {@link QuaternionSystem}, so the two systems
+ * follow identical conventions.
+ * <p>
+ * Each angle stores only three doubles, and composition needs no square root, so this system suits large
+ * orientation sets that are composed more often than they are converted.
+ * </p>
+ * <p>
+ * This class follows a singleton pattern, with {@code INSTANCE} as the only instance.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class MRPSystem extends Angle3DSystem<MRPAngle3D> {
+
+    /**
+     * The singleton instance of {@code MRPSystem}.
+     */
+    public static final MRPSystem INSTANCE = new MRPSystem();
+
+    /**
+     * Private constructor to enforce singleton pattern.
+     * Initializes the system with a right-handed coordinate system.
+     */
+    private MRPSystem() {
+        super(SpacialParity3D.RightHandXYZ);
+    }
+
+    /**
+     * Creates the rotation about the XY plane (X -> Y -> -X).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleXY(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), 0, 0, Math.sin(magnitude/2));
+    }
+
+    /**
+     * Creates the rotation about the XZ plane (X -> Z -> -X).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleXZ(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), 0, -Math.sin(magnitude/2), 0);
+    }
+
+    /**
+     * Creates the rotation about the YZ plane (Y -> Z -> -Y).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleYZ(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), Math.sin(magnitude/2), 0, 0);
+    }
+
+    /**
+     * Creates the rotation about the YX plane (Y -> X -> -Y).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleYX(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), 0, 0, -Math.sin(magnitude/2));
+    }
+
+    /**
+     * Creates the rotation about the ZX plane (Z -> X -> -Z).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleZX(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), 0, Math.sin(magnitude/2), 0);
+    }
+
+    /**
+     * Creates the rotation about the ZY plane (Z -> Y -> -Z).
+     *
+     * @param magnitude The rotation angle in radians.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D angleZY(double magnitude) {
+        return fromQuaternion(Math.cos(magnitude/2), -Math.sin(magnitude/2), 0, 0);
+    }
+
+    /**
+     * Creates a rotation from an axis-angle representation, through {@link QuaternionSystem#exp(Vector3D)}.
+     * The magnitude of the vector is the magnitude of the resulting rotation.
+     *
+     * @param axis The axis of rotation as a {@code Vector3D}.
+     * @return A {@code MRPAngle3D} representing the rotation.
+     */
+    @Override
+    public MRPAngle3D fromAxis(Vector3D axis) {
+        MutableQuaternion q = new MutableQuaternion();
+        QuaternionSystem.exp(axis.x(), axis.y(), axis.z(), q);
+        return fromQuaternion(q.real(), q.i(), q.j(), q.k());
+    }
+
+    private MRPAngle3D fromQuaternion(double real, double i, double j, double k) {
+        double scale = real >= 0 ? 1 / (1 + real) : -1 / (1 - real);
+        return new MRPAngle3D(scale * i, scale * j, scale * k);
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * Represents a 3D rotational transformation using an orthonormal 3x3 matrix.
+ * <p>
+ * Rotating a vector costs 9 multiplications and 6 additions, and the inverse is the transpose, so this
+ * representation suits workloads that rotate many vectors per angle. Composition costs a matrix product
+ * followed by Gram-Schmidt re-orthonormalization, which is more than a quaternion product. The magnitude,
+ * axis and scaling go through the equivalent quaternion.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class MatrixAngle3D implements Angle3D<MatrixAngle3D> {
+    final RotationMatrix matrix;
+
+    MatrixAngle3D(RotationMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    /**
+     * Constructs the matrix angle equivalent to a quaternion angle.
+     *
+     * @param angle The quaternion angle to convert.
+     */
+    public MatrixAngle3D(QuaternionAngle3D angle) {
+        this(angle.matrix());
+    }
+
+    /**
+     * Returns the entry at the given row and column of the rotation matrix.
+     *
+     * @param row The row, from 0 to 2.
+     * @param column The column, from 0 to 2.
+     * @return The matrix entry.
+     */
+    public double get(int row, int column) {
+        return matrix.get(row, column);
+    }
+
+    /**
+     * Converts this angle to a quaternion angle.
+     *
+     * @return The equivalent {@code QuaternionAngle3D}.
+     */
+    public QuaternionAngle3D toQuaternionAngle() {
+        MutableQuaternion q = new MutableQuaternion();
+        matrix.toQuaternion(q);
+        return q.toAngle();
+    }
+
+    /**
+     * Rotates another matrix angle by this rotation.
+     *
+     * @param other The other angle to rotate by.
+     * @return A new MatrixAngle3D representing the combined rotation.
+     */
+    @Override
+    public MatrixAngle3D rotate(MatrixAngle3D other) {
+        return new MatrixAngle3D(matrix.multiply(other.matrix));
+    }
+
+    /**
+     * Rotates a given 3D vector using this rotation.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D rotate(Vector3D point) {
+        return matrix.rotate(point);
+    }
+
+    /**
+     * Rotates a given 3D vector by the inverse of this rotation, using the transpose.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D inverseRotate(Vector3D point) {
+        return matrix.inverseRotate(point);
+    }
+
+    /**
+     * Computes the inverse of this rotation, which is the transpose of the matrix.
+     *
+     * @return A new MatrixAngle3D representing the inverse rotation.
+     */
+    @Override
+    public MatrixAngle3D inverse() {
+        return new MatrixAngle3D(matrix.transpose());
+    }
+
+    /**
+     * Scales this rotation by a given factor.
+     *
+     * @param scale The scaling factor.
+     * @return A new MatrixAngle3D with the scaled rotation.
+     */
+    @Override
+    public MatrixAngle3D scale(double scale) {
+        return MatrixSystem.INSTANCE.fromAxis(axis().scale(scale));
+    }
+
+    /**
+     * Computes the magnitude (angle in radians) of this rotation.
+     *
+     * @return The rotation angle in radians.
+     */
+    @Override
+    public double magnitude() {
+        return axis().magnitude();
+    }
+
+    /**
+     * Retrieves the axis of rotation, scaled by the rotation magnitude.
+     *
+     * @return The axis vector scaled by the rotation magnitude.
+     */
+    @Override
+    public Vector3D axis() {
+        MutableQuaternion q = new MutableQuaternion();
+        matrix.toQuaternion(q);
+        double scale = QuaternionSystem.logScale(q.real(), q.i() * q.i() + q.j() * q.j() + q.k() * q.k());
+        return new Vector3D(scale * q.i(), scale * q.j(), scale * q.k());
+    }
+
+    /**
+     * Creates and returns a copy of this angle.
+     *
+     * @return A new MatrixAngle3D instance with the same rotation.
+     */
+    @Override
+    public MatrixAngle3D clone() {
+        try {
+            return (MatrixAngle3D) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the associated angle system.
+     *
+     * @return The matrix angle system.
+     */
+    @Override
+    public MatrixSystem getAngleSystem() {
+        return MatrixSystem.INSTANCE;
+    }
+
+    /**
+     * Computes the pitch (rotation about the lateral axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The pitch angle in radians.
+     */
+    @Override
+    public double getPitch(AviationMapping mapping) {
+        return Attitude.pitch(matrix, mapping);
+    }
+
+    /**
+     * Computes the yaw (rotation about the vertical axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The yaw angle in radians.
+     */
+    @Override
+    public double getYaw(AviationMapping mapping) {
+        return Attitude.yaw(matrix, mapping);
+    }
+
+    /**
+     * Computes the roll (rotation about the longitudinal axis) from this angle.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The roll angle in radians.
+     */
+    @Override
+    public double getRoll(AviationMapping mapping) {
+        return Attitude.roll(matrix, mapping, getPitch(mapping));
+    }
+
+    /**
+     * Computes pitch, yaw and roll together.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The attitude of this angle.
+     */
+    @Override
+    public Attitude getAttitude(AviationMapping mapping) {
+        return Attitude.of(matrix, mapping);
+    }
+
+    /**
+     * Returns a string representation of this angle.
+     *
+     * @return A string giving the rows of the matrix.
+     */
+    @Override
+    public String toString() {
+        return "Angle3D: Matrix: ((" + matrix.m00 + "," + matrix.m01 + "," + matrix.m02 + "),("
+            + matrix.m10 + "," + matrix.m11 + "," + matrix.m12 + "),("
+            + matrix.m20 + "," + matrix.m21 + "," + matrix.m22 + "))";
+    }
+}
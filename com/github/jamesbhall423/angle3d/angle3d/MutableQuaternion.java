@@ -0,0 +1,318 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * A quaternion whose components can be overwritten in place.
+ * <p>
+ * Every operation stores its result in this instance and returns it, so composition and vector rotation
+ * can be carried out in loops without allocating. {@link Quaternion} remains the safe, immutable default;
+ * use {@link #toQuaternion()} or {@link #toAngle()} when a value needs to be kept or shared.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class MutableQuaternion {
+    private double real;
+    private double i;
+    private double j;
+    private double k;
+
+    /**
+     * Constructs the identity quaternion (1, 0, 0, 0).
+     */
+    public MutableQuaternion() {
+        this(1.0, 0.0, 0.0, 0.0);
+    }
+
+    /**
+     * Constructs a mutable quaternion with the given components.
+     * @param real the real component
+     * @param i the i (x-axis imaginary) component
+     * @param j the j (y-axis imaginary) component
+     * @param k the k (z-axis imaginary) component
+     */
+    public MutableQuaternion(double real, double i, double j, double k) {
+        set(real, i, j, k);
+    }
+
+    /**
+     * Constructs a mutable copy of an immutable quaternion.
+     * @param value the quaternion to copy
+     */
+    public MutableQuaternion(Quaternion value) {
+        set(value);
+    }
+
+    /**
+     * Returns the real component of the quaternion.
+     * @return the real component
+     */
+    public double real() {
+        return real;
+    }
+
+    /**
+     * Returns the i component of the quaternion.
+     * @return the i component
+     */
+    public double i() {
+        return i;
+    }
+
+    /**
+     * Returns the j component of the quaternion.
+     * @return the j component
+     */
+    public double j() {
+        return j;
+    }
+
+    /**
+     * Returns the k component of the quaternion.
+     * @return the k component
+     */
+    public double k() {
+        return k;
+    }
+
+    /**
+     * Overwrites all four components.
+     * @param real the real component
+     * @param i the i component
+     * @param j the j component
+     * @param k the k component
+     * @return this quaternion
+     */
+    public MutableQuaternion set(double real, double i, double j, double k) {
+        this.real = real;
+        this.i = i;
+        this.j = j;
+        this.k = k;
+        return this;
+    }
+
+    /**
+     * Copies the components of an immutable quaternion.
+     * @param value the quaternion to copy
+     * @return this quaternion
+     */
+    public MutableQuaternion set(Quaternion value) {
+        return set(value.real(), value.i(), value.j(), value.k());
+    }
+
+    /**
+     * Copies the components of another mutable quaternion.
+     * @param value the quaternion to copy
+     * @return this quaternion
+     */
+    public MutableQuaternion set(MutableQuaternion value) {
+        return set(value.real, value.i, value.j, value.k);
+    }
+
+    /**
+     * Copies the quaternion underlying a quaternion-based angle.
+     * @param angle the angle to copy
+     * @return this quaternion
+     */
+    public MutableQuaternion set(QuaternionAngle3D angle) {
+        return set(angle.value);
+    }
+
+    /**
+     * Resets this quaternion to the identity (1, 0, 0, 0).
+     * @return this quaternion
+     */
+    public MutableQuaternion setIdentity() {
+        return set(1.0, 0.0, 0.0, 0.0);
+    }
+
+    /**
+     * Multiplies this quaternion on the right by another quaternion, so that this = this * right.
+     * @param right the quaternion to multiply with
+     * @return this quaternion
+     */
+    public MutableQuaternion mult(MutableQuaternion right) {
+        return setProduct(this, right);
+    }
+
+    /**
+     * Multiplies this quaternion on the left by another quaternion, so that this = left * this.
+     * @param left the quaternion to multiply by
+     * @return this quaternion
+     */
+    public MutableQuaternion preMult(MutableQuaternion left) {
+        return setProduct(left, this);
+    }
+
+    /**
+     * Stores the product left * right in this quaternion.
+     * Either argument may be this quaternion.
+     * @param left the left factor
+     * @param right the right factor
+     * @return this quaternion
+     */
+    public MutableQuaternion setProduct(MutableQuaternion left, MutableQuaternion right) {
+        return setProduct(left.real, left.i, left.j, left.k, right.real, right.i, right.j, right.k);
+    }
+
+    /**
+     * Stores the product of two quaternions given by their components in this quaternion.
+     * The arithmetic is the same as {@link Quaternion#mult(Quaternion)}.
+     * @param lr the real component of the left factor
+     * @param li the i component of the left factor
+     * @param lj the j component of the left factor
+     * @param lk the k component of the left factor
+     * @param rr the real component of the right factor
+     * @param ri the i component of the right factor
+     * @param rj the j component of the right factor
+     * @param rk the k component of the right factor
+     * @return this quaternion
+     */
+    public MutableQuaternion setProduct(double lr, double li, double lj, double lk, double rr, double ri, double rj, double rk) {
+        return set(lr * rr - li * ri - lj * rj - lk * rk,
+                   lr * ri + li * rr + lj * rk - lk * rj,
+                   lr * rj + lj * rr + lk * ri - li * rk,
+                   lr * rk + lk * rr + li * rj - lj * ri);
+    }
+
+    /**
+     * Stores the rotation of a rotation vector (axis scaled by angle) in this quaternion, with a non-negative
+     * real part. The arithmetic is the same as {@link QuaternionSystem#exp(Vector3D)} of {@link QuaternionSystem#INSTANCE}.
+     * @param x the x component of the rotation vector
+     * @param y the y component of the rotation vector
+     * @param z the z component of the rotation vector
+     * @return this quaternion
+     */
+    public MutableQuaternion setExp(double x, double y, double z) {
+        QuaternionSystem.exp(x, y, z, this);
+        return real >= 0 ? this : scale(-1);
+    }
+
+    /**
+     * Replaces this quaternion by its conjugate.
+     * @return this quaternion
+     */
+    public MutableQuaternion conjugate() {
+        return set(real, -i, -j, -k);
+    }
+
+    /**
+     * Scales this quaternion by a given factor.
+     * @param scale the scale factor
+     * @return this quaternion
+     */
+    public MutableQuaternion scale(double scale) {
+        return set(real * scale, i * scale, j * scale, k * scale);
+    }
+
+    /**
+     * Normalizes this quaternion to unit length with a non-negative real part,
+     * following the same rules as {@link Quaternion#normalize()}.
+     * @return this quaternion
+     */
+    public MutableQuaternion normalize() {
+        double sign = real >= 0 ? 1 : -1;
+        double mag = magnitude();
+        if (mag == 0) return setIdentity();
+        return scale(sign / mag);
+    }
+
+    /**
+     * Returns the squared magnitude of the quaternion.
+     * @return the squared magnitude
+     */
+    public double sqMagnitude() {
+        return real * real + i * i + j * j + k * k;
+    }
+
+    /**
+     * Returns the magnitude (norm) of the quaternion.
+     * @return the magnitude of the quaternion
+     */
+    public double magnitude() {
+        return Math.sqrt(sqMagnitude());
+    }
+
+    /**
+     * Computes the dot product of this quaternion with another.
+     * @param q the other quaternion
+     * @return the dot product value
+     */
+    public double dot(MutableQuaternion q) {
+        return real * q.real + i * q.i + j * q.j + k * q.k;
+    }
+
+    /**
+     * Rotates the vector (x, y, z) by this quaternion without allocating.
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     * @param z the z component of the vector
+     * @param dest the array receiving the rotated x, y and z components
+     * @param offset the index in {@code dest} of the x component
+     */
+    public void rotate(double x, double y, double z, double[] dest, int offset) {
+        Quaternion.rotate(real, i, j, k, x, y, z, dest, offset);
+    }
+
+    /**
+     * Stores the rotation matrix of this quaternion in {@code dest}, row by row. These are the entries that
+     * {@link QuaternionAngle3D#rotate(Vector3D)} and {@link QuaternionAngle3D#inverseRotate(Vector3D)} apply,
+     * so rotating with them, or their transpose, gives the same results.
+     * @param dest the array receiving the nine entries
+     * @param offset the index in {@code dest} of the first entry
+     */
+    public void rotationMatrix(double[] dest, int offset) {
+        RotationMatrix.entries(real, i, j, k, dest, offset);
+    }
+
+    /**
+     * Rotates a packed sequence of xyz vectors by this quaternion.
+     * {@code src} and {@code dest} may be the same array.
+     * @param src the packed vectors to rotate
+     * @param srcOffset the index in {@code src} of the first x component
+     * @param dest the array receiving the packed rotated vectors
+     * @param destOffset the index in {@code dest} of the first x component
+     * @param count the number of vectors to rotate
+     */
+    public void rotate(double[] src, int srcOffset, double[] dest, int destOffset, int count) {
+        for (int n = 0; n < count; n++) {
+            int from = srcOffset + 3 * n;
+            Quaternion.rotate(real, i, j, k, src[from], src[from + 1], src[from + 2], dest, destOffset + 3 * n);
+        }
+    }
+
+    /**
+     * Rotates a 3D vector using this quaternion.
+     * @param v the vector to rotate
+     * @return the rotated vector
+     */
+    public Vector3D rotateVector(Vector3D v) {
+        double[] rotated = new double[3];
+        rotate(v.x(), v.y(), v.z(), rotated, 0);
+        return new Vector3D(rotated[0], rotated[1], rotated[2]);
+    }
+
+    /**
+     * Returns an immutable copy of this quaternion.
+     * @return a new Quaternion object
+     */
+    public Quaternion toQuaternion() {
+        return new Quaternion(real, i, j, k);
+    }
+
+    /**
+     * Returns the angle represented by this quaternion.
+     * @return a new QuaternionAngle3D
+     */
+    public QuaternionAngle3D toAngle() {
+        return new QuaternionAngle3D(toQuaternion());
+    }
+
+    /**
+     * Returns a string representation of the quaternion.
+     * @return a string representing the quaternion
+     */
+    @Override
+    public String toString() {
+        return "MutableQuaternion: (" + real + "," + i + "," + j + "," + k + ")";
+    }
+}
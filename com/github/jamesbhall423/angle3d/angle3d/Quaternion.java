@@ -7,10 +7,10 @@ import com.github.jamesbhall423.angle3d.position3d.Vector3D;
  * @author James Hall
  */
 public class Quaternion implements Cloneable {
-    private double real;
-    private double i;
-    private double j;
-    private double k;
+    private final double real;
+    private final double i;
+    private final double j;
+    private final double k;
 
     /**
      * A builder class for creating Quaternion instances.
@@ -256,9 +256,35 @@ public class Quaternion implements Cloneable {
      * @return the rotated vector
      */
     public Vector3D rotateVector(Vector3D v) {
-        Quaternion qVec = new Quaternion(0, v.x(), v.y(), v.z());
-        Quaternion rotated = this.mult(qVec).mult(this.conjugate());
-        return new Vector3D(rotated.i(), rotated.j(), rotated.k());
+        double[] rotated = new double[3];
+        rotate(real, i, j, k, v.x(), v.y(), v.z(), rotated, 0);
+        return new Vector3D(rotated[0], rotated[1], rotated[2]);
+    }
+
+    /**
+     * Computes q * v * conj(q) for the quaternion q = (real, i, j, k) and the pure quaternion v = (0, x, y, z),
+     * writing the vector part of the result to {@code dest}.
+     * The products are expanded with the zero real part of v removed, so the result matches
+     * two calls to {@link #mult(Quaternion)} without allocating intermediate quaternions.
+     *
+     * @param real the real component of the rotating quaternion
+     * @param i the i component of the rotating quaternion
+     * @param j the j component of the rotating quaternion
+     * @param k the k component of the rotating quaternion
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     * @param z the z component of the vector
+     * @param dest the array receiving the rotated x, y and z components
+     * @param offset the index in {@code dest} of the x component
+     */
+    static void rotate(double real, double i, double j, double k, double x, double y, double z, double[] dest, int offset) {
+        double r1 = -(i * x) - j * y - k * z;
+        double i1 = real * x + j * z - k * y;
+        double j1 = real * y + k * x - i * z;
+        double k1 = real * z + i * y - j * x;
+        dest[offset] = r1 * -i + i1 * real + j1 * -k - k1 * -j;
+        dest[offset + 1] = r1 * -j + j1 * real + k1 * -i - i1 * -k;
+        dest[offset + 2] = r1 * -k + k1 * real + i1 * -j - j1 * -i;
     }
 
     /**
@@ -1,17 +1,45 @@
 package com.github.jamesbhall423.angle3d.angle3d;
-import com.github.jamesbhall423.angle3d.position3d.AviationAxis;
 import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
-import com.github.jamesbhall423.angle3d.position3d.AviationVectorBuilder;
 import com.github.jamesbhall423.angle3d.position3d.Vector3D;
 /**
  * Represents a 3D rotational transformation using quaternions.
  * This class provides methods to rotate vectors, scale rotations, compute inverses, 
  * and extract pitch, yaw, and roll angles.
+ * <p>
+ * Because the angle is immutable, its rotation matrix, inverse, magnitude and axis are computed
+ * on first use and kept for later calls. Rotating many vectors by the same angle therefore costs
+ * one matrix-vector product per vector rather than two quaternion products.
+ * </p>
+ * <p>
+ * Each angle belongs to the {@link QuaternionSystem} that created it, and compositions follow that system's
+ * {@link RenormalizationPolicy}. Under a deferred policy the quaternion may drift slightly from unit norm;
+ * rotations, the axis and the magnitude are unaffected by the drift.
+ * </p>
  * 
  * @author James Hall
  */
 public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
-    private Quaternion value;
+    final Quaternion value;
+    private final QuaternionSystem system;
+    // Compositions since the value was last normalized
+    private final int compositions;
+    // Lazily computed caches. Each holds an immutable value, so a race only repeats the computation.
+    private RotationMatrix matrix;
+    private QuaternionAngle3D inverse;
+    private AxisAngle axisAngle;
+
+    /**
+     * The magnitude and axis vector of an angle, computed together.
+     */
+    private static final class AxisAngle {
+        final double magnitude;
+        final Vector3D axis;
+
+        AxisAngle(double magnitude, Vector3D axis) {
+            this.magnitude = magnitude;
+            this.axis = axis;
+        }
+    }
 
     /**
      * Constructs a quaternion-based 3D angle. Ensures a unique representation by normalizing 
@@ -20,19 +48,60 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      * @param in The quaternion representing the rotation.
      */
     public QuaternionAngle3D(Quaternion in) {
-        if (in.real() >= 0) value = in.clone();
-        else value = in.scale(-1);
+        this(in.real() >= 0 ? in.clone() : in.scale(-1), QuaternionSystem.INSTANCE, 0);
     }
 
     /**
-     * Rotates another quaternion-based angle by this quaternion-based rotation
+     * Constructs an angle of the given system, taking ownership of a quaternion whose real component is not negative.
+     */
+    QuaternionAngle3D(Quaternion value, QuaternionSystem system, int compositions) {
+        this.value = value;
+        this.system = system;
+        this.compositions = compositions;
+    }
+
+    /**
+     * Returns the quaternion underlying this angle. The real component is never negative.
+     *
+     * @return The quaternion representing the rotation.
+     */
+    public Quaternion getQuaternion() {
+        return value;
+    }
+
+    /**
+     * Rotates another quaternion-based angle by this quaternion-based rotation.
+     * The product is normalized as decided by the {@link RenormalizationPolicy} of this angle's system.
      *
      * @param other The other angle to rotate by.
      * @return A new QuaternionAngle3D representing the combined rotation.
      */
     @Override
     public QuaternionAngle3D rotate(QuaternionAngle3D other) {
-        return new QuaternionAngle3D(value.mult(other.value).normalize());
+        Quaternion left = value, right = other.value;
+        double real = left.real() * right.real() - left.i() * right.i() - left.j() * right.j() - left.k() * right.k();
+        double i = left.real() * right.i() + left.i() * right.real() + left.j() * right.k() - left.k() * right.j();
+        double j = left.real() * right.j() + left.j() * right.real() + left.k() * right.i() - left.i() * right.k();
+        double k = left.real() * right.k() + left.k() * right.real() + left.i() * right.j() - left.j() * right.i();
+        double sign = real >= 0 ? 1 : -1;
+        double sqMagnitude = real * real + i * i + j * j + k * k;
+        RenormalizationPolicy policy = system.getRenormalizationPolicy();
+        int count = 0;
+        double scale;
+        if (policy.isAlways()) {
+            double magnitude = Math.sqrt(sqMagnitude);
+            if (magnitude == 0) return new QuaternionAngle3D(new Quaternion(1.0, 0.0, 0.0, 0.0), system, 0);
+            scale = sign / magnitude;
+        } else {
+            count = Math.max(compositions, other.compositions) + 1;
+            double normalizer = policy.normalizer(count, sqMagnitude);
+            if (normalizer == 0) scale = sign;
+            else {
+                scale = sign * normalizer;
+                count = 0;
+            }
+        }
+        return new QuaternionAngle3D(new Quaternion(real * scale, i * scale, j * scale, k * scale), system, count);
     }
 
     /**
@@ -43,7 +112,33 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public Vector3D rotate(Vector3D point) {
-        return value.rotateVector(point);
+        return matrix().rotate(point);
+    }
+
+    /**
+     * Rotates a given 3D vector by the inverse of this rotation,
+     * applying the transpose of the cached rotation matrix.
+     *
+     * @param point The vector to be rotated.
+     * @return The rotated vector.
+     */
+    @Override
+    public Vector3D inverseRotate(Vector3D point) {
+        return matrix().inverseRotate(point);
+    }
+
+    /**
+     * Returns the rotation matrix of this angle, computing it on first use.
+     *
+     * @return The cached rotation matrix.
+     */
+    RotationMatrix matrix() {
+        RotationMatrix result = matrix;
+        if (result == null) {
+            result = new RotationMatrix(value);
+            matrix = result;
+        }
+        return result;
     }
 
     /**
@@ -53,7 +148,14 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D inverse() {
-        return new QuaternionAngle3D(value.inv());
+        QuaternionAngle3D result = inverse;
+        if (result == null) {
+            Quaternion inv = value.inv();
+            result = new QuaternionAngle3D(inv.real() >= 0 ? inv : inv.scale(-1), system, compositions);
+            result.inverse = this;
+            inverse = result;
+        }
+        return result;
     }
 
     /**
@@ -76,9 +178,11 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      * @return A new QuaternionAngle3D with the specified magnitude.
      */
     public QuaternionAngle3D scaleToSize(double scale) {
-        double vectorStrength = Math.sin(scale / 2);
+        double[] sinCos = new double[2];
+        system.trig().sinCos(scale / 2, sinCos, 0);
+        double vectorStrength = sinCos[0];
         Vector3D direction = value.normalizeVector().getVector();
-        return new QuaternionAngle3D(new Quaternion(Math.cos(scale / 2), 
+        return system.angle(new Quaternion(sinCos[1], 
             vectorStrength * direction.x(), 
             vectorStrength * direction.y(), 
             vectorStrength * direction.z()));
@@ -91,7 +195,7 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public double magnitude() {
-        return 2 * Math.acos(value.real());
+        return axisAngle().magnitude;
     }
 
     /**
@@ -102,8 +206,19 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public Vector3D axis() {
-        Vector3D vector = value.normalizeVector().getVector();
-        return vector.scale(magnitude());
+        return axisAngle().axis;
+    }
+
+    private AxisAngle axisAngle() {
+        AxisAngle result = axisAngle;
+        if (result == null) {
+            double i = value.i(), j = value.j(), k = value.k();
+            double sqVector = i * i + j * j + k * k;
+            double scale = QuaternionSystem.logScale(value.real(), sqVector);
+            result = new AxisAngle(scale * Math.sqrt(sqVector), new Vector3D(scale * i, scale * j, scale * k));
+            axisAngle = result;
+        }
+        return result;
     }
 
     /**
@@ -120,13 +235,13 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
     }
 
     /**
-     * Retrieves the associated angle system for quaternion-based rotations.
+     * Retrieves the quaternion system that created this angle, whose renormalization policy it follows.
      *
      * @return The quaternion angle system.
      */
     @Override
     public QuaternionSystem getAngleSystem() {
-        return QuaternionSystem.INSTANCE;
+        return system;
     }
 
     /**
@@ -147,9 +262,7 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public double getPitch(AviationMapping mapping) {
-        Vector3D use = new AviationVectorBuilder().set(AviationAxis.LONGITUDINAL, 1.0).build(mapping);
-        Vector3D rotated = rotate(use);
-        return Math.asin(rotated.getVertical(mapping));
+        return Attitude.pitch(matrix(), mapping);
     }
 
     /**
@@ -160,9 +273,7 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public double getYaw(AviationMapping mapping) {
-        Vector3D use = new AviationVectorBuilder().set(AviationAxis.LONGITUDINAL, 1.0).build(mapping);
-        Vector3D rotated = rotate(use);
-        return Math.atan2(-rotated.getLateral(mapping), rotated.getLongitudinal(mapping));
+        return Attitude.yaw(matrix(), mapping);
     }
 
     /**
@@ -173,9 +284,17 @@ public class QuaternionAngle3D implements Angle3D<QuaternionAngle3D> {
      */
     @Override
     public double getRoll(AviationMapping mapping) {
-        Vector3D use = new AviationVectorBuilder().set(AviationAxis.LATERAL, 1.0).build(mapping);
-        Vector3D rotated = rotate(use);
-        double cosPitch = Math.max(1e-10, Math.cos(getPitch(mapping)));
-        return Math.asin(-rotated.getVertical(mapping) / cosPitch);
+        return Attitude.roll(matrix(), mapping, getPitch(mapping));
+    }
+
+    /**
+     * Computes pitch, yaw and roll together, reading the entries of the cached rotation matrix.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @return The attitude of this angle.
+     */
+    @Override
+    public Attitude getAttitude(AviationMapping mapping) {
+        return Attitude.of(matrix(), mapping);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,301 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import java.util.Arrays;
+
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
+/**
+ * A fixed-size collection of quaternions stored as four primitive columns.
+ * <p>
+ * Each quaternion occupies 32 bytes spread over the real, i, j and k arrays, rather than a
+ * {@code QuaternionAngle3D} and {@code Quaternion} object pair per orientation. The bulk operations
+ * run as simple loops over the columns, which the JIT is able to vectorize.
+ * </p>
+ * <p>
+ * Products are not normalized automatically. Call {@link #normalize()} afterwards to obtain the
+ * same values that {@link QuaternionAngle3D#rotate(QuaternionAngle3D)} produces.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class QuaternionBuffer {
+    private final double[] real;
+    private final double[] i;
+    private final double[] j;
+    private final double[] k;
+
+    /**
+     * Constructs a buffer holding {@code size} identity quaternions.
+     *
+     * @param size The number of quaternions in the buffer.
+     */
+    public QuaternionBuffer(int size) {
+        real = new double[size];
+        i = new double[size];
+        j = new double[size];
+        k = new double[size];
+        Arrays.fill(real, 1.0);
+    }
+
+    /**
+     * Returns the number of quaternions in the buffer.
+     *
+     * @return The size of the buffer.
+     */
+    public int size() {
+        return real.length;
+    }
+
+    /**
+     * @param index The position in the buffer.
+     * @return The real component at {@code index}.
+     */
+    public double real(int index) {
+        return real[index];
+    }
+
+    /**
+     * @param index The position in the buffer.
+     * @return The i component at {@code index}.
+     */
+    public double i(int index) {
+        return i[index];
+    }
+
+    /**
+     * @param index The position in the buffer.
+     * @return The j component at {@code index}.
+     */
+    public double j(int index) {
+        return j[index];
+    }
+
+    /**
+     * @param index The position in the buffer.
+     * @return The k component at {@code index}.
+     */
+    public double k(int index) {
+        return k[index];
+    }
+
+    /**
+     * Overwrites the quaternion at the given position.
+     *
+     * @param index The position in the buffer.
+     * @param real The real component.
+     * @param i The i component.
+     * @param j The j component.
+     * @param k The k component.
+     */
+    public void set(int index, double real, double i, double j, double k) {
+        this.real[index] = real;
+        this.i[index] = i;
+        this.j[index] = j;
+        this.k[index] = k;
+    }
+
+    /**
+     * Overwrites the quaternion at the given position.
+     *
+     * @param index The position in the buffer.
+     * @param value The quaternion to store.
+     */
+    public void set(int index, Quaternion value) {
+        set(index, value.real(), value.i(), value.j(), value.k());
+    }
+
+    /**
+     * Stores the quaternion of an angle at the given position.
+     *
+     * @param index The position in the buffer.
+     * @param angle The angle to store.
+     */
+    public void set(int index, QuaternionAngle3D angle) {
+        set(index, angle.value);
+    }
+
+    /**
+     * Returns the angle stored at the given position.
+     *
+     * @param index The position in the buffer.
+     * @return A new {@code QuaternionAngle3D} for the stored quaternion.
+     */
+    public QuaternionAngle3D get(int index) {
+        return new QuaternionAngle3D(new Quaternion(real[index], i[index], j[index], k[index]));
+    }
+
+    /**
+     * Copies the quaternion at the given position into {@code dest} without allocating.
+     *
+     * @param index The position in the buffer.
+     * @param dest The quaternion to overwrite.
+     * @return {@code dest}
+     */
+    public MutableQuaternion get(int index, MutableQuaternion dest) {
+        return dest.set(real[index], i[index], j[index], k[index]);
+    }
+
+    /**
+     * Stores the element-wise products {@code left[n] * right[n]} in this buffer.
+     * Either argument may be this buffer.
+     *
+     * @param left The left factors.
+     * @param right The right factors.
+     * @return This buffer.
+     * @throws IllegalArgumentException If the buffers differ in size.
+     */
+    public QuaternionBuffer mult(QuaternionBuffer left, QuaternionBuffer right) {
+        checkSize(left);
+        checkSize(right);
+        for (int n = 0; n < real.length; n++) {
+            double lr = left.real[n], li = left.i[n], lj = left.j[n], lk = left.k[n];
+            double rr = right.real[n], ri = right.i[n], rj = right.j[n], rk = right.k[n];
+            real[n] = lr * rr - li * ri - lj * rj - lk * rk;
+            i[n] = lr * ri + li * rr + lj * rk - lk * rj;
+            j[n] = lr * rj + lj * rr + lk * ri - li * rk;
+            k[n] = lr * rk + lk * rr + li * rj - lj * ri;
+        }
+        return this;
+    }
+
+    /**
+     * Stores the products {@code left * right[n]} in this buffer.
+     * The argument may be this buffer.
+     *
+     * @param left The left factor applied to every element.
+     * @param right The right factors.
+     * @return This buffer.
+     * @throws IllegalArgumentException If the buffers differ in size.
+     */
+    public QuaternionBuffer mult(Quaternion left, QuaternionBuffer right) {
+        checkSize(right);
+        double lr = left.real(), li = left.i(), lj = left.j(), lk = left.k();
+        for (int n = 0; n < real.length; n++) {
+            double rr = right.real[n], ri = right.i[n], rj = right.j[n], rk = right.k[n];
+            real[n] = lr * rr - li * ri - lj * rj - lk * rk;
+            i[n] = lr * ri + li * rr + lj * rk - lk * rj;
+            j[n] = lr * rj + lj * rr + lk * ri - li * rk;
+            k[n] = lr * rk + lk * rr + li * rj - lj * ri;
+        }
+        return this;
+    }
+
+    /**
+     * Stores the products {@code left[n] * right} in this buffer.
+     * The argument may be this buffer.
+     *
+     * @param left The left factors.
+     * @param right The right factor applied to every element.
+     * @return This buffer.
+     * @throws IllegalArgumentException If the buffers differ in size.
+     */
+    public QuaternionBuffer mult(QuaternionBuffer left, Quaternion right) {
+        checkSize(left);
+        double rr = right.real(), ri = right.i(), rj = right.j(), rk = right.k();
+        for (int n = 0; n < real.length; n++) {
+            double lr = left.real[n], li = left.i[n], lj = left.j[n], lk = left.k[n];
+            real[n] = lr * rr - li * ri - lj * rj - lk * rk;
+            i[n] = lr * ri + li * rr + lj * rk - lk * rj;
+            j[n] = lr * rj + lj * rr + lk * ri - li * rk;
+            k[n] = lr * rk + lk * rr + li * rj - lj * ri;
+        }
+        return this;
+    }
+
+    /**
+     * Normalizes every quaternion to unit length with a non-negative real part,
+     * following the same rules as {@link Quaternion#normalize()}.
+     *
+     * @return This buffer.
+     */
+    public QuaternionBuffer normalize() {
+        for (int n = 0; n < real.length; n++) {
+            double r = real[n];
+            double mag = Math.sqrt(r * r + i[n] * i[n] + j[n] * j[n] + k[n] * k[n]);
+            if (mag == 0) {
+                set(n, 1.0, 0.0, 0.0, 0.0);
+                continue;
+            }
+            double scale = (r >= 0 ? 1 : -1) / mag;
+            real[n] = r * scale;
+            i[n] *= scale;
+            j[n] *= scale;
+            k[n] *= scale;
+        }
+        return this;
+    }
+
+    /**
+     * Replaces every quaternion by its conjugate.
+     *
+     * @return This buffer.
+     */
+    public QuaternionBuffer conjugate() {
+        for (int n = 0; n < real.length; n++) {
+            i[n] = -i[n];
+            j[n] = -j[n];
+            k[n] = -k[n];
+        }
+        return this;
+    }
+
+    /**
+     * Negates every quaternion with a negative real part, so that each element has the
+     * unique representation chosen by the {@code QuaternionAngle3D} constructor.
+     *
+     * @return This buffer.
+     */
+    public QuaternionBuffer canonicalize() {
+        for (int n = 0; n < real.length; n++) {
+            double sign = real[n] >= 0 ? 1 : -1;
+            real[n] *= sign;
+            i[n] *= sign;
+            j[n] *= sign;
+            k[n] *= sign;
+        }
+        return this;
+    }
+
+    /**
+     * Computes the element-wise dot products of this buffer with another.
+     *
+     * @param other The other buffer.
+     * @param dest The array receiving the dot products. Must hold at least {@link #size()} values.
+     * @return {@code dest}
+     * @throws IllegalArgumentException If the buffers differ in size.
+     */
+    public double[] dot(QuaternionBuffer other, double[] dest) {
+        checkSize(other);
+        for (int n = 0; n < real.length; n++) {
+            dest[n] = real[n] * other.real[n] + i[n] * other.i[n] + j[n] * other.j[n] + k[n] * other.k[n];
+        }
+        return dest;
+    }
+
+    /**
+     * Computes the pitch, yaw and roll of every quaternion in the buffer, as
+     * {@link QuaternionAngle3D#getAttitude(AviationMapping)} would, without allocating per element.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @param pitch The array receiving the pitch angles. Must hold at least {@link #size()} values.
+     * @param yaw The array receiving the yaw angles. Must hold at least {@link #size()} values.
+     * @param roll The array receiving the roll angles. Must hold at least {@link #size()} values.
+     */
+    public void getAttitudes(AviationMapping mapping, double[] pitch, double[] yaw, double[] roll) {
+        Attitude.of(this, mapping, pitch, yaw, roll);
+    }
+
+    private void checkSize(QuaternionBuffer other) {
+        if (other.real.length != real.length) {
+            throw new IllegalArgumentException("Buffer sizes differ: " + real.length + " and " + other.real.length);
+        }
+    }
+
+    /**
+     * Returns a string representation of the buffer.
+     *
+     * @return A string giving the size of the buffer.
+     */
+    @Override
+    public String toString() {
+        return "QuaternionBuffer: " + real.length;
+    }
+}
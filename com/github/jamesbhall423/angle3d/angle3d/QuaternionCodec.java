@@ -0,0 +1,231 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+/**
+ * Packs unit quaternions into 32, 48 or 64 bits with the "smallest three" encoding.
+ * <p>
+ * Since q and -q give the same rotation, the quaternion is negated when needed so that its largest component,
+ * by magnitude, is positive. The index of that component takes 2 bits, and the other three components, which lie
+ * in [-1/sqrt(2), 1/sqrt(2)], are quantized uniformly to the remaining bits. The decoder restores the largest
+ * component as sqrt(1 - a^2 - b^2 - c^2) and normalizes.
+ * </p>
+ * <p>
+ * With b bits per component the quantization step is sqrt(2) / (2^b - 1), so each stored component is within half
+ * a step of the original. The restored component then moves by at most 1.5 steps, because it is at least 1/2,
+ * and the three others sum to at most 1.5 in magnitude. The quaternion therefore moves by at most sqrt(3) steps,
+ * and the rotation by twice that. {@link #maxAngleError()} rounds this bound up to 3.5 steps. Random sweeps
+ * reach 3.42 steps. Buffers are read and written with relative operations and honour the buffer's byte order.
+ * </p>
+ *
+ * @author James Hall
+ */
+public enum QuaternionCodec {
+    /**
+     * 4 bytes: 10 bits per component, with an angle error below 4.9e-3 radians (0.28 degrees).
+     */
+    BITS_32(10, 4),
+    /**
+     * 6 bytes: 15 bits per component, with an angle error below 1.6e-4 radians.
+     */
+    BITS_48(15, 6),
+    /**
+     * 8 bytes: 20 bits per component, with an angle error below 4.8e-6 radians.
+     */
+    BITS_64(20, 8);
+
+    private final int componentBits;
+    private final int bytes;
+    private final double maxAngleError;
+    private final long mask;
+    private final double scale;
+
+    QuaternionCodec(int componentBits, int bytes) {
+        this.componentBits = componentBits;
+        this.bytes = bytes;
+        mask = (1L << componentBits) - 1;
+        // Maps [-1/sqrt(2), 1/sqrt(2)] onto [0, 2^b - 1]
+        scale = mask / Math.sqrt(2);
+        maxAngleError = 3.5 / scale;
+    }
+
+    /**
+     * @return The number of bytes per encoded orientation.
+     */
+    public int bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The number of bits stored for each of the three smallest components.
+     */
+    public int componentBits() {
+        return componentBits;
+    }
+
+    /**
+     * Returns an upper bound, in radians, on the rotation angle between an orientation and its decoded value.
+     *
+     * @return The largest angle error.
+     */
+    public double maxAngleError() {
+        return maxAngleError;
+    }
+
+    /**
+     * Packs a quaternion into the low {@code 8 * bytes()} bits of a long. The quaternion should be normalized.
+     *
+     * @param real The real component.
+     * @param i The i component.
+     * @param j The j component.
+     * @param k The k component.
+     * @return The packed bits.
+     */
+    public long pack(double real, double i, double j, double k) {
+        double ar = Math.abs(real), ai = Math.abs(i), aj = Math.abs(j), ak = Math.abs(k);
+        int largest = 0;
+        double largestValue = ar;
+        if (ai > largestValue) {
+            largest = 1;
+            largestValue = ai;
+        }
+        if (aj > largestValue) {
+            largest = 2;
+            largestValue = aj;
+        }
+        if (ak > largestValue) largest = 3;
+        double sign;
+        switch (largest) {
+            case 0: sign = real < 0 ? -1 : 1; break;
+            case 1: sign = i < 0 ? -1 : 1; break;
+            case 2: sign = j < 0 ? -1 : 1; break;
+            default: sign = k < 0 ? -1 : 1;
+        }
+        long bits = largest;
+        if (largest != 0) bits = (bits << componentBits) | quantize(sign * real);
+        if (largest != 1) bits = (bits << componentBits) | quantize(sign * i);
+        if (largest != 2) bits = (bits << componentBits) | quantize(sign * j);
+        if (largest != 3) bits = (bits << componentBits) | quantize(sign * k);
+        return bits;
+    }
+
+    /**
+     * Unpacks bits produced by {@link #pack(double, double, double, double)} into a unit quaternion.
+     *
+     * @param bits The packed bits.
+     * @param dest The quaternion receiving the value.
+     * @return {@code dest}, with a non-negative real component.
+     */
+    public MutableQuaternion unpack(long bits, MutableQuaternion dest) {
+        int largest = (int) (bits >>> (3 * componentBits)) & 3;
+        double c = dequantize(bits & mask);
+        double b = dequantize((bits >>> componentBits) & mask);
+        double a = dequantize((bits >>> (2 * componentBits)) & mask);
+        double restored = Math.sqrt(Math.max(0, 1 - a * a - b * b - c * c));
+        switch (largest) {
+            case 0: dest.set(restored, a, b, c); break;
+            case 1: dest.set(a, restored, b, c); break;
+            case 2: dest.set(a, b, restored, c); break;
+            default: dest.set(a, b, c, restored);
+        }
+        return dest.normalize();
+    }
+
+    // Enum constants are initialized before other static fields, so the constructor cannot use this
+    private static final double SQRT_HALF = Math.sqrt(0.5);
+
+    private long quantize(double component) {
+        long value = Math.round((component + SQRT_HALF) * scale);
+        return Math.max(0, Math.min(mask, value));
+    }
+
+    private double dequantize(long value) {
+        return value / scale - SQRT_HALF;
+    }
+
+    /**
+     * Writes an orientation at the buffer's position, advancing it by {@link #bytes()}.
+     *
+     * @param angle The orientation.
+     * @param dest The buffer to write to.
+     * @return {@code dest}
+     */
+    public ByteBuffer encode(QuaternionAngle3D angle, ByteBuffer dest) {
+        Quaternion q = angle.value;
+        write(pack(q.real(), q.i(), q.j(), q.k()), dest);
+        return dest;
+    }
+
+    /**
+     * Reads an orientation at the buffer's position, advancing it by {@link #bytes()}.
+     *
+     * @param src The buffer to read from.
+     * @return The decoded orientation.
+     */
+    public QuaternionAngle3D decode(ByteBuffer src) {
+        return unpack(read(src), new MutableQuaternion()).toAngle();
+    }
+
+    /**
+     * Writes every quaternion of a buffer, advancing the position by {@code src.size() * bytes()}.
+     *
+     * @param src The quaternions, which should be normalized.
+     * @param dest The buffer to write to.
+     * @return {@code dest}
+     */
+    public ByteBuffer encode(QuaternionBuffer src, ByteBuffer dest) {
+        for (int n = 0; n < src.size(); n++) write(pack(src.real(n), src.i(n), src.j(n), src.k(n)), dest);
+        return dest;
+    }
+
+    /**
+     * Reads {@code dest.size()} orientations into a buffer, advancing the position by {@code dest.size() * bytes()}.
+     *
+     * @param src The buffer to read from.
+     * @param dest The buffer receiving the unit quaternions.
+     * @return {@code dest}
+     */
+    public QuaternionBuffer decode(ByteBuffer src, QuaternionBuffer dest) {
+        MutableQuaternion q = new MutableQuaternion();
+        for (int n = 0; n < dest.size(); n++) {
+            unpack(read(src), q);
+            dest.set(n, q.real(), q.i(), q.j(), q.k());
+        }
+        return dest;
+    }
+
+    private void write(long bits, ByteBuffer dest) {
+        switch (bytes) {
+            case 4:
+                dest.putInt((int) bits);
+                break;
+            case 6:
+                if (dest.order() == ByteOrder.BIG_ENDIAN) {
+                    dest.putShort((short) (bits >>> 32));
+                    dest.putInt((int) bits);
+                } else {
+                    dest.putInt((int) bits);
+                    dest.putShort((short) (bits >>> 32));
+                }
+                break;
+            default:
+                dest.putLong(bits);
+        }
+    }
+
+    private long read(ByteBuffer src) {
+        switch (bytes) {
+            case 4:
+                return src.getInt() & 0xFFFFFFFFL;
+            case 6:
+                if (src.order() == ByteOrder.BIG_ENDIAN) {
+                    long high = src.getShort() & 0xFFFFL;
+                    return (high << 32) | (src.getInt() & 0xFFFFFFFFL);
+                } else {
+                    long low = src.getInt() & 0xFFFFFFFFL;
+                    return ((src.getShort() & 0xFFFFL) << 32) | low;
+                }
+            default:
+                return src.getLong();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * Interpolation between quaternion-based orientations.
+ * <p>
+ * {@link #slerp} follows the great arc between two orientations at constant angular velocity.
+ * {@link #nlerp} interpolates the components linearly and normalizes, which avoids trigonometry
+ * but runs ahead of slerp near the ends of the arc and behind it in the middle; {@link #nlerpError(double)}
+ * bounds the difference. {@link #squad} joins consecutive arcs with a continuous angular velocity,
+ * using control points from {@link #squadControl}. All methods take the shortest path between orientations.
+ * </p>
+ * <p>
+ * To resample a sequence of keyframes many times, use {@link QuaternionTrack}, which precomputes the
+ * constants of each segment.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class QuaternionInterpolator {
+    /**
+     * The nlerp error tolerance, in radians, below which {@link #slerp} switches to nlerp.
+     * At this tolerance the two agree to within rounding.
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-15;
+
+    // The quaternion dot product above which the arc is short enough for nlerp
+    private static final double NLERP_DOT = Math.cos(nlerpAngle(DEFAULT_TOLERANCE) / 2);
+
+    private QuaternionInterpolator() {
+    }
+
+    /**
+     * Spherical linear interpolation between two orientations.
+     *
+     * @param from The orientation at {@code t = 0}.
+     * @param to The orientation at {@code t = 1}.
+     * @param t The interpolation parameter, usually between 0 and 1.
+     * @return The interpolated orientation.
+     */
+    public static QuaternionAngle3D slerp(QuaternionAngle3D from, QuaternionAngle3D to, double t) {
+        MutableQuaternion result = new MutableQuaternion();
+        slerp(new MutableQuaternion(from.value), new MutableQuaternion(to.value), t, true, result);
+        return result.toAngle();
+    }
+
+    /**
+     * Normalized linear interpolation between two orientations.
+     * The result lies on the same arc as {@link #slerp}, but is not spaced evenly in {@code t}.
+     *
+     * @param from The orientation at {@code t = 0}.
+     * @param to The orientation at {@code t = 1}.
+     * @param t The interpolation parameter, between 0 and 1.
+     * @return The interpolated orientation.
+     */
+    public static QuaternionAngle3D nlerp(QuaternionAngle3D from, QuaternionAngle3D to, double t) {
+        MutableQuaternion result = new MutableQuaternion();
+        MutableQuaternion a = new MutableQuaternion(from.value);
+        MutableQuaternion b = new MutableQuaternion(to.value);
+        nlerp(a, b, t, a.dot(b) < 0 ? -1 : 1, result);
+        return result.toAngle();
+    }
+
+    /**
+     * Returns a bound on the angle, in radians, between {@link #nlerp} and {@link #slerp} over an arc.
+     * <p>
+     * For an arc of rotation angle {@code angle}, the largest error is {@code angle^3 / (144 sqrt(3))}
+     * to leading order, reached near {@code t = 1/2 - 1/sqrt(12)} and {@code t = 1/2 + 1/sqrt(12)}.
+     * The leading term is multiplied by {@code 1 + angle^2 / 64}, which keeps it an upper bound for every
+     * arc up to pi radians; there it exceeds the true error by about 2%. A 1 degree arc gives about 7e-9 radians.
+     * </p>
+     *
+     * @param angle The rotation angle between the two orientations, in radians.
+     * @return The maximum error of nlerp, in radians.
+     */
+    public static double nlerpError(double angle) {
+        return angle * angle * angle / (144 * Math.sqrt(3)) * (1 + angle * angle / 64);
+    }
+
+    /**
+     * Returns an arc, in radians, over which nlerp stays within a given error of slerp.
+     * The arc is at most the largest such arc, and within a fraction of a percent of it for small errors.
+     *
+     * @param maxError The allowed error, in radians.
+     * @return The rotation angle of the arc.
+     */
+    public static double nlerpAngle(double maxError) {
+        double leading = Math.cbrt(144 * Math.sqrt(3) * maxError);
+        return leading / Math.cbrt(1 + leading * leading / 64);
+    }
+
+    /**
+     * Returns the SQUAD control point for a keyframe, given its neighbours.
+     * For the first and last keyframes, pass the keyframe itself as the missing neighbour.
+     *
+     * @param previous The keyframe before {@code current}.
+     * @param current The keyframe to compute the control point for.
+     * @param next The keyframe after {@code current}.
+     * @return The control point.
+     */
+    public static QuaternionAngle3D squadControl(QuaternionAngle3D previous, QuaternionAngle3D current, QuaternionAngle3D next) {
+        MutableQuaternion result = new MutableQuaternion();
+        squadControl(new MutableQuaternion(previous.value), new MutableQuaternion(current.value), new MutableQuaternion(next.value), result);
+        return result.toAngle();
+    }
+
+    /**
+     * Spherical quadrangle interpolation between two keyframes, which have the control points
+     * {@code fromControl} and {@code toControl} given by {@link #squadControl}.
+     *
+     * @param from The orientation at {@code t = 0}.
+     * @param to The orientation at {@code t = 1}.
+     * @param fromControl The control point of {@code from}.
+     * @param toControl The control point of {@code to}.
+     * @param t The interpolation parameter, between 0 and 1.
+     * @return The interpolated orientation.
+     */
+    public static QuaternionAngle3D squad(QuaternionAngle3D from, QuaternionAngle3D to, QuaternionAngle3D fromControl, QuaternionAngle3D toControl, double t) {
+        MutableQuaternion a = new MutableQuaternion(from.value);
+        MutableQuaternion b = new MutableQuaternion(to.value);
+        MutableQuaternion controlA = new MutableQuaternion(fromControl.value);
+        MutableQuaternion controlB = new MutableQuaternion(toControl.value);
+        // Keep all four points in the hemisphere of the first
+        if (a.dot(b) < 0) b.scale(-1);
+        if (a.dot(controlA) < 0) controlA.scale(-1);
+        if (b.dot(controlB) < 0) controlB.scale(-1);
+        MutableQuaternion outer = new MutableQuaternion();
+        MutableQuaternion inner = new MutableQuaternion();
+        slerp(a, b, t, false, outer);
+        slerp(controlA, controlB, t, false, inner);
+        MutableQuaternion result = new MutableQuaternion();
+        slerp(outer, inner, 2 * t * (1 - t), false, result);
+        return result.toAngle();
+    }
+
+    /**
+     * Stores the slerp of two unit quaternions in {@code dest}. If {@code shortest} is set, {@code to}
+     * is negated when needed so that the shorter arc is used. Arcs short enough for nlerp to match
+     * to within rounding are interpolated with nlerp.
+     */
+    static void slerp(MutableQuaternion from, MutableQuaternion to, double t, boolean shortest, MutableQuaternion dest) {
+        double dot = from.dot(to);
+        double sign = 1;
+        if (shortest && dot < 0) {
+            sign = -1;
+            dot = -dot;
+        }
+        if (dot > NLERP_DOT) {
+            nlerp(from, to, t, sign, dest);
+            return;
+        }
+        double halfAngle = Math.acos(dot);
+        double invSin = 1 / Math.sin(halfAngle);
+        interpolate(from, to, Math.sin((1 - t) * halfAngle) * invSin, sign * Math.sin(t * halfAngle) * invSin, dest);
+    }
+
+    /**
+     * Stores the normalized interpolation of {@code from} and {@code sign * to} in {@code dest}.
+     * Unlike {@link MutableQuaternion#normalize()}, the sign is kept, so the result stays in the hemisphere of the inputs.
+     */
+    static void nlerp(MutableQuaternion from, MutableQuaternion to, double t, double sign, MutableQuaternion dest) {
+        interpolate(from, to, 1 - t, sign * t, dest);
+        dest.scale(1 / dest.magnitude());
+    }
+
+    /**
+     * Stores {@code fromWeight * from + toWeight * to} in {@code dest}.
+     */
+    static void interpolate(MutableQuaternion from, MutableQuaternion to, double fromWeight, double toWeight, MutableQuaternion dest) {
+        dest.set(fromWeight * from.real() + toWeight * to.real(),
+                 fromWeight * from.i() + toWeight * to.i(),
+                 fromWeight * from.j() + toWeight * to.j(),
+                 fromWeight * from.k() + toWeight * to.k());
+    }
+
+    /**
+     * Stores current * exp(-(log(current^-1 * next) + log(current^-1 * previous)) / 4) in {@code dest}.
+     * The neighbours are taken in the hemisphere of {@code current}.
+     */
+    static void squadControl(MutableQuaternion previous, MutableQuaternion current, MutableQuaternion next, MutableQuaternion dest) {
+        MutableQuaternion inverse = new MutableQuaternion().set(current).conjugate();
+        MutableQuaternion toNext = new MutableQuaternion().setProduct(inverse, next);
+        MutableQuaternion toPrevious = new MutableQuaternion().setProduct(inverse, previous);
+        if (toNext.real() < 0) toNext.scale(-1);
+        if (toPrevious.real() < 0) toPrevious.scale(-1);
+        log(toNext);
+        log(toPrevious);
+        dest.set(0,
+                 -0.25 * (toNext.i() + toPrevious.i()),
+                 -0.25 * (toNext.j() + toPrevious.j()),
+                 -0.25 * (toNext.k() + toPrevious.k()));
+        exp(dest);
+        dest.preMult(current);
+    }
+
+    /**
+     * Replaces a unit quaternion (cos(a), sin(a) u) with its logarithm (0, a u).
+     */
+    static void log(MutableQuaternion q) {
+        double scale = 0.5 * QuaternionSystem.logScale(q.real(), q.i() * q.i() + q.j() * q.j() + q.k() * q.k());
+        q.set(0, scale * q.i(), scale * q.j(), scale * q.k());
+    }
+
+    /**
+     * Replaces a pure quaternion (0, a u) with its exponential (cos(a), sin(a) u).
+     */
+    static void exp(MutableQuaternion q) {
+        QuaternionSystem.exp(2 * q.i(), 2 * q.j(), 2 * q.k(), q);
+    }
+}
@@ -1,4 +1,5 @@
 package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.AviationMapping;
 import com.github.jamesbhall423.angle3d.position3d.DimensionMapping;
 import com.github.jamesbhall423.angle3d.position3d.SpacialParity3D;
 import com.github.jamesbhall423.angle3d.position3d.Vector3D;
@@ -7,7 +8,8 @@ import com.github.jamesbhall423.angle3d.position3d.Vector3D;
  * This system provides methods for creating quaternion rotations around different planes
  * and constructing rotations from axis-angle representations.
  * <p>
- * This class follows a singleton pattern, with {@code INSTANCE} as the only instance.
+ * {@code INSTANCE} normalizes every composition. Systems that defer normalization are obtained from
+ * {@link #withRenormalization(RenormalizationPolicy)}, and the angles they create keep their system.
  * </p>
  *
  * @author James Hall
@@ -15,16 +17,58 @@ import com.github.jamesbhall423.angle3d.position3d.Vector3D;
 public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
 
     /**
-     * The singleton instance of {@code QuaternionSystem}.
+     * The default instance of {@code QuaternionSystem}, which normalizes every composition.
      */
-    public static final QuaternionSystem INSTANCE = new QuaternionSystem();
+    public static final QuaternionSystem INSTANCE = new QuaternionSystem(RenormalizationPolicy.ALWAYS, TrigProvider.STRICT);
+
+    private final RenormalizationPolicy policy;
+
+    /**
+     * Private constructor, used by {@code INSTANCE}, {@link #withRenormalization(RenormalizationPolicy)}
+     * and {@link #withTrig(TrigProvider)}. Initializes the system with a right-handed coordinate system.
+     */
+    private QuaternionSystem(RenormalizationPolicy policy, TrigProvider trig) {
+        super(SpacialParity3D.RightHandXYZ, trig);
+        this.policy = policy;
+    }
+
+    /**
+     * Returns a system whose angles normalize their compositions as decided by the given policy.
+     *
+     * @param policy The renormalization policy.
+     * @return {@code INSTANCE} for {@link RenormalizationPolicy#ALWAYS}, otherwise a new system.
+     */
+    public static QuaternionSystem withRenormalization(RenormalizationPolicy policy) {
+        if (policy.isAlways()) return INSTANCE;
+        return new QuaternionSystem(policy, TrigProvider.STRICT);
+    }
 
     /**
-     * Private constructor to enforce singleton pattern.
-     * Initializes the system with a right-handed coordinate system.
+     * Returns a system like this one that constructs angles with the given sine and cosine.
+     * Angles keep their system, so rotations derived from them, such as {@link QuaternionAngle3D#scale(double)}
+     * and the substeps of a {@code RotatableBody}, use the same provider.
+     *
+     * @param trig The trigonometric provider, for example {@link TrigProvider#FAST}.
+     * @return A system with this system's renormalization policy and the given provider.
      */
-    private QuaternionSystem() {
-        super(SpacialParity3D.RightHandXYZ);
+    public QuaternionSystem withTrig(TrigProvider trig) {
+        if (trig == trig()) return this;
+        if (trig == TrigProvider.STRICT && policy.isAlways()) return INSTANCE;
+        return new QuaternionSystem(policy, trig);
+    }
+
+    /**
+     * @return The policy deciding when compositions of this system's angles are normalized.
+     */
+    public RenormalizationPolicy getRenormalizationPolicy() {
+        return policy;
+    }
+
+    /**
+     * Creates an angle of this system from a unit quaternion.
+     */
+    QuaternionAngle3D angle(Quaternion value) {
+        return new QuaternionAngle3D(value.real() >= 0 ? value : value.scale(-1), this, 0);
     }
 
     /**
@@ -35,7 +79,7 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleXY(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), 0, 0, Math.sin(magnitude/2)));
+        return planeRotation(magnitude, 2, 1);
     }
 
     /**
@@ -46,7 +90,7 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleXZ(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), 0, -Math.sin(magnitude/2), 0));
+        return planeRotation(magnitude, 1, -1);
     }
 
     /**
@@ -57,7 +101,7 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleYZ(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), Math.sin(magnitude/2), 0, 0));
+        return planeRotation(magnitude, 0, 1);
     }
 
     /**
@@ -68,7 +112,7 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleYX(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), 0, 0, -Math.sin(magnitude/2)));
+        return planeRotation(magnitude, 2, -1);
     }
 
     /**
@@ -79,7 +123,7 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleZX(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), 0, Math.sin(magnitude/2), 0));
+        return planeRotation(magnitude, 1, 1);
     }
 
     /**
@@ -90,60 +134,211 @@ public class QuaternionSystem extends Angle3DSystem<QuaternionAngle3D> {
      */
     @Override
     public QuaternionAngle3D angleZY(double magnitude) {
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude/2), -Math.sin(magnitude/2), 0, 0));
+        return planeRotation(magnitude, 0, -1);
+    }
+
+    /**
+     * Creates the rotation (cos(a/2), sign sin(a/2) e) about the unit vector e of the given axis.
+     */
+    private QuaternionAngle3D planeRotation(double magnitude, int axis, double sign) {
+        double[] sinCos = new double[2];
+        trig().sinCos(magnitude / 2, sinCos, 0);
+        double s = sign * sinCos[0];
+        return angle(new Quaternion(sinCos[1], axis == 0 ? s : 0, axis == 1 ? s : 0, axis == 2 ? s : 0));
     }
 
     /**
      * Creates a quaternion representing a rotation from an axis-angle representation.
      * The magnitude of the vector is the magnitude of the resulting rotation.
+     * This is the same as {@link #exp(Vector3D)}.
      *
      * @param axis The axis of rotation as a {@code Vector3D}.
      * @return A {@code QuaternionAngle3D} representing the rotation.
      */
     @Override
     public QuaternionAngle3D fromAxis(Vector3D axis) {
-        double magnitude = axis.magnitude();
-        if (magnitude == 0.0) return angleXY(0);
-        Vector3D scaledAxis = axis.scale(Math.sin(magnitude / 2) / magnitude);
-        return new QuaternionAngle3D(new Quaternion(Math.cos(magnitude / 2),
-                                                    scaledAxis.x(),
-                                                    scaledAxis.y(),
-                                                    scaledAxis.z()));
+        return exp(axis);
     }
 
     /**
-     * Creates a quaternion rotation between two coordinate axes based on the specified magnitude.
-     * The magnitude is adjusted according to the signs of the axis mappings to calculate the true direction of the rotation angle.
+     * The exponential map, from a rotation vector (axis scaled by angle) to the rotation it describes.
+     * Below an angle of 0.05 radians the sine and cosine are evaluated by truncated Taylor series,
+     * which are exact to within rounding there and need no square root or trigonometry.
      *
-     * @param axisFrom The initial axis mapping.
-     * @param axisTo The target axis mapping.
-     * @param magnitude The rotation angle in radians.
+     * @param rotation The rotation vector.
+     * @return A {@code QuaternionAngle3D} representing the rotation.
+     */
+    public QuaternionAngle3D exp(Vector3D rotation) {
+        MutableQuaternion result = new MutableQuaternion();
+        exp(rotation.x(), rotation.y(), rotation.z(), trig(), result);
+        return angle(result.toQuaternion());
+    }
+
+    /**
+     * The logarithm map, from a rotation to its rotation vector (axis scaled by angle).
+     * This is the inverse of {@link #exp(Vector3D)}, and gives the same vector as {@link QuaternionAngle3D#axis()}.
+     *
+     * @param angle The rotation.
+     * @return The rotation vector, with a magnitude of at most pi.
+     */
+    public Vector3D log(QuaternionAngle3D angle) {
+        return angle.axis();
+    }
+
+    // Squared angle below which exp uses its series: the first omitted terms are below 1e-17
+    private static final double EXP_SERIES_LIMIT = 0.0025;
+    // Squared ratio |v| / real below which log uses its series: the first omitted term is below 1e-17
+    private static final double LOG_SERIES_LIMIT = 1e-4;
+
+    /**
+     * Stores the unit quaternion (cos(a/2), sin(a/2) v/a) of the rotation vector v = (x, y, z), with a = |v|, in {@code dest}.
+     */
+    static void exp(double x, double y, double z, MutableQuaternion dest) {
+        exp(x, y, z, TrigProvider.STRICT, dest);
+    }
+
+    /**
+     * Stores the unit quaternion of the rotation vector (x, y, z) in {@code dest}, using the given sine and cosine
+     * outside the series range.
+     */
+    static void exp(double x, double y, double z, TrigProvider trig, MutableQuaternion dest) {
+        double sqAngle = x * x + y * y + z * z;
+        double real;
+        double scale;
+        if (sqAngle < EXP_SERIES_LIMIT) {
+            // cos(a/2) and sin(a/2)/a to the a^6 term
+            real = 1 - sqAngle / 8 * (1 - sqAngle / 48 * (1 - sqAngle / 120));
+            scale = 0.5 * (1 - sqAngle / 24 * (1 - sqAngle / 80 * (1 - sqAngle / 168)));
+        } else {
+            double angle = Math.sqrt(sqAngle);
+            double[] sinCos = new double[2];
+            trig.sinCos(angle / 2, sinCos, 0);
+            real = sinCos[1];
+            scale = sinCos[0] / angle;
+        }
+        dest.set(real, scale * x, scale * y, scale * z);
+    }
+
+    /**
+     * Returns the factor that turns the vector part v of a quaternion (real, v) into its rotation vector,
+     * which is 2 atan2(|v|, real) / |v|. The quaternion does not need to be normalized.
+     *
+     * @param real The real component.
+     * @param sqVector The squared magnitude of the vector part.
+     * @return The factor; the rotation angle is the factor times |v|.
+     */
+    static double logScale(double real, double sqVector) {
+        if (real > 0 && sqVector < LOG_SERIES_LIMIT * real * real) {
+            // 2 atan(x) / (x real) with x = |v| / real, to the x^6 term
+            double sqRatio = sqVector / (real * real);
+            return 2 / real * (1 - sqRatio * (1.0 / 3 - sqRatio * (1.0 / 5 - sqRatio / 7)));
+        }
+        double vectorMagnitude = Math.sqrt(sqVector);
+        if (vectorMagnitude == 0) return 0;
+        return 2 * Math.atan2(vectorMagnitude, real) / vectorMagnitude;
+    }
+
+    /**
+     * Creates a quaternion from aviation angles in one step. Each of the three elementary rotations
+     * has a single non-zero vector component, so the product is expanded directly from the
+     * half-angle sines and cosines, without intermediate angles or normalization.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @param pitch The pitch angle in radians.
+     * @param yaw The yaw angle in radians.
+     * @param roll The roll angle in radians.
      * @return A {@code QuaternionAngle3D} representing the rotation.
-     * @throws IllegalArgumentException if {@code axisFrom} and {@code axisTo} are the same.
      */
     @Override
-    public QuaternionAngle3D getAngle(DimensionMapping axisFrom, DimensionMapping axisTo, double magnitude) {
-        double trueMagnitude = axisFrom.sign() * axisTo.sign() * magnitude;
-        switch (axisFrom.xyz()) {
-            case X:
-                switch (axisTo.xyz()) {
-                    case Y: return angleXY(trueMagnitude);
-                    case Z: return angleXZ(trueMagnitude);
-                }
-                break;
-            case Y:
-                switch (axisTo.xyz()) {
-                    case X: return angleYX(trueMagnitude);
-                    case Z: return angleYZ(trueMagnitude);
-                }
-                break;
-            case Z:
-                switch (axisTo.xyz()) {
-                    case X: return angleZX(trueMagnitude);
-                    case Y: return angleZY(trueMagnitude);
-                }
-                break;
+    public QuaternionAngle3D fromAviation(AviationMapping mapping, double pitch, double yaw, double roll) {
+        double[] q = new double[4];
+        new AviationRotation(mapping, trig()).compose(pitch, yaw, roll, q);
+        return angle(new Quaternion(q[0], q[1], q[2], q[3]));
+    }
+
+    /**
+     * Converts columns of aviation angles into quaternions, as {@link #fromAviation(AviationMapping, double, double, double)} would.
+     * The axes and signs of the mapping are resolved once for the whole batch.
+     *
+     * @param mapping The aviation mapping to use for interpretation.
+     * @param pitch The pitch angles in radians. Must hold at least {@code dest.size()} values.
+     * @param yaw The yaw angles in radians. Must hold at least {@code dest.size()} values.
+     * @param roll The roll angles in radians. Must hold at least {@code dest.size()} values.
+     * @param dest The buffer receiving the quaternions.
+     * @return {@code dest}
+     */
+    public QuaternionBuffer fromAviation(AviationMapping mapping, double[] pitch, double[] yaw, double[] roll, QuaternionBuffer dest) {
+        AviationRotation rotation = new AviationRotation(mapping, trig());
+        double[] q = new double[4];
+        for (int n = 0; n < dest.size(); n++) {
+            rotation.compose(pitch[n], yaw[n], roll[n], q);
+            dest.set(n, q[0], q[1], q[2], q[3]);
+        }
+        return dest;
+    }
+
+    /**
+     * The axes and signs of the pitch, yaw and roll rotations under one aviation mapping.
+     * The rotation from axis f to axis t has its vector part on the remaining axis,
+     * positive when t follows f cyclically, matching {@link #getAngle(DimensionMapping, DimensionMapping, double)}.
+     */
+    private static final class AviationRotation {
+        final int pitchAxis, yawAxis, rollAxis;
+        final double pitchSign, yawSign, rollSign;
+        final TrigProvider trig;
+        // Scratch space for the sine and cosine of each half angle
+        private final double[] sinCos = new double[2];
+
+        AviationRotation(AviationMapping mapping, TrigProvider trig) {
+            this.trig = trig;
+            pitchAxis = axis(mapping.longitudinal(), mapping.vertical());
+            pitchSign = sign(mapping.longitudinal(), mapping.vertical());
+            yawAxis = axis(mapping.lateral(), mapping.longitudinal());
+            yawSign = sign(mapping.lateral(), mapping.longitudinal());
+            rollAxis = axis(mapping.vertical(), mapping.lateral());
+            rollSign = sign(mapping.vertical(), mapping.lateral());
+        }
+
+        private static int axis(DimensionMapping from, DimensionMapping to) {
+            return 3 - from.xyz().ordinal() - to.xyz().ordinal();
+        }
+
+        private static double sign(DimensionMapping from, DimensionMapping to) {
+            int cyclic = (to.xyz().ordinal() - from.xyz().ordinal() + 3) % 3;
+            return (cyclic == 1 ? 1 : -1) * from.sign() * to.sign();
+        }
+
+        /**
+         * Writes yaw * pitch * roll into q as (real, i, j, k), with a non-negative real component.
+         */
+        void compose(double pitch, double yaw, double roll, double[] q) {
+            trig.sinCos(roll / 2, sinCos, 0);
+            q[0] = sinCos[1];
+            q[1] = 0;
+            q[2] = 0;
+            q[3] = 0;
+            q[1 + rollAxis] = rollSign * sinCos[0];
+            trig.sinCos(pitch / 2, sinCos, 0);
+            preMult(sinCos[1], pitchSign * sinCos[0], pitchAxis, q);
+            trig.sinCos(yaw / 2, sinCos, 0);
+            preMult(sinCos[1], yawSign * sinCos[0], yawAxis, q);
+            if (q[0] < 0) {
+                for (int n = 0; n < 4; n++) q[n] = -q[n];
+            }
+        }
+
+        /**
+         * Replaces q with (c + s e) * q, where e is the unit vector of the given axis.
+         */
+        private static void preMult(double c, double s, int axis, double[] q) {
+            int a = 1 + axis;
+            int b = 1 + (axis + 1) % 3;
+            int d = 1 + (axis + 2) % 3;
+            double real = q[0], va = q[a], vb = q[b], vd = q[d];
+            q[0] = c * real - s * va;
+            q[a] = c * va + s * real;
+            q[b] = c * vb - s * vd;
+            q[d] = c * vd + s * vb;
         }
-        throw new IllegalArgumentException("Axes are the same");
     }
-}
\ No newline at end of file
+}
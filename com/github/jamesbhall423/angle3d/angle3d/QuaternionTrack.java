@@ -0,0 +1,260 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import java.util.Arrays;
+/**
+ * A sequence of keyframe orientations that can be sampled at any time.
+ * <p>
+ * The constants of each segment (arc angle, reciprocal sine and, for SQUAD, control points) are computed
+ * once on construction, so sampling costs two sine evaluations per slerp and no allocation in the batch
+ * methods. Segments whose nlerp error is below the tolerance are interpolated with nlerp instead, which
+ * needs one square root and no trigonometry. Keyframes are stored in the hemisphere of their predecessor,
+ * so each segment follows the shorter arc.
+ * </p>
+ * <p>
+ * Times before the first keyframe give the first orientation and times after the last give the last.
+ * Samples are located by walking forward from the previous segment, falling back to a binary search,
+ * so ascending sample times are cheapest.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class QuaternionTrack {
+    /**
+     * The interpolation used between keyframes.
+     */
+    public enum Interpolation {
+        /** Normalized linear interpolation within each segment. */
+        NLERP,
+        /** Spherical linear interpolation within each segment. */
+        SLERP,
+        /** Spherical quadrangle interpolation, with continuous angular velocity at the keyframes. */
+        SQUAD
+    }
+
+    /**
+     * The default nlerp error tolerance, in radians, the same as {@link QuaternionInterpolator#DEFAULT_TOLERANCE}, so
+     * a slerp track agrees with {@link QuaternionInterpolator#slerp} over the same keyframes.
+     */
+    public static final double DEFAULT_TOLERANCE = QuaternionInterpolator.DEFAULT_TOLERANCE;
+
+    private final double[] times;
+    private final Interpolation interpolation;
+    private final QuaternionBuffer keys;
+    private final QuaternionBuffer controls;
+    // Per segment constants: half the arc angle, its reciprocal sine, the reciprocal duration and whether nlerp suffices
+    private final double[] halfAngle;
+    private final double[] invSin;
+    private final double[] controlHalfAngle;
+    private final double[] controlInvSin;
+    private final double[] invDuration;
+    private final boolean[] useNlerp;
+    private final boolean[] controlUseNlerp;
+    private final double nlerpAngle;
+
+    /**
+     * Constructs a track interpolated with the default tolerance.
+     *
+     * @param times The keyframe times, in strictly increasing order.
+     * @param keyframes The orientation at each time.
+     * @param interpolation The interpolation between keyframes.
+     * @throws IllegalArgumentException If the arrays are empty, differ in length or the times are not increasing.
+     */
+    public QuaternionTrack(double[] times, QuaternionAngle3D[] keyframes, Interpolation interpolation) {
+        this(times, keyframes, interpolation, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Constructs a track.
+     *
+     * @param times The keyframe times, in strictly increasing order.
+     * @param keyframes The orientation at each time.
+     * @param interpolation The interpolation between keyframes.
+     * @param tolerance The error, in radians, below which segments are interpolated with nlerp
+     *                  (see {@link QuaternionInterpolator#nlerpError(double)}).
+     * @throws IllegalArgumentException If the arrays are empty, differ in length or the times are not increasing.
+     */
+    public QuaternionTrack(double[] times, QuaternionAngle3D[] keyframes, Interpolation interpolation, double tolerance) {
+        if (times.length == 0) throw new IllegalArgumentException("No keyframes");
+        if (times.length != keyframes.length) throw new IllegalArgumentException("Times and keyframes differ in length: " + times.length + " " + keyframes.length);
+        for (int n = 1; n < times.length; n++) {
+            if (!(times[n] > times[n - 1])) throw new IllegalArgumentException("Times are not increasing at index " + n);
+        }
+        int size = times.length;
+        int segments = size - 1;
+        this.times = times.clone();
+        this.interpolation = interpolation;
+        this.nlerpAngle = interpolation == Interpolation.NLERP ? Double.POSITIVE_INFINITY : QuaternionInterpolator.nlerpAngle(tolerance);
+        keys = new QuaternionBuffer(size);
+        MutableQuaternion previous = new MutableQuaternion(keyframes[0].value);
+        keys.set(0, keyframes[0]);
+        for (int n = 1; n < size; n++) {
+            MutableQuaternion next = new MutableQuaternion(keyframes[n].value);
+            if (previous.dot(next) < 0) next.scale(-1);
+            keys.set(n, next.real(), next.i(), next.j(), next.k());
+            previous = next;
+        }
+        invDuration = new double[segments];
+        for (int n = 0; n < segments; n++) invDuration[n] = 1 / (times[n + 1] - times[n]);
+        halfAngle = new double[segments];
+        invSin = new double[segments];
+        useNlerp = new boolean[segments];
+        prepare(keys, halfAngle, invSin, useNlerp);
+        if (interpolation == Interpolation.SQUAD) {
+            controls = new QuaternionBuffer(size);
+            MutableQuaternion before = new MutableQuaternion();
+            MutableQuaternion current = new MutableQuaternion();
+            MutableQuaternion after = new MutableQuaternion();
+            MutableQuaternion control = new MutableQuaternion();
+            for (int n = 0; n < size; n++) {
+                keys.get(Math.max(0, n - 1), before);
+                keys.get(n, current);
+                keys.get(Math.min(size - 1, n + 1), after);
+                QuaternionInterpolator.squadControl(before, current, after, control);
+                if (control.dot(current) < 0) control.scale(-1);
+                controls.set(n, control.real(), control.i(), control.j(), control.k());
+            }
+            controlHalfAngle = new double[segments];
+            controlInvSin = new double[segments];
+            controlUseNlerp = new boolean[segments];
+            prepare(controls, controlHalfAngle, controlInvSin, controlUseNlerp);
+        } else {
+            controls = null;
+            controlHalfAngle = null;
+            controlInvSin = null;
+            controlUseNlerp = null;
+        }
+    }
+
+    private void prepare(QuaternionBuffer points, double[] halfAngle, double[] invSin, boolean[] useNlerp) {
+        MutableQuaternion a = new MutableQuaternion();
+        MutableQuaternion b = new MutableQuaternion();
+        for (int n = 0; n < halfAngle.length; n++) {
+            double dot = points.get(n, a).dot(points.get(n + 1, b));
+            halfAngle[n] = Math.acos(Math.max(-1, Math.min(1, dot)));
+            useNlerp[n] = 2 * halfAngle[n] < nlerpAngle;
+            invSin[n] = useNlerp[n] ? 0 : 1 / Math.sin(halfAngle[n]);
+        }
+    }
+
+    /**
+     * Returns the number of keyframes.
+     *
+     * @return The number of keyframes.
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Returns the interpolation used between keyframes.
+     *
+     * @return The interpolation.
+     */
+    public Interpolation interpolation() {
+        return interpolation;
+    }
+
+    /**
+     * Samples the track at a single time.
+     *
+     * @param time The time to sample.
+     * @return The interpolated orientation.
+     */
+    public QuaternionAngle3D sample(double time) {
+        Sampler sampler = new Sampler();
+        sampler.sample(time);
+        return sampler.result.toAngle();
+    }
+
+    /**
+     * Samples the track at the given times, filling {@code dest}.
+     *
+     * @param sampleTimes The times to sample. Must hold at least {@code dest.size()} values.
+     * @param dest The buffer receiving one orientation per time.
+     * @return {@code dest}
+     */
+    public QuaternionBuffer sample(double[] sampleTimes, QuaternionBuffer dest) {
+        Sampler sampler = new Sampler();
+        for (int n = 0; n < dest.size(); n++) {
+            sampler.sample(sampleTimes[n]);
+            sampler.store(dest, n);
+        }
+        return dest;
+    }
+
+    /**
+     * Samples the track at evenly spaced times {@code start, start + interval, ...}, filling {@code dest}.
+     *
+     * @param start The first time to sample.
+     * @param interval The time between samples.
+     * @param dest The buffer receiving one orientation per time.
+     * @return {@code dest}
+     */
+    public QuaternionBuffer sample(double start, double interval, QuaternionBuffer dest) {
+        Sampler sampler = new Sampler();
+        for (int n = 0; n < dest.size(); n++) {
+            sampler.sample(start + n * interval);
+            sampler.store(dest, n);
+        }
+        return dest;
+    }
+
+    /**
+     * The working state of one sampling pass.
+     */
+    private final class Sampler {
+        final MutableQuaternion a = new MutableQuaternion();
+        final MutableQuaternion b = new MutableQuaternion();
+        final MutableQuaternion inner = new MutableQuaternion();
+        final MutableQuaternion result = new MutableQuaternion();
+        int segment = 0;
+
+        void sample(double time) {
+            if (times.length == 1 || time <= times[0]) {
+                keys.get(0, result);
+                return;
+            }
+            if (time >= times[times.length - 1]) {
+                keys.get(times.length - 1, result);
+                return;
+            }
+            locate(time);
+            double t = (time - times[segment]) * invDuration[segment];
+            interpolate(keys, halfAngle, invSin, useNlerp, t, result);
+            if (interpolation == Interpolation.SQUAD) {
+                interpolate(controls, controlHalfAngle, controlInvSin, controlUseNlerp, t, inner);
+                a.set(result);
+                QuaternionInterpolator.slerp(a, inner, 2 * t * (1 - t), false, result);
+            }
+        }
+
+        /**
+         * Sets {@code segment} to the segment containing a time strictly inside the track.
+         */
+        private void locate(double time) {
+            if (time >= times[segment] && time < times[segment + 1]) return;
+            if (segment + 2 < times.length && time >= times[segment + 1] && time < times[segment + 2]) {
+                segment++;
+                return;
+            }
+            int index = Arrays.binarySearch(times, time);
+            segment = index >= 0 ? index : -index - 2;
+        }
+
+        private void interpolate(QuaternionBuffer points, double[] halfAngle, double[] invSin, boolean[] useNlerp, double t, MutableQuaternion dest) {
+            points.get(segment, a);
+            points.get(segment + 1, b);
+            if (useNlerp[segment]) {
+                QuaternionInterpolator.nlerp(a, b, t, 1, dest);
+            } else {
+                double angle = halfAngle[segment];
+                double scale = invSin[segment];
+                QuaternionInterpolator.interpolate(a, b, Math.sin((1 - t) * angle) * scale, Math.sin(t * angle) * scale, dest);
+            }
+        }
+
+        void store(QuaternionBuffer dest, int index) {
+            double sign = result.real() < 0 ? -1 : 1;
+            dest.set(index, sign * result.real(), sign * result.i(), sign * result.j(), sign * result.k());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * Decides when the product of two {@link QuaternionAngle3D} objects is normalized.
+ * <p>
+ * A product of unit quaternions has unit norm in exact arithmetic, and rounding moves its squared norm
+ * by a few units in the last place per composition. Rotations divide by the squared norm, so a small drift
+ * does not scale vectors, and normalization can be deferred to save its square root and division.
+ * Policies are attached to a system with {@link QuaternionSystem#withRenormalization(RenormalizationPolicy)}.
+ * </p>
+ * <p>
+ * Drift is tracked through the squared norm of the product, |q|^2 - 1, which is 2 (|q| - 1) to first order
+ * and needs no square root. A deferred normalization whose drift is below 1e-8 uses one Newton step for
+ * 1 / sqrt(|q|^2), which is exact to rounding at that size.
+ * </p>
+ *
+ * @author James Hall
+ */
+public final class RenormalizationPolicy {
+    /**
+     * Normalizes every product exactly. This is the policy of {@link QuaternionSystem#INSTANCE}.
+     */
+    public static final RenormalizationPolicy ALWAYS = new RenormalizationPolicy(1, 0, "always");
+
+    // Drift below which 1 / sqrt(|q|^2) is replaced by a Newton step, with error 3/8 drift^2
+    private static final double NEWTON_LIMIT = 1e-8;
+
+    private final int interval;
+    private final double tolerance;
+    private final String description;
+
+    private RenormalizationPolicy(int interval, double tolerance, String description) {
+        this.interval = interval;
+        this.tolerance = tolerance;
+        this.description = description;
+    }
+
+    /**
+     * Normalizes a product once it is the result of {@code count} compositions since the last normalization.
+     *
+     * @param count The number of compositions between normalizations.
+     * @return The policy.
+     * @throws IllegalArgumentException If {@code count} is less than 1.
+     */
+    public static RenormalizationPolicy everyN(int count) {
+        if (count < 1) throw new IllegalArgumentException("Count must be positive: " + count);
+        if (count == 1) return ALWAYS;
+        return new RenormalizationPolicy(count, Double.POSITIVE_INFINITY, "every " + count);
+    }
+
+    /**
+     * Normalizes a product once its norm differs from 1 by more than {@code epsilon}.
+     *
+     * @param epsilon The tolerated drift of the norm.
+     * @return The policy.
+     * @throws IllegalArgumentException If {@code epsilon} is negative or NaN.
+     */
+    public static RenormalizationPolicy whenDriftExceeds(double epsilon) {
+        if (!(epsilon >= 0)) throw new IllegalArgumentException("Epsilon must not be negative: " + epsilon);
+        return new RenormalizationPolicy(Integer.MAX_VALUE, 2 * epsilon, "drift " + epsilon);
+    }
+
+    /**
+     * @return Whether every product is normalized exactly.
+     */
+    boolean isAlways() {
+        return interval == 1;
+    }
+
+    /**
+     * Returns the factor that normalizes a product, or 0 if normalization is deferred.
+     *
+     * @param compositions The compositions since the last normalization, including this one.
+     * @param sqMagnitude The squared norm of the product.
+     * @return The positive scale factor, or 0.
+     */
+    double normalizer(int compositions, double sqMagnitude) {
+        double drift = sqMagnitude - 1;
+        if (compositions < interval && Math.abs(drift) <= tolerance) return 0;
+        if (Math.abs(drift) < NEWTON_LIMIT) return 1 - 0.5 * drift;
+        return sqMagnitude == 0 ? 0 : 1 / Math.sqrt(sqMagnitude);
+    }
+
+    /**
+     * Returns a string representation of this policy.
+     *
+     * @return A string describing when products are normalized.
+     */
+    @Override
+    public String toString() {
+        return "RenormalizationPolicy: " + description;
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import java.util.stream.Collector;
+/**
+ * Accumulates orientation samples and reports their mean rotation and dispersion, in constant memory.
+ * <p>
+ * Following Markley's method, the accumulator keeps the weighted sum M of the outer products q q^T of the sample
+ * quaternions, a symmetric 4x4 matrix stored as its 10 distinct entries. Because q q^T is the same for q and -q,
+ * the sign of each sample does not matter. The mean is the eigenvector of M with the largest eigenvalue, which
+ * maximizes the weighted sum of squared dot products with the samples, and is found by Jacobi iteration.
+ * </p>
+ * <p>
+ * Accumulators from separate threads combine with {@link #merge(RotationAverager)}, which makes
+ * {@link #collector()} suitable for parallel streams. An accumulator itself is not thread-safe.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class RotationAverager {
+    // Distinct entries of the weighted sum of q q^T, indexed by the components real, i, j, k
+    private double rr, ri, rj, rk, ii, ij, ik, jj, jk, kk;
+    private double totalWeight;
+    private long count;
+
+    /**
+     * Constructs an empty accumulator.
+     */
+    public RotationAverager() {
+    }
+
+    /**
+     * Returns a collector that accumulates angles into a {@code RotationAverager}.
+     *
+     * @return The collector.
+     */
+    public static Collector<QuaternionAngle3D, RotationAverager, RotationAverager> collector() {
+        return Collector.of(RotationAverager::new, RotationAverager::add, RotationAverager::merge,
+                            Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Adds a sample with weight 1.
+     *
+     * @param angle The sample.
+     * @return This accumulator.
+     */
+    public RotationAverager add(QuaternionAngle3D angle) {
+        return add(angle, 1);
+    }
+
+    /**
+     * Adds a weighted sample.
+     *
+     * @param angle The sample.
+     * @param weight The weight of the sample.
+     * @return This accumulator.
+     * @throws IllegalArgumentException If {@code weight} is negative or NaN.
+     */
+    public RotationAverager add(QuaternionAngle3D angle, double weight) {
+        Quaternion q = angle.value;
+        return add(q.real(), q.i(), q.j(), q.k(), weight);
+    }
+
+    /**
+     * Adds every quaternion of a buffer with weight 1. The quaternions should be normalized.
+     *
+     * @param samples The samples.
+     * @return This accumulator.
+     */
+    public RotationAverager add(QuaternionBuffer samples) {
+        for (int n = 0; n < samples.size(); n++) {
+            accumulate(samples.real(n), samples.i(n), samples.j(n), samples.k(n), 1);
+        }
+        count += samples.size();
+        totalWeight += samples.size();
+        return this;
+    }
+
+    /**
+     * Adds a weighted sample given by the components of a unit quaternion.
+     *
+     * @param real The real component.
+     * @param i The i component.
+     * @param j The j component.
+     * @param k The k component.
+     * @param weight The weight of the sample.
+     * @return This accumulator.
+     * @throws IllegalArgumentException If {@code weight} is negative or NaN.
+     */
+    public RotationAverager add(double real, double i, double j, double k, double weight) {
+        if (!(weight >= 0)) throw new IllegalArgumentException("Weight must not be negative: " + weight);
+        accumulate(real, i, j, k, weight);
+        count++;
+        totalWeight += weight;
+        return this;
+    }
+
+    private void accumulate(double real, double i, double j, double k, double weight) {
+        double wr = weight * real, wi = weight * i, wj = weight * j, wk = weight * k;
+        rr += wr * real;
+        ri += wr * i;
+        rj += wr * j;
+        rk += wr * k;
+        ii += wi * i;
+        ij += wi * j;
+        ik += wi * k;
+        jj += wj * j;
+        jk += wj * k;
+        kk += wk * k;
+    }
+
+    /**
+     * Adds the samples of another accumulator to this one.
+     *
+     * @param other The other accumulator, which is unchanged.
+     * @return This accumulator.
+     */
+    public RotationAverager merge(RotationAverager other) {
+        rr += other.rr;
+        ri += other.ri;
+        rj += other.rj;
+        rk += other.rk;
+        ii += other.ii;
+        ij += other.ij;
+        ik += other.ik;
+        jj += other.jj;
+        jk += other.jk;
+        kk += other.kk;
+        count += other.count;
+        totalWeight += other.totalWeight;
+        return this;
+    }
+
+    /**
+     * @return The number of samples added.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return The sum of the sample weights.
+     */
+    public double totalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Computes the mean rotation, the unit quaternion m maximizing the weighted mean of (m . q)^2.
+     *
+     * @return The mean rotation.
+     * @throws IllegalStateException If the total weight is zero.
+     */
+    public QuaternionAngle3D mean() {
+        double[] eigenvector = new double[4];
+        largestEigenvalue(eigenvector);
+        return new QuaternionAngle3D(new Quaternion(eigenvector[0], eigenvector[1], eigenvector[2], eigenvector[3]).normalize());
+    }
+
+    /**
+     * Returns 1 minus the largest eigenvalue of the normalized outer-product sum, which is the weighted mean of
+     * sin^2(a/2) for the angles a between the samples and the mean. It is 0 when all samples are equal and
+     * 3/4 for orientations spread uniformly.
+     *
+     * @return The dispersion.
+     * @throws IllegalStateException If the total weight is zero.
+     */
+    public double dispersion() {
+        return Math.max(0, 1 - largestEigenvalue(new double[4]));
+    }
+
+    /**
+     * Estimates the covariance of the rotation vectors that carry the mean to each sample, in the body frame of
+     * the mean, so that sample = mean.rotate(exp(v)). The estimate is 4 E[u u^T] for the vector part u of
+     * mean^-1 * sample, which is accurate to first order for small spreads. Its trace is about 4 {@link #dispersion()}.
+     *
+     * @return The covariance as a 3x3 matrix indexed by x, y and z.
+     * @throws IllegalStateException If the total weight is zero.
+     */
+    public double[][] covariance() {
+        double[] m = new double[4];
+        largestEigenvalue(m);
+        // Rows of the left multiplication matrix of the conjugate mean (a, b, c, d) = (m0, -m1, -m2, -m3)
+        double a = m[0], b = -m[1], c = -m[2], d = -m[3];
+        double[][] left = {
+            {a, -b, -c, -d},
+            {b, a, -d, c},
+            {c, d, a, -b},
+            {d, -c, b, a}
+        };
+        double[][] sum = matrix();
+        double[][] result = new double[3][3];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                double value = 0;
+                for (int p = 0; p < 4; p++) {
+                    for (int q = 0; q < 4; q++) value += left[row + 1][p] * sum[p][q] * left[column + 1][q];
+                }
+                result[row][column] = 4 * value / totalWeight;
+            }
+        }
+        return result;
+    }
+
+    private double[][] matrix() {
+        return new double[][] {
+            {rr, ri, rj, rk},
+            {ri, ii, ij, ik},
+            {rj, ij, jj, jk},
+            {rk, ik, jk, kk}
+        };
+    }
+
+    /**
+     * Returns the largest eigenvalue of M divided by the total weight, storing its unit eigenvector in {@code dest}.
+     */
+    private double largestEigenvalue(double[] dest) {
+        if (!(totalWeight > 0)) throw new IllegalStateException("No weighted samples");
+        double[][] a = matrix();
+        double[][] vectors = new double[4][4];
+        for (int n = 0; n < 4; n++) vectors[n][n] = 1;
+        jacobi(a, vectors);
+        int largest = 0;
+        for (int n = 1; n < 4; n++) {
+            if (a[n][n] > a[largest][largest]) largest = n;
+        }
+        for (int n = 0; n < 4; n++) dest[n] = vectors[n][largest];
+        return a[largest][largest] / totalWeight;
+    }
+
+    /**
+     * Diagonalizes the symmetric matrix {@code a} in place by cyclic Jacobi rotations, accumulating the rotations
+     * into the columns of {@code vectors}.
+     */
+    static void jacobi(double[][] a, double[][] vectors) {
+        int size = a.length;
+        for (int sweep = 0; sweep < 64; sweep++) {
+            double offDiagonal = 0, diagonal = 0;
+            for (int p = 0; p < size; p++) {
+                diagonal += a[p][p] * a[p][p];
+                for (int q = p + 1; q < size; q++) offDiagonal += a[p][q] * a[p][q];
+            }
+            if (offDiagonal <= 1e-36 * diagonal) return;
+            for (int p = 0; p < size; p++) {
+                for (int q = p + 1; q < size; q++) {
+                    if (a[p][q] == 0) continue;
+                    // Rotation angle that zeroes a[p][q], with t = tan of the smaller solution
+                    double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+                    double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    if (theta == 0) t = 1;
+                    double c = 1 / Math.sqrt(t * t + 1), s = t * c;
+                    for (int r = 0; r < size; r++) {
+                        double arp = a[r][p], arq = a[r][q];
+                        a[r][p] = c * arp - s * arq;
+                        a[r][q] = s * arp + c * arq;
+                    }
+                    for (int r = 0; r < size; r++) {
+                        double apr = a[p][r], aqr = a[q][r];
+                        a[p][r] = c * apr - s * aqr;
+                        a[q][r] = s * apr + c * aqr;
+                    }
+                    for (int r = 0; r < size; r++) {
+                        double vrp = vectors[r][p], vrq = vectors[r][q];
+                        vectors[r][p] = c * vrp - s * vrq;
+                        vectors[r][q] = s * vrp + c * vrq;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of this accumulator.
+     *
+     * @return A string giving the sample count and total weight.
+     */
+    @Override
+    public String toString() {
+        return "RotationAverager: " + count + " samples, weight " + totalWeight;
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * The 3x3 matrix of the rotation q * v * conj(q) / |q|^2 for a quaternion q.
+ * <p>
+ * Applying the matrix costs 9 multiplications and 6 additions per vector, compared with the
+ * two Hamilton products of {@link Quaternion#rotateVector(Vector3D)}. Entry {@code mRC} is the
+ * entry at row R and column C.
+ * </p>
+ */
+final class RotationMatrix {
+    final double m00, m01, m02;
+    final double m10, m11, m12;
+    final double m20, m21, m22;
+
+    /**
+     * Constructs the rotation matrix of the quaternion (real, i, j, k).
+     * The quaternion does not need to be normalized. A zero quaternion gives the identity.
+     *
+     * @param real the real component
+     * @param i the i component
+     * @param j the j component
+     * @param k the k component
+     */
+    RotationMatrix(double real, double i, double j, double k) {
+        double sqMagnitude = real * real + i * i + j * j + k * k;
+        double s = sqMagnitude == 0 ? 0 : 2 / sqMagnitude;
+        m00 = 1 - s * (j * j + k * k);
+        m01 = s * (i * j - k * real);
+        m02 = s * (i * k + j * real);
+        m10 = s * (i * j + k * real);
+        m11 = 1 - s * (i * i + k * k);
+        m12 = s * (j * k - i * real);
+        m20 = s * (i * k - j * real);
+        m21 = s * (j * k + i * real);
+        m22 = 1 - s * (i * i + j * j);
+    }
+
+    /**
+     * Stores the entries of the rotation matrix of the quaternion (real, i, j, k) in {@code dest}, row by row,
+     * with the same arithmetic as {@link #RotationMatrix(double, double, double, double)}.
+     */
+    static void entries(double real, double i, double j, double k, double[] dest, int offset) {
+        double sqMagnitude = real * real + i * i + j * j + k * k;
+        double s = sqMagnitude == 0 ? 0 : 2 / sqMagnitude;
+        dest[offset] = 1 - s * (j * j + k * k);
+        dest[offset + 1] = s * (i * j - k * real);
+        dest[offset + 2] = s * (i * k + j * real);
+        dest[offset + 3] = s * (i * j + k * real);
+        dest[offset + 4] = 1 - s * (i * i + k * k);
+        dest[offset + 5] = s * (j * k - i * real);
+        dest[offset + 6] = s * (i * k - j * real);
+        dest[offset + 7] = s * (j * k + i * real);
+        dest[offset + 8] = 1 - s * (i * i + j * j);
+    }
+
+    /**
+     * Constructs a matrix from its entries, given row by row.
+     */
+    RotationMatrix(double m00, double m01, double m02,
+                   double m10, double m11, double m12,
+                   double m20, double m21, double m22) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+    }
+
+    /**
+     * Constructs the rotation matrix of a quaternion.
+     *
+     * @param value the quaternion
+     */
+    RotationMatrix(Quaternion value) {
+        this(value.real(), value.i(), value.j(), value.k());
+    }
+
+    /**
+     * Returns the entry at the given row and column.
+     *
+     * @param row the row, from 0 to 2
+     * @param column the column, from 0 to 2
+     * @return the matrix entry
+     */
+    double get(int row, int column) {
+        switch (3 * row + column) {
+            case 0: return m00;
+            case 1: return m01;
+            case 2: return m02;
+            case 3: return m10;
+            case 4: return m11;
+            case 5: return m12;
+            case 6: return m20;
+            case 7: return m21;
+            case 8: return m22;
+        }
+        throw new IndexOutOfBoundsException("Invalid matrix entry: " + row + "," + column);
+    }
+
+    /**
+     * Rotates the vector (x, y, z) without allocating.
+     *
+     * @param x the x component of the vector
+     * @param y the y component of the vector
+     * @param z the z component of the vector
+     * @param dest the array receiving the rotated x, y and z components
+     * @param offset the index in {@code dest} of the x component
+     */
+    void rotate(double x, double y, double z, double[] dest, int offset) {
+        dest[offset] = m00 * x + m01 * y + m02 * z;
+        dest[offset + 1] = m10 * x + m11 * y + m12 * z;
+        dest[offset + 2] = m20 * x + m21 * y + m22 * z;
+    }
+
+    /**
+     * Rotates a 3D vector.
+     *
+     * @param v the vector to rotate
+     * @return the rotated vector
+     */
+    Vector3D rotate(Vector3D v) {
+        double x = v.x(), y = v.y(), z = v.z();
+        return new Vector3D(m00 * x + m01 * y + m02 * z,
+                            m10 * x + m11 * y + m12 * z,
+                            m20 * x + m21 * y + m22 * z);
+    }
+
+    /**
+     * Applies the inverse rotation, which for an orthonormal matrix is the transpose.
+     *
+     * @param v the vector to rotate
+     * @return the vector rotated by the inverse of this matrix
+     */
+    Vector3D inverseRotate(Vector3D v) {
+        double x = v.x(), y = v.y(), z = v.z();
+        return new Vector3D(m00 * x + m10 * y + m20 * z,
+                            m01 * x + m11 * y + m21 * z,
+                            m02 * x + m12 * y + m22 * z);
+    }
+
+    /**
+     * Returns the transpose, which for an orthonormal matrix is the inverse.
+     *
+     * @return the transposed matrix
+     */
+    RotationMatrix transpose() {
+        return new RotationMatrix(m00, m10, m20,
+                                  m01, m11, m21,
+                                  m02, m12, m22);
+    }
+
+    /**
+     * Returns the product of this matrix and another, re-orthonormalized by the Gram-Schmidt process
+     * so that rounding errors do not accumulate over repeated composition.
+     *
+     * @param right the matrix to multiply by on the right
+     * @return the orthonormal product
+     */
+    RotationMatrix multiply(RotationMatrix right) {
+        // First two columns of the product
+        double a0 = m00 * right.m00 + m01 * right.m10 + m02 * right.m20;
+        double a1 = m10 * right.m00 + m11 * right.m10 + m12 * right.m20;
+        double a2 = m20 * right.m00 + m21 * right.m10 + m22 * right.m20;
+        double b0 = m00 * right.m01 + m01 * right.m11 + m02 * right.m21;
+        double b1 = m10 * right.m01 + m11 * right.m11 + m12 * right.m21;
+        double b2 = m20 * right.m01 + m21 * right.m11 + m22 * right.m21;
+        double scaleA = 1 / Math.sqrt(a0 * a0 + a1 * a1 + a2 * a2);
+        a0 *= scaleA;
+        a1 *= scaleA;
+        a2 *= scaleA;
+        double projection = a0 * b0 + a1 * b1 + a2 * b2;
+        b0 -= projection * a0;
+        b1 -= projection * a1;
+        b2 -= projection * a2;
+        double scaleB = 1 / Math.sqrt(b0 * b0 + b1 * b1 + b2 * b2);
+        b0 *= scaleB;
+        b1 *= scaleB;
+        b2 *= scaleB;
+        // The third column is the cross product of the first two, keeping the matrix a proper rotation
+        return new RotationMatrix(a0, b0, a1 * b2 - a2 * b1,
+                                  a1, b1, a2 * b0 - a0 * b2,
+                                  a2, b2, a0 * b1 - a1 * b0);
+    }
+
+    /**
+     * Stores the unit quaternion of this rotation matrix in {@code dest}, with a non-negative real component.
+     * The component with the largest magnitude is found first, so that the division is always well conditioned.
+     *
+     * @param dest the quaternion receiving the result
+     */
+    void toQuaternion(MutableQuaternion dest) {
+        double trace = m00 + m11 + m22;
+        double real, i, j, k;
+        if (trace > 0) {
+            double s = 2 * Math.sqrt(1 + trace);
+            real = s / 4;
+            i = (m21 - m12) / s;
+            j = (m02 - m20) / s;
+            k = (m10 - m01) / s;
+        } else if (m00 >= m11 && m00 >= m22) {
+            double s = 2 * Math.sqrt(1 + m00 - m11 - m22);
+            real = (m21 - m12) / s;
+            i = s / 4;
+            j = (m01 + m10) / s;
+            k = (m02 + m20) / s;
+        } else if (m11 >= m22) {
+            double s = 2 * Math.sqrt(1 + m11 - m00 - m22);
+            real = (m02 - m20) / s;
+            i = (m01 + m10) / s;
+            j = s / 4;
+            k = (m12 + m21) / s;
+        } else {
+            double s = 2 * Math.sqrt(1 + m22 - m00 - m11);
+            real = (m10 - m01) / s;
+            i = (m02 + m20) / s;
+            j = (m12 + m21) / s;
+            k = s / 4;
+        }
+        double sign = real >= 0 ? 1 : -1;
+        dest.set(sign * real, sign * i, sign * j, sign * k);
+    }
+}
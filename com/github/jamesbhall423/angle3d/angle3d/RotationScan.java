@@ -0,0 +1,262 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+/**
+ * Computes the prefix products of long rotation sequences in parallel.
+ * <p>
+ * The prefix product at index n is steps[0] * steps[1] * ... * steps[n], the orientation reached by applying each
+ * step in the body frame as {@code angle = angle.rotate(step)} does. Composition is associative, so the sequence
+ * is split into a balanced tree of blocks of {@link #BLOCK_SIZE} steps and scanned in Blelloch's two sweeps on the
+ * common {@link ForkJoinPool}: the up-sweep computes the product of every subtree, and the down-sweep hands each
+ * block the product of everything before it, from which the block is scanned sequentially.
+ * </p>
+ * <p>
+ * Each step is composed twice, once in each sweep, so a scan does about twice the work of the sequential loop
+ * and gains once more than two cores are available; when the common pool has a parallelism of 1 the prefix
+ * products are computed by the sequential loop instead. The parallel scan groups the products differently from
+ * the sequential loop, so results agree with it to rounding error rather than bit for bit.
+ * </p>
+ *
+ * @author James Hall
+ */
+public final class RotationScan {
+    /**
+     * The number of steps composed sequentially by each task.
+     */
+    public static final int BLOCK_SIZE = 1 << 13;
+
+    private RotationScan() {
+    }
+
+    /**
+     * Stores the normalized prefix products of {@code steps} in {@code dest}, which may be {@code steps}.
+     *
+     * @param steps The rotation steps.
+     * @param dest The buffer receiving the prefix products.
+     * @return {@code dest}
+     * @throws IllegalArgumentException If the buffers differ in size.
+     */
+    public static QuaternionBuffer prefixProducts(QuaternionBuffer steps, QuaternionBuffer dest) {
+        if (dest.size() != steps.size()) throw new IllegalArgumentException("Buffer sizes differ: " + steps.size() + " and " + dest.size());
+        if (steps.size() == 0) return dest;
+        scan(new BufferScan(steps, dest), steps.size());
+        return dest;
+    }
+
+    /**
+     * Computes the product of all steps in parallel.
+     *
+     * @param steps The rotation steps.
+     * @return The normalized product, or the identity for an empty buffer.
+     */
+    public static QuaternionAngle3D reduce(QuaternionBuffer steps) {
+        if (steps.size() == 0) return new QuaternionAngle3D(new Quaternion(1.0, 0.0, 0.0, 0.0));
+        return upSweep(new BufferScan(steps, null), steps.size()).product.toAngle();
+    }
+
+    /**
+     * Computes the prefix products of a list of angles, composing them with {@link Angle3D#rotate(Angle3D)}.
+     *
+     * @param <A> The type of angle.
+     * @param steps The rotation steps.
+     * @return A new list whose element n is the product of steps 0 to n.
+     */
+    public static <A extends Angle3D<A>> List<A> prefixProducts(List<A> steps) {
+        List<A> results = new ArrayList<>(Collections.nCopies(steps.size(), null));
+        if (steps.isEmpty()) return results;
+        scan(new ListScan<>(randomAccess(steps), results), steps.size());
+        return results;
+    }
+
+    /**
+     * Computes the product of a list of angles in parallel.
+     *
+     * @param <A> The type of angle.
+     * @param steps The rotation steps.
+     * @return The product of all steps.
+     * @throws IllegalArgumentException If {@code steps} is empty.
+     */
+    public static <A extends Angle3D<A>> A reduce(List<A> steps) {
+        if (steps.isEmpty()) throw new IllegalArgumentException("Cannot reduce an empty sequence");
+        return upSweep(new ListScan<>(randomAccess(steps), null), steps.size()).product;
+    }
+
+    private static <A> List<A> randomAccess(List<A> steps) {
+        return steps instanceof RandomAccess ? steps : new ArrayList<>(steps);
+    }
+
+    private static <P> void scan(Scan<P> scan, int size) {
+        if (ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            scan.scan(null, 0, size);
+            return;
+        }
+        Node<P> root = upSweep(scan, size);
+        ForkJoinPool.commonPool().invoke(new DownSweep<>(scan, root, null));
+    }
+
+    private static <P> Node<P> upSweep(Scan<P> scan, int size) {
+        Node<P> root = new Node<>(0, size);
+        ForkJoinPool.commonPool().invoke(new UpSweep<>(scan, root));
+        return root;
+    }
+
+    /**
+     * The operations of a scan over one kind of sequence, with products of type P.
+     * A null seed stands for the identity.
+     */
+    private abstract static class Scan<P> {
+        /**
+         * Returns the product of the steps in [from, to).
+         */
+        abstract P product(int from, int to);
+
+        /**
+         * Returns left * right.
+         */
+        abstract P combine(P left, P right);
+
+        /**
+         * Stores seed * steps[from] * ... * steps[n] for each n in [from, to).
+         */
+        abstract void scan(P seed, int from, int to);
+    }
+
+    /**
+     * A range of steps, with the product computed by the up-sweep.
+     */
+    private static final class Node<P> {
+        final int from;
+        final int to;
+        Node<P> left;
+        Node<P> right;
+        P product;
+
+        Node(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class UpSweep<P> extends RecursiveAction {
+        private final Scan<P> scan;
+        private final Node<P> node;
+
+        UpSweep(Scan<P> scan, Node<P> node) {
+            this.scan = scan;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            if (node.to - node.from <= BLOCK_SIZE) {
+                node.product = scan.product(node.from, node.to);
+                return;
+            }
+            int middle = (node.from + node.to) >>> 1;
+            node.left = new Node<>(node.from, middle);
+            node.right = new Node<>(middle, node.to);
+            invokeAll(new UpSweep<>(scan, node.left), new UpSweep<>(scan, node.right));
+            node.product = scan.combine(node.left.product, node.right.product);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class DownSweep<P> extends RecursiveAction {
+        private final Scan<P> scan;
+        private final Node<P> node;
+        private final P seed;
+
+        DownSweep(Scan<P> scan, Node<P> node, P seed) {
+            this.scan = scan;
+            this.node = node;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if (node.left == null) {
+                scan.scan(seed, node.from, node.to);
+                return;
+            }
+            P rightSeed = seed == null ? node.left.product : scan.combine(seed, node.left.product);
+            invokeAll(new DownSweep<>(scan, node.left, seed), new DownSweep<>(scan, node.right, rightSeed));
+        }
+    }
+
+    /**
+     * Scans a {@code QuaternionBuffer}, normalizing each product as {@link QuaternionAngle3D#rotate(QuaternionAngle3D)} does.
+     */
+    private static final class BufferScan extends Scan<MutableQuaternion> {
+        private final QuaternionBuffer steps;
+        private final QuaternionBuffer dest;
+
+        BufferScan(QuaternionBuffer steps, QuaternionBuffer dest) {
+            this.steps = steps;
+            this.dest = dest;
+        }
+
+        @Override
+        MutableQuaternion product(int from, int to) {
+            MutableQuaternion product = new MutableQuaternion();
+            for (int n = from; n < to; n++) {
+                product.setProduct(product.real(), product.i(), product.j(), product.k(),
+                                   steps.real(n), steps.i(n), steps.j(n), steps.k(n)).normalize();
+            }
+            return product;
+        }
+
+        @Override
+        MutableQuaternion combine(MutableQuaternion left, MutableQuaternion right) {
+            return new MutableQuaternion().setProduct(left, right).normalize();
+        }
+
+        @Override
+        void scan(MutableQuaternion seed, int from, int to) {
+            MutableQuaternion product = seed == null ? new MutableQuaternion() : new MutableQuaternion().set(seed);
+            for (int n = from; n < to; n++) {
+                product.setProduct(product.real(), product.i(), product.j(), product.k(),
+                                   steps.real(n), steps.i(n), steps.j(n), steps.k(n)).normalize();
+                dest.set(n, product.real(), product.i(), product.j(), product.k());
+            }
+        }
+    }
+
+    /**
+     * Scans a list of angles, composing them with {@link Angle3D#rotate(Angle3D)}.
+     */
+    private static final class ListScan<A extends Angle3D<A>> extends Scan<A> {
+        private final List<A> steps;
+        private final List<A> dest;
+
+        ListScan(List<A> steps, List<A> dest) {
+            this.steps = steps;
+            this.dest = dest;
+        }
+
+        @Override
+        A product(int from, int to) {
+            A product = steps.get(from);
+            for (int n = from + 1; n < to; n++) product = product.rotate(steps.get(n));
+            return product;
+        }
+
+        @Override
+        A combine(A left, A right) {
+            return left.rotate(right);
+        }
+
+        @Override
+        void scan(A seed, int from, int to) {
+            A product = seed;
+            for (int n = from; n < to; n++) {
+                product = product == null ? steps.get(n) : product.rotate(steps.get(n));
+                dest.set(n, product);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * The plain Java implementation of {@link BatchRotator}, used when the vector module is unavailable.
+ * The loop has no cross-iteration dependencies, leaving the JIT free to vectorize it.
+ */
+final class ScalarBatchRotator extends BatchRotator {
+    static final ScalarBatchRotator INSTANCE = new ScalarBatchRotator();
+
+    private ScalarBatchRotator() {
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    void rotate(RotationMatrix m, double[] x, double[] y, double[] z, double[] destX, double[] destY, double[] destZ, int count) {
+        double m00 = m.m00, m01 = m.m01, m02 = m.m02;
+        double m10 = m.m10, m11 = m.m11, m12 = m.m12;
+        double m20 = m.m20, m21 = m.m21, m22 = m.m22;
+        for (int n = 0; n < count; n++) {
+            double vx = x[n], vy = y[n], vz = z[n];
+            destX[n] = m00 * vx + m01 * vy + m02 * vz;
+            destY[n] = m10 * vx + m11 * vy + m12 * vz;
+            destZ[n] = m20 * vx + m21 * vy + m22 * vz;
+        }
+    }
+}
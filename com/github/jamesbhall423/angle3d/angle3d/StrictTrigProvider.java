@@ -0,0 +1,27 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * The {@link TrigProvider} that delegates to {@link Math}.
+ *
+ * @author James Hall
+ */
+final class StrictTrigProvider implements TrigProvider {
+    static final StrictTrigProvider INSTANCE = new StrictTrigProvider();
+
+    private StrictTrigProvider() {
+    }
+
+    @Override
+    public double sin(double angle) {
+        return Math.sin(angle);
+    }
+
+    @Override
+    public double cos(double angle) {
+        return Math.cos(angle);
+    }
+
+    @Override
+    public String toString() {
+        return "TrigProvider: strict";
+    }
+}
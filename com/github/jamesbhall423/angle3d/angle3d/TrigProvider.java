@@ -0,0 +1,48 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+/**
+ * Supplies the sine and cosine used by an {@link Angle3DSystem} to construct angles.
+ * <p>
+ * {@link #STRICT} delegates to {@link Math}. {@link #FAST} evaluates polynomial approximations after a
+ * cheap argument reduction, computes the sine and cosine of one argument together, and reads the
+ * powers of two used by {@code MomentCalculator.getRotationToAxis} from a table.
+ * A system using another provider is obtained from the {@code withTrig} method of each system.
+ * </p>
+ *
+ * @author James Hall
+ */
+public interface TrigProvider {
+    /**
+     * Delegates to {@link Math#sin(double)} and {@link Math#cos(double)}.
+     */
+    TrigProvider STRICT = StrictTrigProvider.INSTANCE;
+
+    /**
+     * Polynomial approximations within 1 ulp of {@link StrictMath} for |x| &lt;= 2 pi and 2 ulp for
+     * |x| &lt;= 2^18, so within 3 ulp of the exact value; larger arguments use {@link Math}.
+     */
+    TrigProvider FAST = FastTrigProvider.INSTANCE;
+
+    /**
+     * @param angle The angle in radians.
+     * @return The sine of the angle.
+     */
+    double sin(double angle);
+
+    /**
+     * @param angle The angle in radians.
+     * @return The cosine of the angle.
+     */
+    double cos(double angle);
+
+    /**
+     * Computes the sine and cosine of one angle together.
+     *
+     * @param angle The angle in radians.
+     * @param dest The array receiving the sine at {@code offset} and the cosine at {@code offset + 1}.
+     * @param offset The index of the sine in {@code dest}.
+     */
+    default void sinCos(double angle, double[] dest, int offset) {
+        dest[offset] = sin(angle);
+        dest[offset + 1] = cos(angle);
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.jamesbhall423.angle3d.angle3d;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+/**
+ * The {@code jdk.incubator.vector} implementation of {@link BatchRotator}.
+ * <p>
+ * Processes as many vectors per iteration as the preferred species has lanes (4 with AVX2, 8 with AVX-512).
+ * Multiplications and additions are performed in the same order as the scalar implementation, without fused
+ * multiply-add, so results are identical. This class is only loaded reflectively by {@link BatchRotator}
+ * after the module has been found, and requires {@code --add-modules jdk.incubator.vector} to compile.
+ * </p>
+ */
+final class VectorBatchRotator extends BatchRotator {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorBatchRotator() {
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void rotate(RotationMatrix m, double[] x, double[] y, double[] z, double[] destX, double[] destY, double[] destZ, int count) {
+        double m00 = m.m00, m01 = m.m01, m02 = m.m02;
+        double m10 = m.m10, m11 = m.m11, m12 = m.m12;
+        double m20 = m.m20, m21 = m.m21, m22 = m.m22;
+        int bound = SPECIES.loopBound(count);
+        int n = 0;
+        for (; n < bound; n += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, n);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, n);
+            DoubleVector vz = DoubleVector.fromArray(SPECIES, z, n);
+            vx.mul(m00).add(vy.mul(m01)).add(vz.mul(m02)).intoArray(destX, n);
+            vx.mul(m10).add(vy.mul(m11)).add(vz.mul(m12)).intoArray(destY, n);
+            vx.mul(m20).add(vy.mul(m21)).add(vz.mul(m22)).intoArray(destZ, n);
+        }
+        for (; n < count; n++) {
+            double vx = x[n], vy = y[n], vz = z[n];
+            destX[n] = m00 * vx + m01 * vy + m02 * vz;
+            destY[n] = m10 * vx + m11 * vy + m12 * vz;
+            destZ[n] = m20 * vx + m21 * vy + m22 * vz;
+        }
+    }
+}
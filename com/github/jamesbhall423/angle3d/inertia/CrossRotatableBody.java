@@ -62,6 +62,18 @@ public class CrossRotatableBody<T extends Angle3D<T>> extends RotatableBody<T> {
         super.setAngle(angle.rotate(correctionAngle.inverse()));
     }
 
+    /**
+     * Applies the correction angle, as {@link #getAngle()} does, so that torque fetchers see the corrected
+     * orientation at every stage of a step.
+     *
+     * @param principalAngle The orientation of the principal axes.
+     * @return The corrected orientation.
+     */
+    @Override
+    protected T externalAngle(T principalAngle) {
+        return principalAngle.rotate(correctionAngle);
+    }
+
     /**
      * Returns a string representation of the {@code CrossRotatableBody}, 
      * including its base properties and the correction angle.
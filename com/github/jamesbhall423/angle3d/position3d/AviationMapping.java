@@ -6,6 +6,12 @@ package com.github.jamesbhall423.angle3d.position3d;
  * This class ensures that all three dimensions are properly assigned 
  * and provides access to both coordinate and aviation-based mappings.
  * </p>
+ * <p>
+ * Each mapping is a signed permutation, stored as axis indices and sign multipliers so that
+ * conversions between Cartesian and aviation coordinates need no switches. There are only 48 such
+ * mappings; {@link #of(DimensionMapping...)} returns a shared instance of each.
+ * Aviation coordinates are ordered as the {@link AviationAxis} constants: longitudinal, lateral, vertical.
+ * </p>
  * 
  * @author James Hall
  */
@@ -16,6 +22,27 @@ public class AviationMapping {
     private final DimensionMapping longitudinal;
     private final DimensionMapping lateral;
     private final DimensionMapping vertical;
+    // Indexed by aviation axis ordinal: the Cartesian axis ordinal and sign of each aviation axis
+    private final int[] cartesianIndex = new int[3];
+    private final double[] sign = new double[3];
+    // Indexed by Cartesian axis ordinal: the aviation axis ordinal of each Cartesian axis
+    private final int[] aviationIndex = new int[3];
+    private final int key;
+
+    private static final AviationMapping[] CANONICAL = new AviationMapping[72];
+    static {
+        CartesianAxis[] axes = CartesianAxis.values();
+        for (CartesianAxis longitudinal : axes) for (CartesianAxis lateral : axes) for (CartesianAxis vertical : axes) {
+            if (longitudinal == lateral || lateral == vertical || vertical == longitudinal) continue;
+            for (int signs = 0; signs < 8; signs++) {
+                AviationMapping mapping = new AviationMapping(new DimensionMapping[] {
+                    new DimensionMapping(AviationAxis.LONGITUDINAL, (signs & 1) != 0, longitudinal),
+                    new DimensionMapping(AviationAxis.LATERAL, (signs & 2) != 0, lateral),
+                    new DimensionMapping(AviationAxis.VERTICAL, (signs & 4) != 0, vertical)});
+                CANONICAL[mapping.key] = mapping;
+            }
+        }
+    }
 
     /**
      * Constructs an {@code AviationMapping} from an array of three {@code DimensionMapping} objects.
@@ -69,6 +96,50 @@ public class AviationMapping {
         this.longitudinal = tempLongitudinal;
         this.lateral = tempLateral;
         this.vertical = tempVertical;
+
+        int signBits = 0;
+        for (DimensionMapping next : mappings) {
+            int aviation = next.aviation().ordinal();
+            cartesianIndex[aviation] = next.xyz().ordinal();
+            sign[aviation] = next.sign();
+            aviationIndex[next.xyz().ordinal()] = aviation;
+            if (next.inverse()) signBits |= 1 << aviation;
+        }
+        key = 8 * (3 * cartesianIndex[0] + cartesianIndex[1]) + signBits;
+    }
+
+    /**
+     * Returns the shared {@code AviationMapping} for the given dimension mappings.
+     * Unlike the constructor, no new object is created when the mappings are valid.
+     *
+     * @param mappings Exactly three {@code DimensionMapping} objects.
+     * @return The interned mapping.
+     * @throws IllegalArgumentException If the array length is not 3 or if any required mapping is missing.
+     */
+    public static AviationMapping of(DimensionMapping... mappings) {
+        if (mappings.length == 3) {
+            int aviationSeen = 0, cartesianSeen = 0, signBits = 0;
+            int[] index = new int[3];
+            for (DimensionMapping next : mappings) {
+                int aviation = next.aviation().ordinal();
+                aviationSeen |= 1 << aviation;
+                cartesianSeen |= 1 << next.xyz().ordinal();
+                index[aviation] = next.xyz().ordinal();
+                if (next.inverse()) signBits |= 1 << aviation;
+            }
+            if (aviationSeen == 7 && cartesianSeen == 7) return CANONICAL[8 * (3 * index[0] + index[1]) + signBits];
+        }
+        // Let the constructor report the problem
+        return new AviationMapping(mappings);
+    }
+
+    /**
+     * Returns the shared instance equal to this mapping.
+     *
+     * @return The interned mapping.
+     */
+    public AviationMapping canonical() {
+        return CANONICAL[key];
     }
 
     /**
@@ -112,4 +183,147 @@ public class AviationMapping {
     public DimensionMapping longitudinal() {
         return longitudinal;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the index (0 for X, 1 for Y, 2 for Z) of the Cartesian axis carrying an aviation axis.
+     *
+     * @param axis The aviation axis.
+     * @return The ordinal of the mapped {@code CartesianAxis}.
+     */
+    public int cartesianIndex(AviationAxis axis) {
+        return cartesianIndex[axis.ordinal()];
+    }
+
+    /**
+     * Returns the sign multiplier of an aviation axis.
+     *
+     * @param axis The aviation axis.
+     * @return {@code 1} for a direct mapping, {@code -1} for an inverse mapping.
+     */
+    public double sign(AviationAxis axis) {
+        return sign[axis.ordinal()];
+    }
+
+    /**
+     * Retrieves the longitudinal component of a vector.
+     *
+     * @param v The vector in Cartesian coordinates.
+     * @return The longitudinal coordinate.
+     */
+    public double getLongitudinal(Vector3D v) {
+        return sign[0] * v.coordinate(cartesianIndex[0]);
+    }
+
+    /**
+     * Retrieves the lateral component of a vector.
+     *
+     * @param v The vector in Cartesian coordinates.
+     * @return The lateral coordinate.
+     */
+    public double getLateral(Vector3D v) {
+        return sign[1] * v.coordinate(cartesianIndex[1]);
+    }
+
+    /**
+     * Retrieves the vertical component of a vector.
+     *
+     * @param v The vector in Cartesian coordinates.
+     * @return The vertical coordinate.
+     */
+    public double getVertical(Vector3D v) {
+        return sign[2] * v.coordinate(cartesianIndex[2]);
+    }
+
+    /**
+     * Converts a vector to aviation coordinates.
+     *
+     * @param v The vector in Cartesian coordinates.
+     * @param dest The array receiving the longitudinal, lateral and vertical coordinates.
+     * @param offset The index in {@code dest} of the longitudinal coordinate.
+     */
+    public void toAviation(Vector3D v, double[] dest, int offset) {
+        dest[offset] = getLongitudinal(v);
+        dest[offset + 1] = getLateral(v);
+        dest[offset + 2] = getVertical(v);
+    }
+
+    /**
+     * Converts aviation coordinates to a Cartesian vector.
+     *
+     * @param longitudinal The longitudinal coordinate.
+     * @param lateral The lateral coordinate.
+     * @param vertical The vertical coordinate.
+     * @return The vector in Cartesian coordinates.
+     */
+    public Vector3D fromAviation(double longitudinal, double lateral, double vertical) {
+        return new Vector3D(sign[aviationIndex[0]] * select(aviationIndex[0], longitudinal, lateral, vertical),
+                            sign[aviationIndex[1]] * select(aviationIndex[1], longitudinal, lateral, vertical),
+                            sign[aviationIndex[2]] * select(aviationIndex[2], longitudinal, lateral, vertical));
+    }
+
+    private static double select(int index, double first, double second, double third) {
+        return index == 0 ? first : index == 1 ? second : third;
+    }
+
+    /**
+     * Converts packed xyz vectors to packed aviation coordinates. The output array may be the same as the input array.
+     *
+     * @param src The packed Cartesian vectors.
+     * @param srcOffset The index in {@code src} of the first x component.
+     * @param dest The array receiving the packed longitudinal, lateral and vertical coordinates.
+     * @param destOffset The index in {@code dest} of the first longitudinal coordinate.
+     * @param count The number of vectors to convert.
+     */
+    public void toAviation(double[] src, int srcOffset, double[] dest, int destOffset, int count) {
+        permute(src, srcOffset, dest, destOffset, count, cartesianIndex, sign[0], sign[1], sign[2]);
+    }
+
+    /**
+     * Converts packed aviation coordinates to packed xyz vectors. The output array may be the same as the input array.
+     *
+     * @param src The packed longitudinal, lateral and vertical coordinates.
+     * @param srcOffset The index in {@code src} of the first longitudinal coordinate.
+     * @param dest The array receiving the packed Cartesian vectors.
+     * @param destOffset The index in {@code dest} of the first x component.
+     * @param count The number of vectors to convert.
+     */
+    public void fromAviation(double[] src, int srcOffset, double[] dest, int destOffset, int count) {
+        permute(src, srcOffset, dest, destOffset, count, aviationIndex, sign[aviationIndex[0]], sign[aviationIndex[1]], sign[aviationIndex[2]]);
+    }
+
+    /**
+     * Writes dest[to + c] = sign_c * src[from + index[c]] for each packed triple.
+     */
+    private static void permute(double[] src, int srcOffset, double[] dest, int destOffset, int count, int[] index, double sign0, double sign1, double sign2) {
+        int index0 = index[0], index1 = index[1], index2 = index[2];
+        for (int n = 0; n < count; n++) {
+            int from = srcOffset + 3 * n;
+            int to = destOffset + 3 * n;
+            double value0 = sign0 * src[from + index0];
+            double value1 = sign1 * src[from + index1];
+            double value2 = sign2 * src[from + index2];
+            dest[to] = value0;
+            dest[to + 1] = value1;
+            dest[to + 2] = value2;
+        }
+    }
+
+    /**
+     * Returns whether another object is a mapping with the same axes and signs.
+     *
+     * @param other The object to compare with.
+     * @return {@code true} if the mappings are equivalent.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AviationMapping && ((AviationMapping) other).key == key;
+    }
+
+    /**
+     * @return A hash code consistent with {@link #equals(Object)}.
+     */
+    @Override
+    public int hashCode() {
+        return key;
+    }
+}
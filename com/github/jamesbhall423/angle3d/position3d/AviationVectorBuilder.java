@@ -92,6 +92,6 @@ public class AviationVectorBuilder {
      * @return A {@code Vector3D} representing the aviation vector in Cartesian coordinates.
      */
     public Vector3D build(AviationMapping mapping) {
-        return new Vector3D(get(mapping.x()), get(mapping.y()), get(mapping.z()));
+        return mapping.fromAviation(longitude, latitude, altitude);
     }
 }
\ No newline at end of file
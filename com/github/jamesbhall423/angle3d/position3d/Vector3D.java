@@ -10,9 +10,9 @@ package com.github.jamesbhall423.angle3d.position3d;
  */
 public class Vector3D {
     public static final Vector3D ZERO_VECTOR = new Vector3D(0, 0, 0);
-    private double x;
-    private double y;
-    private double z;
+    private final double x;
+    private final double y;
+    private final double z;
 
     /**
      * Constructs a 3D vector with the specified coordinates.
@@ -54,6 +54,16 @@ public class Vector3D {
         return z;
     }
 
+    /**
+     * Returns the component with the given index: 0 for x, 1 for y and 2 for z.
+     *
+     * @param index the ordinal of the {@code CartesianAxis}
+     * @return the coordinate
+     */
+    double coordinate(int index) {
+        return index == 0 ? x : index == 1 ? y : z;
+    }
+
     /**
      * Adds the given vector to this vector element-wise.
      *
@@ -186,7 +196,7 @@ public class Vector3D {
      * @return the vertical coordinate
      */
     public double getVertical(AviationMapping mapping) {
-        return getCoordinate(mapping.vertical());
+        return mapping.getVertical(this);
     }
 
     /**
@@ -196,7 +206,7 @@ public class Vector3D {
      * @return the lateral coordinate
      */
     public double getLateral(AviationMapping mapping) {
-        return getCoordinate(mapping.lateral());
+        return mapping.getLateral(this);
     }
 
     /**
@@ -206,7 +216,7 @@ public class Vector3D {
      * @return the longitudinal coordinate
      */
     public double getLongitudinal(AviationMapping mapping) {
-        return getCoordinate(mapping.longitudinal());
+        return mapping.getLongitudinal(this);
     }
 
     /**
@@ -218,4 +228,14 @@ public class Vector3D {
     public double dotProduct(Vector3D other) {
         return x * other.x + y * other.y + z * other.z;
     }
+
+    /**
+     * Computes the cross product of this vector with another vector.
+     *
+     * @param other the vector on the right of the product
+     * @return the cross product, perpendicular to both vectors
+     */
+    public Vector3D crossProduct(Vector3D other) {
+        return new Vector3D(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x);
+    }
 }
@@ -0,0 +1,69 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+/**
+ * Advances a {@link RotatableBody} by one step of its equations of motion.
+ * <p>
+ * The orientation R of the principal axes changes as R' = R w, where w = I^-1 R^-1 L is the angular velocity in
+ * the body frame, and the global momentum L changes by the torque. Orientations are advanced by composing with
+ * {@code fromAxis} increments, so every scheme keeps the orientation a rotation, but increments do not commute,
+ * so classical Runge-Kutta methods do not apply directly. The geometric schemes here correct for this with
+ * commutators (Munthe-Kaas) or by composing their increments in order (Crouch-Grossman).
+ * </p>
+ * <p>
+ * Integrators read and write the body through {@link RotatableBody#getPrincipalAngle()},
+ * {@link RotatableBody#getRotationalMomentum()}, {@link RotatableBody#getElapsedTime()} and their setters, and
+ * evaluate torques with {@link RotatableBody#getTorqueGlobal(Angle3D, double)}; the schemes here evaluate them
+ * through the torque memory the body keeps during {@link RotatableBody#rotateForTime(double)} instead, so repeated
+ * samples are fetched once. A body is given its integrator with
+ * {@link RotatableBody#setIntegrator(AttitudeIntegrator)}, and the step size is still chosen by the body.
+ * A higher order allows a larger rotation threshold, or a looser adaptive tolerance, for the same error.
+ * </p>
+ *
+ * @author James Hall
+ */
+public interface AttitudeIntegrator {
+    /**
+     * The averaged-velocity scheme RotatableBody has always used, and the default. The velocity is sampled at the
+     * start, middle and end of the step and averaged with Simpson's weights, giving third-order orientations
+     * for torque-free bodies. Torques use the trapezoidal rule, which is second order.
+     */
+    AttitudeIntegrator SIMPSON = SimpsonIntegrator.INSTANCE;
+
+    /**
+     * The fourth-order Runge-Kutta-Munthe-Kaas method, which applies classical RK4 in the Lie algebra with
+     * commutator corrections, and RK4 to the momentum. Four velocity and torque evaluations per step.
+     */
+    AttitudeIntegrator RKMK4 = MuntheKaasIntegrator.GLOBAL;
+
+    /**
+     * The third-order Crouch-Grossman method, which composes one increment per stage instead of using commutators.
+     * Three velocity and torque evaluations per step.
+     */
+    AttitudeIntegrator CROUCH_GROSSMAN = CrouchGrossmanIntegrator.INSTANCE;
+
+    /**
+     * The fourth-order Munthe-Kaas method applied to the momentum in the body frame, which follows Euler's equations
+     * M' = M x w + R^-1 torque. Without torque the stages do not depend on the orientation, so a step converts the
+     * momentum into and out of the body frame once and builds one increment, instead of rotating the momentum
+     * at every evaluation. The global momentum is then only conserved to the accuracy of the method.
+     */
+    AttitudeIntegrator BODY_FRAME = MuntheKaasIntegrator.BODY_FRAME;
+
+    /**
+     * Returns the order of the method for torque-free bodies: the local error of a step grows as the step size
+     * to the power {@code order() + 1}.
+     *
+     * @return The order.
+     */
+    int order();
+
+    /**
+     * Advances the body by one step, updating its orientation, momentum and time.
+     *
+     * @param <T> The type of 3D angle representation used by the body.
+     * @param body The body.
+     * @param time The step size.
+     */
+    <T extends Angle3D<T>> void step(RotatableBody<T> body, double time);
+}
@@ -0,0 +1,62 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+import com.github.jamesbhall423.angle3d.angle3d.Angle3DSystem;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * The third-order Crouch-Grossman {@link AttitudeIntegrator}, with the coefficients of Crouch and Grossman (1993).
+ * <p>
+ * Each stage composes one increment per earlier velocity, in order, on the right of the orientation, so the
+ * method needs no commutators. The momentum takes the explicit Runge-Kutta steps of the same tableau, which is
+ * third order as well.
+ * </p>
+ *
+ * @author James Hall
+ */
+final class CrouchGrossmanIntegrator implements AttitudeIntegrator {
+    static final CrouchGrossmanIntegrator INSTANCE = new CrouchGrossmanIntegrator();
+
+    private static final double A21 = 3.0/4, A31 = 119.0/216, A32 = 17.0/108;
+    private static final double B1 = 13.0/51, B2 = -2.0/3, B3 = 24.0/17;
+    private static final double C2 = 3.0/4, C3 = 17.0/24;
+
+    private CrouchGrossmanIntegrator() {
+    }
+
+    @Override
+    public int order() {
+        return 3;
+    }
+
+    @Override
+    public <T extends Angle3D<T>> void step(RotatableBody<T> body, double time) {
+        Vector3D inertia = body.getRotationalInertia();
+        T angle = body.getPrincipalAngle();
+        Angle3DSystem<T> system = angle.getAngleSystem();
+        Vector3D momentum = body.getRotationalMomentum();
+        double start = body.getElapsedTime();
+        boolean torqued = body.torqueFetcher() != null;
+
+        Vector3D k1 = angle.inverseRotate(momentum).elementWiseDivide(inertia).scale(time);
+        Vector3D torque1 = torqued ? body.stageTorque(angle, start).scale(time) : Vector3D.ZERO_VECTOR;
+
+        T angle2 = angle.rotate(system.fromAxis(k1.scale(A21)));
+        Vector3D momentum2 = momentum.sum(torque1.scale(A21));
+        Vector3D k2 = angle2.inverseRotate(momentum2).elementWiseDivide(inertia).scale(time);
+        Vector3D torque2 = torqued ? body.stageTorque(angle2, start + C2*time).scale(time) : Vector3D.ZERO_VECTOR;
+
+        T angle3 = angle.rotate(system.fromAxis(k1.scale(A31))).rotate(system.fromAxis(k2.scale(A32)));
+        Vector3D momentum3 = momentum.sum(torque1.scale(A31)).sum(torque2.scale(A32));
+        Vector3D k3 = angle3.inverseRotate(momentum3).elementWiseDivide(inertia).scale(time);
+        Vector3D torque3 = torqued ? body.stageTorque(angle3, start + C3*time).scale(time) : Vector3D.ZERO_VECTOR;
+
+        body.setPrincipalAngle(angle.rotate(system.fromAxis(k1.scale(B1))).rotate(system.fromAxis(k2.scale(B2))).rotate(system.fromAxis(k3.scale(B3))));
+        if (torqued) body.setRotationalMomentum(momentum.sum(torque1.scale(B1)).sum(torque2.scale(B2)).sum(torque3.scale(B3)));
+        body.setTime(start + time);
+    }
+
+    @Override
+    public String toString() {
+        return "Crouch-Grossman";
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+/**
+ * Elliptic integrals of the first kind and the Jacobi elliptic functions, in terms of the parameter m = k^2.
+ * <p>
+ * The integrals use Carlson's symmetric form R_F, evaluated by the duplication theorem to full double precision
+ * for any parameter below 1. The functions sn, cn and dn use the arithmetic-geometric mean and descending Landen
+ * transformation (Abramowitz and Stegun 16.4), which converges quadratically, in about six iterations for a
+ * parameter of 1 - 1e-6. Arguments are reduced by the period 4K first, so large arguments keep their accuracy
+ * relative to the argument.
+ * </p>
+ *
+ * @author James Hall
+ */
+public final class JacobiElliptic {
+    // R_F stops when the arguments agree to this relative distance; the truncation error is below 1e-16
+    private static final double RF_TOLERANCE = 0.0025;
+    // The largest number of arithmetic-geometric mean iterations
+    static final int MAX_AGM = 16;
+
+    private JacobiElliptic() {
+    }
+
+    /**
+     * Computes Carlson's symmetric elliptic integral of the first kind,
+     * R_F(x, y, z) = 1/2 integral from 0 to infinity of dt / sqrt((t + x)(t + y)(t + z)).
+     *
+     * @param x The first argument.
+     * @param y The second argument.
+     * @param z The third argument.
+     * @return The integral.
+     * @throws IllegalArgumentException If an argument is negative or NaN, or more than one is zero.
+     */
+    public static double carlsonRF(double x, double y, double z) {
+        if (!(x >= 0 && y >= 0 && z >= 0) || x + y == 0 || x + z == 0 || y + z == 0) {
+            throw new IllegalArgumentException("Invalid arguments: " + x + ", " + y + ", " + z);
+        }
+        while (true) {
+            double mean = (x + y + z) / 3;
+            double dx = 1 - x / mean, dy = 1 - y / mean, dz = 1 - z / mean;
+            if (Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz))) < RF_TOLERANCE) {
+                double e2 = dx * dy - dz * dz;
+                double e3 = dx * dy * dz;
+                return (1 + (e2 / 24 - 0.1 - 3.0 / 44 * e3) * e2 + e3 / 14) / Math.sqrt(mean);
+            }
+            double sx = Math.sqrt(x), sy = Math.sqrt(y), sz = Math.sqrt(z);
+            double lambda = sx * (sy + sz) + sy * sz;
+            x = 0.25 * (x + lambda);
+            y = 0.25 * (y + lambda);
+            z = 0.25 * (z + lambda);
+        }
+    }
+
+    /**
+     * Computes the complete elliptic integral of the first kind, K(m), a quarter period of sn and cn.
+     *
+     * @param m The parameter, in [0, 1).
+     * @return The integral.
+     * @throws IllegalArgumentException If {@code m} is outside [0, 1).
+     */
+    public static double completeK(double m) {
+        if (!(m >= 0 && m < 1)) throw new IllegalArgumentException("Parameter must be in [0, 1): " + m);
+        return carlsonRF(0, 1 - m, 1);
+    }
+
+    /**
+     * Computes the incomplete elliptic integral of the first kind, F(phi | m), the inverse of the amplitude.
+     * For any angle, F(phi + j pi | m) = F(phi | m) + 2 j K(m).
+     *
+     * @param phi The amplitude, in radians.
+     * @param m The parameter, in [0, 1).
+     * @return The integral.
+     * @throws IllegalArgumentException If {@code m} is outside [0, 1).
+     */
+    public static double incompleteF(double phi, double m) {
+        double turns = Math.rint(phi / Math.PI);
+        double reduced = phi - turns * Math.PI;
+        double sin = Math.sin(reduced), cos = Math.cos(reduced);
+        // 1 - m sin^2 is summed as cos^2 + (1 - m) sin^2, which does not cancel near m = 1
+        double partial = sin * carlsonRF(cos * cos, cos * cos + (1 - m) * sin * sin, 1);
+        return turns == 0 ? partial : partial + 2 * turns * completeK(m);
+    }
+
+    /**
+     * Computes the Jacobi elliptic functions sn, cn and dn of one argument together.
+     *
+     * @param u The argument.
+     * @param m The parameter, in [0, 1).
+     * @param dest The array receiving sn at {@code offset}, cn at {@code offset + 1} and dn at {@code offset + 2}.
+     * @param offset The index of sn in {@code dest}.
+     * @throws IllegalArgumentException If {@code m} is outside [0, 1).
+     */
+    public static void snCnDn(double u, double m, double[] dest, int offset) {
+        double period = 4 * completeK(m);
+        snCnDnReduced(u - period * Math.floor(u / period), m, dest, offset);
+    }
+
+    /**
+     * Computes sn, cn and dn as {@link #snCnDn(double, double, double[], int)} does, for an argument the caller has
+     * already reduced to a period or so.
+     */
+    static void snCnDnReduced(double u, double m, double[] dest, int offset) {
+        double[] a = new double[MAX_AGM + 1];
+        double[] c = new double[MAX_AGM + 1];
+        snCnDnReduced(u, m, landen(m, a, c), a, c, dest, offset);
+    }
+
+    /**
+     * Fills the arithmetic-geometric mean sequences a and c of the parameter, with room for {@code MAX_AGM + 1} terms,
+     * and returns the index of the last term. They depend only on the parameter, so callers evaluating many arguments
+     * compute them once.
+     */
+    static int landen(double m, double[] a, double[] c) {
+        a[0] = 1;
+        c[0] = Math.sqrt(m);
+        double b = Math.sqrt(1 - m);
+        int n = 0;
+        while (n < MAX_AGM && Math.abs(c[n]) > 1e-16 * a[n]) {
+            a[n + 1] = 0.5 * (a[n] + b);
+            c[n + 1] = 0.5 * (a[n] - b);
+            b = Math.sqrt(a[n] * b);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Computes sn, cn and dn of a reduced argument from the sequences of {@link #landen(double, double[], double[])}.
+     */
+    static void snCnDnReduced(double u, double m, int levels, double[] a, double[] c, double[] dest, int offset) {
+        double phi = Math.scalb(a[levels] * u, levels);
+        for (int level = levels; level > 0; level--) {
+            phi = 0.5 * (phi + Math.asin(c[level] / a[level] * Math.sin(phi)));
+        }
+        double cos = Math.cos(phi);
+        dest[offset] = Math.sin(phi);
+        dest[offset + 1] = cos;
+        // dn^2 = 1 - m sn^2 = (1 - m) + m cn^2, a sum of non-negative terms with no cancellation near m = 1
+        dest[offset + 2] = Math.sqrt((1 - m) + m * cos * cos);
+    }
+}
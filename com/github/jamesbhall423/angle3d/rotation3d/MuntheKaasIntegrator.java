@@ -0,0 +1,127 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+import com.github.jamesbhall423.angle3d.angle3d.Angle3DSystem;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * The fourth-order Runge-Kutta-Munthe-Kaas {@link AttitudeIntegrator}, on the global or the body-frame momentum.
+ * <p>
+ * With increments k = h w composed on the right of the orientation, the stages are
+ * R exp(k1 / 2), R exp(k2 / 2 + k1 x k2 / 8) and R exp(k3), and the step ends at
+ * R exp(k1 / 6 + k2 / 3 + k3 / 3 + k4 / 6 + k1 x k4 / 12), while the momentum takes the matching RK4 stages.
+ * </p>
+ *
+ * @author James Hall
+ */
+final class MuntheKaasIntegrator implements AttitudeIntegrator {
+    static final MuntheKaasIntegrator GLOBAL = new MuntheKaasIntegrator(false);
+    static final MuntheKaasIntegrator BODY_FRAME = new MuntheKaasIntegrator(true);
+
+    private final boolean bodyFrame;
+
+    private MuntheKaasIntegrator(boolean bodyFrame) {
+        this.bodyFrame = bodyFrame;
+    }
+
+    @Override
+    public int order() {
+        return 4;
+    }
+
+    @Override
+    public <T extends Angle3D<T>> void step(RotatableBody<T> body, double time) {
+        if (bodyFrame) stepBodyFrame(body, time);
+        else stepGlobal(body, time);
+    }
+
+    private static <T extends Angle3D<T>> void stepGlobal(RotatableBody<T> body, double time) {
+        Vector3D inertia = body.getRotationalInertia();
+        T angle = body.getPrincipalAngle();
+        Angle3DSystem<T> system = angle.getAngleSystem();
+        Vector3D momentum = body.getRotationalMomentum();
+        double start = body.getElapsedTime();
+        boolean torqued = body.torqueFetcher() != null;
+
+        Vector3D k1 = angle.inverseRotate(momentum).elementWiseDivide(inertia).scale(time);
+        Vector3D torque1 = torqued ? body.stageTorque(angle, start) : Vector3D.ZERO_VECTOR;
+
+        T angle2 = angle.rotate(system.fromAxis(k1.scale(0.5)));
+        Vector3D momentum2 = momentum.sum(torque1.scale(time/2));
+        Vector3D k2 = angle2.inverseRotate(momentum2).elementWiseDivide(inertia).scale(time);
+        Vector3D torque2 = torqued ? body.stageTorque(angle2, start + time/2) : Vector3D.ZERO_VECTOR;
+
+        T angle3 = angle.rotate(system.fromAxis(k2.scale(0.5).sum(k1.crossProduct(k2).scale(0.125))));
+        Vector3D momentum3 = momentum.sum(torque2.scale(time/2));
+        Vector3D k3 = angle3.inverseRotate(momentum3).elementWiseDivide(inertia).scale(time);
+        Vector3D torque3 = torqued ? body.stageTorque(angle3, start + time/2) : Vector3D.ZERO_VECTOR;
+
+        T angle4 = angle.rotate(system.fromAxis(k3));
+        Vector3D momentum4 = momentum.sum(torque3.scale(time));
+        Vector3D k4 = angle4.inverseRotate(momentum4).elementWiseDivide(inertia).scale(time);
+        Vector3D torque4 = torqued ? body.stageTorque(angle4, start + time) : Vector3D.ZERO_VECTOR;
+
+        body.setPrincipalAngle(angle.rotate(system.fromAxis(increment(k1, k2, k3, k4))));
+        if (torqued) body.setRotationalMomentum(momentum.sum(average(torque1, torque2, torque3, torque4).scale(time)));
+        body.setTime(start + time);
+    }
+
+    private static <T extends Angle3D<T>> void stepBodyFrame(RotatableBody<T> body, double time) {
+        Vector3D inertia = body.getRotationalInertia();
+        T angle = body.getPrincipalAngle();
+        Angle3DSystem<T> system = angle.getAngleSystem();
+        double start = body.getElapsedTime();
+        TorqueFetcher<T> fetcher = body.torqueFetcher();
+        Vector3D local = angle.inverseRotate(body.getRotationalMomentum());
+
+        // Orientations of the stages are only needed to evaluate torques
+        Vector3D velocity1 = local.elementWiseDivide(inertia);
+        Vector3D change1 = local.crossProduct(velocity1);
+        if (fetcher != null) change1 = change1.sum(angle.inverseRotate(body.stageTorque(angle, start)));
+        Vector3D k1 = velocity1.scale(time);
+
+        Vector3D local2 = local.sum(change1.scale(time/2));
+        Vector3D velocity2 = local2.elementWiseDivide(inertia);
+        Vector3D change2 = local2.crossProduct(velocity2);
+        if (fetcher != null) {
+            T angle2 = angle.rotate(system.fromAxis(k1.scale(0.5)));
+            change2 = change2.sum(angle2.inverseRotate(body.stageTorque(angle2, start + time/2)));
+        }
+        Vector3D k2 = velocity2.scale(time);
+
+        Vector3D local3 = local.sum(change2.scale(time/2));
+        Vector3D velocity3 = local3.elementWiseDivide(inertia);
+        Vector3D change3 = local3.crossProduct(velocity3);
+        if (fetcher != null) {
+            T angle3 = angle.rotate(system.fromAxis(k2.scale(0.5).sum(k1.crossProduct(k2).scale(0.125))));
+            change3 = change3.sum(angle3.inverseRotate(body.stageTorque(angle3, start + time/2)));
+        }
+        Vector3D k3 = velocity3.scale(time);
+
+        Vector3D local4 = local.sum(change3.scale(time));
+        Vector3D velocity4 = local4.elementWiseDivide(inertia);
+        Vector3D change4 = local4.crossProduct(velocity4);
+        if (fetcher != null) {
+            T angle4 = angle.rotate(system.fromAxis(k3));
+            change4 = change4.sum(angle4.inverseRotate(body.stageTorque(angle4, start + time)));
+        }
+        Vector3D k4 = velocity4.scale(time);
+
+        T end = angle.rotate(system.fromAxis(increment(k1, k2, k3, k4)));
+        body.setPrincipalAngle(end);
+        body.setRotationalMomentum(end.rotate(local.sum(average(change1, change2, change3, change4).scale(time))));
+        body.setTime(start + time);
+    }
+
+    private static Vector3D increment(Vector3D k1, Vector3D k2, Vector3D k3, Vector3D k4) {
+        return average(k1, k2, k3, k4).sum(k1.crossProduct(k4).scale(1.0/12));
+    }
+
+    private static Vector3D average(Vector3D first, Vector3D second, Vector3D third, Vector3D fourth) {
+        return first.sum(second.scale(2)).sum(third.scale(2)).sum(fourth).scale(1.0/6);
+    }
+
+    @Override
+    public String toString() {
+        return bodyFrame ? "body-frame RKMK4" : "RKMK4";
+    }
+}
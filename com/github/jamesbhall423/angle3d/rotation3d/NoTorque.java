@@ -0,0 +1,26 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * The {@link TorqueFetcher} returned by {@link TorqueFetcher#none()}.
+ *
+ * @author James Hall
+ */
+@SuppressWarnings("rawtypes")
+final class NoTorque implements TorqueFetcher {
+    static final NoTorque INSTANCE = new NoTorque();
+
+    private NoTorque() {
+    }
+
+    @Override
+    public Vector3D getExternalTorque(Angle3D angle, double time) {
+        return Vector3D.ZERO_VECTOR;
+    }
+
+    @Override
+    public String toString() {
+        return "no torque";
+    }
+}
@@ -0,0 +1,432 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+import com.github.jamesbhall423.angle3d.angle3d.MutableQuaternion;
+import com.github.jamesbhall423.angle3d.angle3d.Quaternion;
+import com.github.jamesbhall423.angle3d.angle3d.QuaternionAngle3D;
+import com.github.jamesbhall423.angle3d.angle3d.QuaternionSystem;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * A {@link RotatableBody} specialized for quaternion angles, whose orientation and momentum are held in primitive fields.
+ * <p>
+ * With the default {@link AttitudeIntegrator#SIMPSON} integrator and no adaptive tolerance,
+ * {@link #rotateForTime(double)} carries out the same integration as the generic body, operation for operation,
+ * with the scratch quaternions, matrices and vectors kept in the body, so each step allocates nothing. The results
+ * are identical to those of a {@code RotatableBody<QuaternionAngle3D>} with the same state, rotation threshold and
+ * torque fetcher, whose angles belong to {@link QuaternionSystem#INSTANCE}. When a torque fetcher is set, each torque
+ * evaluation creates the angle passed to it. Other integrators, adaptive stepping and closed-form propagation are
+ * carried out by the generic body and allocate.
+ * </p>
+ * <p>
+ * The body keeps only the quaternion components, so angles of other systems given to {@link #setAngle(QuaternionAngle3D)}
+ * are converted to {@link QuaternionSystem#INSTANCE}: the body composes as that system does, and {@link #getAngle()}
+ * returns angles of that system.
+ * </p>
+ * <p>
+ * The orientation starts at the identity.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class QuaternionRotatableBody extends RotatableBody<QuaternionAngle3D> {
+    private final double inertiaX;
+    private final double inertiaY;
+    private final double inertiaZ;
+
+    // The orientation, with a non-negative real component, and its rotation matrix
+    private double real = 1.0;
+    private double i;
+    private double j;
+    private double k;
+    private final double[] matrix = new double[9];
+
+    // The angular momentum in global coordinates
+    private double momentumX;
+    private double momentumY;
+    private double momentumZ;
+
+    // Scratch space for rotateForTime
+    private final MutableQuaternion shift = new MutableQuaternion();
+    private final MutableQuaternion increment = new MutableQuaternion();
+    private final MutableQuaternion rotated = new MutableQuaternion();
+    private final double[] shiftMatrix = new double[9];
+    private final double[] rotatedMatrix = new double[9];
+    private final double[] torque = new double[3];
+    // The last torque fetched, and the orientation and time it was fetched for
+    private final double[] memoTorque = new double[3];
+    private final double[] memoKey = new double[5];
+    private boolean memoValid;
+    // Starting, quarter, half and full step velocities, then a temporary vector
+    private final double[] velocity = new double[15];
+    private static final int START = 0;
+    private static final int QUARTER = 3;
+    private static final int HALF = 6;
+    private static final int FULL = 9;
+    private static final int TEMP = 12;
+
+    /**
+     * Constructs a new {@code QuaternionRotatableBody} with the specified rotational inertia.
+     *
+     * @param rotationalInertia The moment of inertia along the principal axes. All components must be nonzero.
+     * @throws IllegalArgumentException If any component of {@code rotationalInertia} is zero.
+     */
+    public QuaternionRotatableBody(Vector3D rotationalInertia) {
+        super(rotationalInertia);
+        inertiaX = rotationalInertia.x();
+        inertiaY = rotationalInertia.y();
+        inertiaZ = rotationalInertia.z();
+        updateMatrix();
+    }
+
+    private void updateMatrix() {
+        rotated.set(real, i, j, k).rotationMatrix(matrix, 0);
+    }
+
+    /**
+     * Sets the angular momentum of the body in global coordinates.
+     *
+     * @param rotationalMomentumGlobal The new rotational momentum.
+     */
+    @Override
+    public void setRotationalMomentum(Vector3D rotationalMomentumGlobal) {
+        momentumX = rotationalMomentumGlobal.x();
+        momentumY = rotationalMomentumGlobal.y();
+        momentumZ = rotationalMomentumGlobal.z();
+    }
+
+    /**
+     * Returns the current angular momentum in global coordinates.
+     *
+     * @return The rotational momentum.
+     */
+    @Override
+    public Vector3D getRotationalMomentum() {
+        return new Vector3D(momentumX, momentumY, momentumZ);
+    }
+
+    /**
+     * Applies an angular acceleration to the body, modifying its rotational momentum.
+     *
+     * @param accel The angular acceleration to apply.
+     */
+    @Override
+    public void accelerateAngular(Vector3D accel) {
+        momentumX = momentumX + accel.x();
+        momentumY = momentumY + accel.y();
+        momentumZ = momentumZ + accel.z();
+    }
+
+    /**
+     * Sets the global-to-local orientation of the body.
+     *
+     * @param angle The new orientation.
+     */
+    @Override
+    public void setAngle(QuaternionAngle3D angle) {
+        Quaternion q = angle.getQuaternion();
+        real = q.real();
+        i = q.i();
+        j = q.j();
+        k = q.k();
+        updateMatrix();
+    }
+
+    /**
+     * Returns the global-to-local orientation of the body.
+     *
+     * @return A new angle holding the current orientation.
+     */
+    @Override
+    public QuaternionAngle3D getAngle() {
+        return new QuaternionAngle3D(new Quaternion(real, i, j, k));
+    }
+
+    /**
+     * Sets the orientation of the principal axes, which for this class is the orientation of the body.
+     *
+     * @param angle The new orientation.
+     */
+    @Override
+    public void setPrincipalAngle(QuaternionAngle3D angle) {
+        setAngle(angle);
+    }
+
+    /**
+     * Returns the orientation of the principal axes, which for this class is the orientation of the body.
+     *
+     * @return A new angle holding the current orientation.
+     */
+    @Override
+    public QuaternionAngle3D getPrincipalAngle() {
+        return getAngle();
+    }
+
+    /**
+     * Returns whether two angles hold the same quaternion, since {@link #getPrincipalAngle()} creates a new angle
+     * on every call.
+     *
+     * @return True if the quaternions are equal component by component.
+     */
+    @Override
+    boolean sameAngle(QuaternionAngle3D first, QuaternionAngle3D second) {
+        if (first == second) return true;
+        if (first == null || second == null) return false;
+        Quaternion a = first.getQuaternion(), b = second.getQuaternion();
+        return a.real() == b.real() && a.i() == b.i() && a.j() == b.j() && a.k() == b.k();
+    }
+
+    /**
+     * Rotates the body by the specified external angle.
+     *
+     * @param externalAngle The angle by which to rotate the body.
+     */
+    @Override
+    public void rotate(QuaternionAngle3D externalAngle) {
+        setAngle(externalAngle.rotate(getAngle()));
+    }
+
+    /**
+     * Rotates the body forward in time by the given duration, with the integration scheme of
+     * {@link RotatableBody#rotateForTime(double)}. Adaptive stepping, closed-form propagation and integrators other than
+     * {@link AttitudeIntegrator#SIMPSON}, are carried out by the generic body through the accessors of this class,
+     * and allocate; adaptive steps with the default integrator still take the allocation-free step.
+     *
+     * @param time The duration to rotate the body for.
+     */
+    @Override
+    public void rotateForTime(double time) {
+        if (adaptiveTolerance() > 0 || propagatesAnalytically() || getIntegrator() != AttitudeIntegrator.SIMPSON) {
+            super.rotateForTime(time);
+            return;
+        }
+        startRotation(time);
+        try {
+            TorqueFetcher<QuaternionAngle3D> fetcher = torqueFetcher();
+            while (time > 0) {
+                double elapsed = getElapsedTime();
+                velocityLocal(fetcher, elapsed, real, i, j, k, matrix, 0.0, START);
+                double timeUse = useTime(fetcher, elapsed, time);
+                advance(fetcher, elapsed, timeUse);
+                countStep();
+                time -= timeUse;
+            }
+        } finally {
+            finishRotation();
+        }
+    }
+
+    /**
+     * Returns the size of the next step without an adaptive tolerance, as {@link RotatableBody#stepSize(double)} does.
+     *
+     * @param maxTime The longest step allowed.
+     * @return The step size, at most {@code maxTime}.
+     */
+    @Override
+    public double stepSize(double maxTime) {
+        TorqueFetcher<QuaternionAngle3D> fetcher = torqueFetcher();
+        double elapsed = getElapsedTime();
+        velocityLocal(fetcher, elapsed, real, i, j, k, matrix, 0.0, START);
+        return useTime(fetcher, elapsed, maxTime);
+    }
+
+    /**
+     * Takes one step of the {@link AttitudeIntegrator#SIMPSON} scheme without allocating.
+     *
+     * @param time The step size.
+     */
+    @Override
+    void simpsonStep(double time) {
+        TorqueFetcher<QuaternionAngle3D> fetcher = torqueFetcher();
+        double elapsed = getElapsedTime();
+        velocityLocal(fetcher, elapsed, real, i, j, k, matrix, 0.0, START);
+        advance(fetcher, elapsed, time);
+    }
+
+    /**
+     * Takes a step from the starting velocity already stored in {@code velocity}.
+     */
+    private void advance(TorqueFetcher<QuaternionAngle3D> fetcher, double elapsed, double timeUse) {
+        double[] velocity = this.velocity;
+        torque(fetcher, real, i, j, k, elapsed + 0);
+        double halfTime = timeUse / 2;
+        double startTorqueX = halfTime * torque[0];
+        double startTorqueY = halfTime * torque[1];
+        double startTorqueZ = halfTime * torque[2];
+        velocityAfterRotation(fetcher, elapsed, START, timeUse / 4, QUARTER);
+        velocityAfterRotation(fetcher, elapsed, QUARTER, timeUse / 2, HALF);
+        velocityAfterRotation(fetcher, elapsed, HALF, timeUse, FULL);
+        // Simpson's rule, as in RotatableBody.estimateAverageVelocity
+        double midFactor = 4;
+        double factor = 1.0 / (2.0 + midFactor);
+        double averageX = factor * ((velocity[START] + midFactor * velocity[HALF]) + velocity[FULL]);
+        double averageY = factor * ((velocity[START + 1] + midFactor * velocity[HALF + 1]) + velocity[FULL + 1]);
+        double averageZ = factor * ((velocity[START + 2] + midFactor * velocity[HALF + 2]) + velocity[FULL + 2]);
+        increment.setExp(timeUse * averageX, timeUse * averageY, timeUse * averageZ);
+        rotated.setProduct(real, i, j, k, increment.real(), increment.i(), increment.j(), increment.k()).normalize();
+        real = rotated.real();
+        i = rotated.i();
+        j = rotated.j();
+        k = rotated.k();
+        rotated.rotationMatrix(matrix, 0);
+        elapsed += timeUse;
+        setTime(elapsed);
+        torque(fetcher, real, i, j, k, elapsed + 0);
+        momentumX = (momentumX + startTorqueX) + halfTime * torque[0];
+        momentumY = (momentumY + startTorqueY) + halfTime * torque[1];
+        momentumZ = (momentumZ + startTorqueZ) + halfTime * torque[2];
+    }
+
+    /**
+     * Estimates the number of steps {@link #rotateForTime(double)} takes to advance by the given duration,
+     * assuming the current angular velocity and acceleration hold throughout.
+     *
+     * @param time The duration.
+     * @return The estimated number of steps, or 0 if {@code time} is not positive.
+     */
+    @Override
+    public int estimateSubsteps(double time) {
+        if (adaptiveTolerance() > 0 || propagatesAnalytically()) return super.estimateSubsteps(time);
+        if (!(time > 0)) return 0;
+        TorqueFetcher<QuaternionAngle3D> fetcher = torqueFetcher();
+        double elapsed = getElapsedTime();
+        velocityLocal(fetcher, elapsed, real, i, j, k, matrix, 0.0, START);
+        double timeUse = useTime(fetcher, elapsed, time);
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(time / timeUse));
+    }
+
+    /**
+     * Stores the global torque on the body at the given orientation and time in {@code torque}. While a rotation runs,
+     * the last torque fetched is remembered and the fetches are counted, as in RotatableBody.stageTorque.
+     */
+    private void torque(TorqueFetcher<QuaternionAngle3D> fetcher, double real, double i, double j, double k, double time) {
+        if (fetcher == null) {
+            torque[0] = 0.0;
+            torque[1] = 0.0;
+            torque[2] = 0.0;
+            return;
+        }
+        boolean rotating = isRotating();
+        double[] key = memoKey;
+        if (rotating && memoValid && key[0] == time && key[1] == real && key[2] == i && key[3] == j && key[4] == k) {
+            torque[0] = memoTorque[0];
+            torque[1] = memoTorque[1];
+            torque[2] = memoTorque[2];
+            countTorque(true);
+            return;
+        }
+        Vector3D value = fetcher.getExternalTorque(new QuaternionAngle3D(new Quaternion(real, i, j, k)), time);
+        if (!rotating) {
+            torque[0] = value.x();
+            torque[1] = value.y();
+            torque[2] = value.z();
+            return;
+        }
+        countTorque(false);
+        torque[0] = memoTorque[0] = value.x();
+        torque[1] = memoTorque[1] = value.y();
+        torque[2] = memoTorque[2] = value.z();
+        key[0] = time;
+        key[1] = real;
+        key[2] = i;
+        key[3] = j;
+        key[4] = k;
+        memoValid = true;
+    }
+
+    /**
+     * Starts a rotation as the generic body does, and forgets the torque remembered by the allocation-free step too,
+     * whichever path carries out the rotation.
+     */
+    @Override
+    void startRotation(double time) {
+        super.startRotation(time);
+        memoValid = false;
+    }
+
+    /**
+     * Sets the torque fetcher, clearing the remembered torque.
+     *
+     * @param torqueFetcher The torque fetcher, or null or {@link TorqueFetcher#none()} for a body without torque.
+     */
+    @Override
+    public void setTorqueFetcher(TorqueFetcher<QuaternionAngle3D> torqueFetcher) {
+        super.setTorqueFetcher(torqueFetcher);
+        memoValid = false;
+    }
+
+    /**
+     * Stores in {@code velocity} at {@code dest} the local angular velocity at the given orientation, whose rotation
+     * matrix is {@code m}, after {@code delayTime}, with the momentum advanced by the torque at the midpoint.
+     */
+    private void velocityLocal(TorqueFetcher<QuaternionAngle3D> fetcher, double elapsed, double real, double i, double j, double k,
+                               double[] m, double delayTime, int dest) {
+        torque(fetcher, real, i, j, k, elapsed + delayTime / 2);
+        double x = momentumX + delayTime * torque[0];
+        double y = momentumY + delayTime * torque[1];
+        double z = momentumZ + delayTime * torque[2];
+        velocity[dest] = (m[0] * x + m[3] * y + m[6] * z) / inertiaX;
+        velocity[dest + 1] = (m[1] * x + m[4] * y + m[7] * z) / inertiaY;
+        velocity[dest + 2] = (m[2] * x + m[5] * y + m[8] * z) / inertiaZ;
+    }
+
+    /**
+     * Returns the step size for the starting velocity, as RotatableBody.getUseTime does.
+     */
+    private double useTime(TorqueFetcher<QuaternionAngle3D> fetcher, double elapsed, double maxTime) {
+        double threshold = rotationThreshold();
+        double vx = velocity[START], vy = velocity[START + 1], vz = velocity[START + 2];
+        double maxVelocity = Math.sqrt(vx * vx + vy * vy + vz * vz);
+        double velocityTime = maxVelocity < 1e-6 ? maxTime : Math.min(threshold / maxVelocity, maxTime);
+        torque(fetcher, real, i, j, k, elapsed + 0);
+        double x = torque[0], y = torque[1], z = torque[2];
+        double ax = (matrix[0] * x + matrix[3] * y + matrix[6] * z) / inertiaX;
+        double ay = (matrix[1] * x + matrix[4] * y + matrix[7] * z) / inertiaY;
+        double az = (matrix[2] * x + matrix[5] * y + matrix[8] * z) / inertiaZ;
+        double accel = Math.sqrt(ax * ax + ay * ay + az * az);
+        double accelTime = accel < 1e-6 ? maxTime : Math.min(threshold / Math.sqrt(accel), maxTime);
+        return Math.min(velocityTime, accelTime);
+    }
+
+    /**
+     * Stores at {@code dest} the velocity after rotating at the velocity at {@code source} for the given time,
+     * corrected back to the frame halfway through the rotation, as RotatableBody.fetchVelocityAfterRotation does.
+     */
+    private void velocityAfterRotation(TorqueFetcher<QuaternionAngle3D> fetcher, double elapsed, int source, double time, int dest) {
+        double vx = velocity[source], vy = velocity[source + 1], vz = velocity[source + 2];
+        double halfTime = time / 2;
+        shift.setExp(halfTime * vx, halfTime * vy, halfTime * vz).rotationMatrix(shiftMatrix, 0);
+        increment.setExp(time * vx, time * vy, time * vz);
+        rotated.setProduct(real, i, j, k, increment.real(), increment.i(), increment.j(), increment.k()).normalize();
+        rotated.rotationMatrix(rotatedMatrix, 0);
+        velocityLocal(fetcher, elapsed, rotated.real(), rotated.i(), rotated.j(), rotated.k(), rotatedMatrix, time, TEMP);
+        double x = velocity[TEMP], y = velocity[TEMP + 1], z = velocity[TEMP + 2];
+        double[] m = shiftMatrix;
+        velocity[dest] = m[0] * x + m[1] * y + m[2] * z;
+        velocity[dest + 1] = m[3] * x + m[4] * y + m[5] * z;
+        velocity[dest + 2] = m[6] * x + m[7] * y + m[8] * z;
+    }
+
+    /**
+     * Computes the rotational kinetic energy of the body.
+     *
+     * @return The rotational kinetic energy.
+     */
+    @Override
+    public double rotationalEnergy() {
+        double x = momentumX, y = momentumY, z = momentumZ;
+        double localX = matrix[0] * x + matrix[3] * y + matrix[6] * z;
+        double localY = matrix[1] * x + matrix[4] * y + matrix[7] * z;
+        double localZ = matrix[2] * x + matrix[5] * y + matrix[8] * z;
+        double sum = localX * localX / inertiaX + localY * localY / inertiaY + localZ * localZ / inertiaZ;
+        return 0.5 * sum;
+    }
+
+    /**
+     * Returns a string representation of the {@code QuaternionRotatableBody}.
+     *
+     * @return A string describing the rotatable body.
+     */
+    @Override
+    public String toString() {
+        return "QuaternionRotatableBody: " + getAngle() + " " + getRotationalMomentum() + " "
+               + new Vector3D(inertiaX, inertiaY, inertiaZ) + " " + rotationThreshold();
+    }
+}
@@ -7,6 +7,14 @@ import com.github.jamesbhall423.angle3d.position3d.Vector3D;
  * @param <T> The type of 3D angle representation used, which must extend {@link Angle3D}.
  */
 public class RotatableBody<T extends Angle3D<T>> {
+    /** The largest rotation, in radians, of a step with an adaptive tolerance. */
+    public static final double MAX_ADAPTIVE_ROTATION = 0.5;
+
+    // The largest factor by which an adaptive step grows or shrinks
+    private static final double MAX_ADAPTIVE_GROWTH = 4;
+
+    /** The largest relative difference between two principal moments for a body to count as axisymmetric. */
+    public static final double AXISYMMETRY_TOLERANCE = 1e-12;
     
     /** 
      * A representation of the private axis in global coordinates
@@ -27,8 +35,49 @@ public class RotatableBody<T extends Angle3D<T>> {
     /** The current time. */
     private double timeElapsed = 0.0;
 
-    /** The current time. */
-    private TorqueFetcher<T> torqueFetcher = (angle, time) -> Vector3D.ZERO_VECTOR;
+    /** The error tolerance of adaptive stepping, or 0 if steps follow the rotation threshold. */
+    private double adaptiveTolerance = 0.0;
+
+    /** The step size proposed by the last adaptive step, or 0 if there is none. */
+    private double adaptiveStep = 0.0;
+
+    /** The number of steps taken by rotateForTime. */
+    private long stepCount = 0;
+
+    /** The source of the external torque. */
+    private TorqueFetcher<T> torqueFetcher = TorqueFetcher.none();
+
+    /** Whether rotateForTime is running, which is when stage torques are remembered and counted. */
+    private boolean rotating = false;
+
+    /** The last torque fetched, with the principal angle and time it was fetched for, or null if there is none. */
+    private Vector3D memoTorque;
+    private T memoAngle;
+    private double memoTime;
+
+    /** Calls to the torque fetcher, torques answered by the memo, and the duration rotateForTime advanced by. */
+    private long torqueEvaluations = 0;
+    private long torqueMemoHits = 0;
+    private double simulatedTime = 0.0;
+
+    /** The scheme advancing each step. */
+    private AttitudeIntegrator integrator = AttitudeIntegrator.SIMPSON;
+
+    /** Whether torque-free motion is propagated in closed form. */
+    private boolean analyticPropagation = false;
+
+    /** The unit symmetry axis in local coordinates, or null if no two principal moments are equal. */
+    private final Vector3D symmetryAxis;
+
+    /** The moments of inertia across and along the symmetry axis. */
+    private final double transverseInertia;
+    private final double axialInertia;
+
+    /** The torque-free solution last used, and the state it was last used to produce. */
+    private TorqueFreeSolution<T> solution;
+    private T solutionAngle;
+    private Vector3D solutionMomentum;
+    private double solutionTime;
 
     
     /**
@@ -41,6 +90,27 @@ public class RotatableBody<T extends Angle3D<T>> {
         if (rotationalInertia.x()==0||rotationalInertia.y()==0||rotationalInertia.z()==0) throw new IllegalArgumentException("Rotatable body must have inertia in all three dimensions.");
         this.rotationalInertia = rotationalInertia;
         this.rotationalMomentumGlobal = new Vector3D(0, 0, 0);
+        double x = rotationalInertia.x(), y = rotationalInertia.y(), z = rotationalInertia.z();
+        if (equalMoments(x, y)) {
+            symmetryAxis = new Vector3D(0, 0, 1);
+            transverseInertia = 0.5 * (x + y);
+            axialInertia = z;
+        } else if (equalMoments(y, z)) {
+            symmetryAxis = new Vector3D(1, 0, 0);
+            transverseInertia = 0.5 * (y + z);
+            axialInertia = x;
+        } else if (equalMoments(x, z)) {
+            symmetryAxis = new Vector3D(0, 1, 0);
+            transverseInertia = 0.5 * (x + z);
+            axialInertia = y;
+        } else {
+            symmetryAxis = null;
+            transverseInertia = 0;
+            axialInertia = 0;
+        }
+    }
+    private static boolean equalMoments(double first, double second) {
+        return Math.abs(first - second) <= AXISYMMETRY_TOLERANCE * Math.max(Math.abs(first), Math.abs(second));
     }
     /**
      * Returns the rotation threshold, which determines the maximum angle change before subdividing rotations.
@@ -84,6 +154,41 @@ public class RotatableBody<T extends Angle3D<T>> {
     public T getAngle() {
         return angle;
     }
+    /**
+     * Returns the orientation of the principal axes, which integrators advance. This is the orientation
+     * {@link #getAngle()} returns, unless a subclass maps between the two, as {@code CrossRotatableBody} does.
+     *
+     * @return The orientation of the principal axes.
+     */
+    public T getPrincipalAngle() {
+        return angle;
+    }
+    /**
+     * Sets the orientation of the principal axes.
+     *
+     * @param angle The new orientation of the principal axes.
+     */
+    public void setPrincipalAngle(T angle) {
+        this.angle = angle;
+    }
+    /**
+     * Returns the orientation {@link #getAngle()} would return with the principal axes at the given orientation.
+     * Subclasses that map between the two override this along with {@link #getAngle()} and {@link #setAngle(Angle3D)}.
+     *
+     * @param principalAngle The orientation of the principal axes.
+     * @return The public orientation.
+     */
+    protected T externalAngle(T principalAngle) {
+        return principalAngle;
+    }
+    /**
+     * Returns the rotational inertia along the principal axes.
+     *
+     * @return The rotational inertia.
+     */
+    public Vector3D getRotationalInertia() {
+        return rotationalInertia;
+    }
     /**
      * Returns the elapsed time.
      *
@@ -102,11 +207,184 @@ public class RotatableBody<T extends Angle3D<T>> {
     }
     /**
      * Sets the torque fetcher.
+     * <p>
+     * Within one call to {@link #rotateForTime(double)} the fetcher should depend only on the angle and time it is
+     * given. During the call the body remembers the last torque fetched, keyed by the time and the identity of the
+     * orientation object, and answers a request for the same pair from memory: each step asks for the torque at its
+     * start up to three times, and the torque at its end is the torque at the start of the next step. The memory
+     * lasts only for the call, so a fetcher reading state that changes between calls sees the new state, and
+     * {@link #getTorqueGlobal(double)} always calls the fetcher.
+     * </p>
      *
-     * @param time The torque fetcher.
+     * @param time The torque fetcher, or null or {@link TorqueFetcher#none()} for a body without torque.
      */
     public void setTorqueFetcher(TorqueFetcher<T> torqueFetcher) {
-       this.torqueFetcher = torqueFetcher;
+       this.torqueFetcher = torqueFetcher == null ? TorqueFetcher.none() : torqueFetcher;
+       this.memoTorque = null;
+       this.memoAngle = null;
+    }
+    /**
+     * Returns the number of times {@link #rotateForTime(double)} has called the torque fetcher since the counters
+     * were last reset.
+     *
+     * @return The number of torque evaluations.
+     */
+    public long getTorqueEvaluations() {
+        return torqueEvaluations;
+    }
+    /**
+     * Returns the number of torques answered from memory instead of calling the fetcher, since the counters
+     * were last reset.
+     *
+     * @return The number of memo hits.
+     */
+    public long getTorqueMemoHits() {
+        return torqueMemoHits;
+    }
+    /**
+     * Returns the number of torque fetcher calls per second of simulated time, over the durations
+     * {@link #rotateForTime(double)} has advanced the body by since the counters were last reset.
+     *
+     * @return The evaluation rate, or 0 if no time has been simulated.
+     */
+    public double torqueEvaluationsPerSecond() {
+        return simulatedTime > 0 ? torqueEvaluations / simulatedTime : 0.0;
+    }
+    /**
+     * Resets the torque evaluation and memo hit counters, and the simulated time they are measured over.
+     */
+    public void resetTorqueCounters() {
+        torqueEvaluations = 0;
+        torqueMemoHits = 0;
+        simulatedTime = 0.0;
+    }
+    /**
+     * Counts one torque requested by a subclass's own stepping, either fetched or answered from its memory.
+     */
+    void countTorque(boolean memoHit) {
+        if (memoHit) torqueMemoHits++;
+        else torqueEvaluations++;
+    }
+    /**
+     * Starts a rotation for a duration: forgets the remembered torque and counts the duration as simulated time.
+     */
+    void startRotation(double time) {
+        rotating = true;
+        memoTorque = null;
+        memoAngle = null;
+        if (time > 0) simulatedTime += time;
+    }
+    /**
+     * Ends a rotation started by {@link #startRotation(double)}, after which torques are neither remembered nor counted.
+     */
+    void finishRotation() {
+        rotating = false;
+        memoTorque = null;
+        memoAngle = null;
+    }
+    /**
+     * Returns whether a rotation is running, during which stage torques are remembered and counted.
+     *
+     * @return True while {@link #rotateForTime(double)} runs.
+     */
+    boolean isRotating() {
+        return rotating;
+    }
+    /**
+     * Returns whether torque-free motion of an axisymmetric body is propagated in closed form.
+     *
+     * @return True if the closed form is enabled.
+     */
+    public boolean isAnalyticPropagation() {
+        return analyticPropagation;
+    }
+    /**
+     * Enables or disables closed-form propagation of torque-free bodies.
+     * <p>
+     * When two principal moments are equal, to within {@link #AXISYMMETRY_TOLERANCE}, and the torque fetcher is
+     * {@link TorqueFetcher#none()}, the motion is a steady precession of the symmetry axis about the global momentum L
+     * at the rate |L| / I_t plus a spin about the symmetry axis at the rate M_s (1 / I_s - 1 / I_t), where I_t is the
+     * transverse moment, I_s the axial moment and M_s the momentum along the axis. {@link #rotateForTime(double)} then
+     * composes the two rotations for the whole duration as a single step, in time independent of the duration, and
+     * otherwise falls back to stepping. The closed form is exact, so its results differ from stepped results by the
+     * error of the steps. It is off by default.
+     * </p>
+     * <p>
+     * Torque-free bodies with three different moments follow the Jacobi elliptic solution of {@link TorqueFreeSolution},
+     * also in a single step, unless their motion is near the separatrix, where they are stepped. The solution is kept
+     * while the body follows it, so a body propagated in several calls does not rebuild it; changing the orientation,
+     * momentum or time starts a new one.
+     * </p>
+     *
+     * @param enabled True to propagate in closed form when possible.
+     */
+    public void setAnalyticPropagation(boolean enabled) {
+        this.analyticPropagation = enabled;
+    }
+    /**
+     * Returns whether the next call to {@link #rotateForTime(double)} uses the closed form.
+     *
+     * @return True if closed-form propagation is enabled, the body is torque-free, and it is axisymmetric or its
+     *         motion is away from the separatrix.
+     */
+    boolean propagatesAnalytically() {
+        if (!analyticPropagation || torqueFetcher != TorqueFetcher.<T>none()) return false;
+        return symmetryAxis != null || !TorqueFreeSolution.nearSeparatrix(getPrincipalAngle(), getRotationalMomentum(), rotationalInertia);
+    }
+    /**
+     * Returns the torque-free solution through the current state, reusing the last one if the state is the one
+     * it produced.
+     */
+    private TorqueFreeSolution<T> solution() {
+        T angle = getPrincipalAngle();
+        Vector3D momentum = getRotationalMomentum();
+        double time = getElapsedTime();
+        boolean sameMomentum = solutionMomentum != null && momentum.x() == solutionMomentum.x()
+            && momentum.y() == solutionMomentum.y() && momentum.z() == solutionMomentum.z();
+        if (solution == null || !sameAngle(angle, solutionAngle) || !sameMomentum || time != solutionTime) {
+            solution = new TorqueFreeSolution<>(angle, momentum, rotationalInertia, time);
+            solutionAngle = angle;
+            solutionMomentum = momentum;
+            solutionTime = time;
+        }
+        return solution;
+    }
+    /**
+     * Returns whether two principal angles hold the same orientation, for state derived from the orientation and
+     * kept between calls. Angles are compared by identity here; subclasses creating a new angle on every access
+     * compare their values.
+     *
+     * @return True if the angles are the same.
+     */
+    boolean sameAngle(T first, T second) {
+        return first == second;
+    }
+    /**
+     * Returns the scheme advancing each step.
+     *
+     * @return The integrator.
+     */
+    public AttitudeIntegrator getIntegrator() {
+        return integrator;
+    }
+    /**
+     * Sets the scheme advancing each step. The default, {@link AttitudeIntegrator#SIMPSON}, is the scheme
+     * this class has always used. The step size is still chosen by the rotation threshold or the adaptive tolerance,
+     * so a higher-order scheme is usually given a larger threshold or a looser tolerance.
+     *
+     * @param integrator The integrator.
+     * @throws IllegalArgumentException If {@code integrator} is null.
+     */
+    public void setIntegrator(AttitudeIntegrator integrator) {
+        if (integrator == null) throw new IllegalArgumentException("Integrator must not be null.");
+        this.integrator = integrator;
+        this.adaptiveStep = 0.0;
+    }
+    /**
+     * Returns the torque fetcher, or null if none has been set and the torque is zero.
+     */
+    TorqueFetcher<T> torqueFetcher() {
+        return torqueFetcher == TorqueFetcher.<T>none() ? null : torqueFetcher;
     }
     /**
      * Applies an angular acceleration to the body, modifying its rotational momentum.
@@ -131,8 +409,43 @@ public class RotatableBody<T extends Angle3D<T>> {
      * @return The torque, or rate of change in angular momentum.
      */
     public Vector3D getTorqueGlobal(double delayTime) {
-        // Torque fetcher is external resource, so public-facing get-angle instead of private facing angle is used.
-        return torqueFetcher.getExternalTorque(getAngle(), timeElapsed+delayTime);
+        return fetchTorque(getPrincipalAngle(), timeElapsed+delayTime);
+    }
+    /**
+     * Returns the torque in global coordinates that would act with the principal axes at the given orientation,
+     * at the given time. The fetcher is always called.
+     *
+     * @param principalAngle The orientation of the principal axes.
+     * @param time The time since the start.
+     * @return The torque, or rate of change in angular momentum.
+     */
+    public Vector3D getTorqueGlobal(T principalAngle, double time) {
+        return fetchTorque(principalAngle, time);
+    }
+    private Vector3D fetchTorque(T principalAngle, double time) {
+        if (torqueFetcher == TorqueFetcher.<T>none()) return Vector3D.ZERO_VECTOR;
+        // Torque fetcher is external resource, so the public-facing angle instead of the principal angle is passed.
+        return torqueFetcher.getExternalTorque(externalAngle(principalAngle), time);
+    }
+    /**
+     * Returns the torque at a stage of a step, as {@link #getTorqueGlobal(Angle3D, double)} does. While
+     * {@link #rotateForTime(double)} runs, the last torque fetched is remembered and the fetches are counted.
+     */
+    Vector3D stageTorque(T principalAngle, double time) {
+        if (!rotating || torqueFetcher == TorqueFetcher.<T>none()) return fetchTorque(principalAngle, time);
+        if (memoTorque != null && principalAngle == memoAngle && time == memoTime) {
+            torqueMemoHits++;
+            return memoTorque;
+        }
+        Vector3D torque = fetchTorque(principalAngle, time);
+        torqueEvaluations++;
+        memoTorque = torque;
+        memoAngle = principalAngle;
+        memoTime = time;
+        return torque;
+    }
+    private Vector3D stageTorque(double delayTime) {
+        return stageTorque(getPrincipalAngle(), timeElapsed+delayTime);
     }
      /**
      * Returns the angular momentum in the body's local coordinate system.
@@ -140,7 +453,7 @@ public class RotatableBody<T extends Angle3D<T>> {
      * @return The local rotational momentum.
      */
     private Vector3D rotationalMomentumLocal() {
-        return angle.inverse().rotate(rotationalMomentumGlobal);
+        return angle.inverseRotate(rotationalMomentumGlobal);
     }
     /**
     * Returns the angular momentum in the body's local coordinate system after the specified period of time.
@@ -148,7 +461,7 @@ public class RotatableBody<T extends Angle3D<T>> {
     * @return The local rotational momentum.
     */
    private Vector3D rotationalMomentumLocal(double delayTime) {
-       return angle.inverse().rotate(rotationalMomentumAfterTime(delayTime));
+       return angle.inverseRotate(rotationalMomentumAfterTime(delayTime));
    }
     
      /**
@@ -158,34 +471,216 @@ public class RotatableBody<T extends Angle3D<T>> {
      * @return The torque, or rate of change in angular momentum.
      */
     private Vector3D getTorqueLocal(double delayTime) {
-       return angle.inverse().rotate(getTorqueGlobal(delayTime));
+       return angle.inverseRotate(stageTorque(delayTime));
     }
     /**
      * Rotates the body forward in time by the given duration, using an integration scheme.
+     * <p>
+     * By default the duration is divided into steps of {@link #stepSize(double)}. When an adaptive tolerance is set,
+     * the step size is controlled by the measured error instead; see {@link #setAdaptiveTolerance(double)}.
+     * Each step is taken by the integrator; see {@link #setIntegrator(AttitudeIntegrator)}. Torque-free axisymmetric
+     * bodies may instead be propagated in closed form; see {@link #setAnalyticPropagation(boolean)}.
+     * </p>
      *
      * @param time The duration to rotate the body for.
      */
     public void rotateForTime(double time) {
-        while (time>0) {
-            // Uses a variation of Simpson's rule
-            // Runge–Kutta RK4 cannot be directly applied as rotational velocity is non-commutative
-            Vector3D startingVelocity = rotationalVelocityLocal();
-            double timeUse = getUseTime(startingVelocity,time);
-            Vector3D startHalfTorque = getTorqueGlobal(0).scale(timeUse/2);
-            Vector3D quarterVelocity = fetchVelocityAfterRotation(startingVelocity, timeUse/4);
-            Vector3D halfVelocity = fetchVelocityAfterRotation(quarterVelocity, timeUse/2);
-            Vector3D fullVelocity = fetchVelocityAfterRotation(halfVelocity, timeUse);
-            Vector3D velocityEstimate = estimateAverageVelocity(startingVelocity,halfVelocity,fullVelocity);
-            rotateAverageVelocity(velocityEstimate, timeUse);
-            timeElapsed+=timeUse;
-            Vector3D endHalfTorque = getTorqueGlobal(0).scale(timeUse/2);
-            // Torques use trapezoidal rule instead. This gives 2nd power accuracy instead of third power when torque is applied
-            rotationalMomentumGlobal = rotationalMomentumGlobal.sum(startHalfTorque).sum(endHalfTorque);
-            time -= timeUse;
+        startRotation(time);
+        try {
+            if (time > 0 && propagatesAnalytically()) {
+                propagateAnalytically(time);
+                return;
+            }
+            if (adaptiveTolerance > 0) {
+                rotateAdaptive(time);
+                return;
+            }
+            if (integrator != AttitudeIntegrator.SIMPSON) {
+                while (time > 0) {
+                    double timeUse = stepSize(time);
+                    integrator.step(this, timeUse);
+                    stepCount++;
+                    time -= timeUse;
+                }
+                return;
+            }
+            while (time>0) {
+                Vector3D startingVelocity = rotationalVelocityLocal();
+                double timeUse = getUseTime(startingVelocity,time);
+                step(startingVelocity, timeUse);
+                stepCount++;
+                time -= timeUse;
+            }
+        } finally {
+            finishRotation();
+        }
+    }
+    /**
+     * Returns the size of the next step {@link #rotateForTime(double)} takes without an adaptive tolerance:
+     * the time to turn by the rotation threshold at the current angular velocity, or to gain that velocity
+     * change from the current angular acceleration, whichever is shorter.
+     *
+     * @param maxTime The longest step allowed.
+     * @return The step size, at most {@code maxTime}.
+     */
+    public double stepSize(double maxTime) {
+        return getUseTime(rotationalVelocityLocal(), maxTime);
+    }
+    /**
+     * Advances the body by a single step of the given size with its integrator, without subdividing it.
+     *
+     * @param time The step size.
+     */
+    public void step(double time) {
+        integrator.step(this, time);
+    }
+    /**
+     * Takes one step of the {@link AttitudeIntegrator#SIMPSON} scheme.
+     *
+     * @param time The step size.
+     */
+    void simpsonStep(double time) {
+        step(rotationalVelocityLocal(), time);
+    }
+    private void step(Vector3D startingVelocity, double timeUse) {
+        // Uses a variation of Simpson's rule
+        // Runge–Kutta RK4 cannot be directly applied as rotational velocity is non-commutative
+        Vector3D startHalfTorque = stageTorque(0).scale(timeUse/2);
+        Vector3D quarterVelocity = fetchVelocityAfterRotation(startingVelocity, timeUse/4);
+        Vector3D halfVelocity = fetchVelocityAfterRotation(quarterVelocity, timeUse/2);
+        Vector3D fullVelocity = fetchVelocityAfterRotation(halfVelocity, timeUse);
+        Vector3D velocityEstimate = estimateAverageVelocity(startingVelocity,halfVelocity,fullVelocity);
+        rotateAverageVelocity(velocityEstimate, timeUse);
+        timeElapsed+=timeUse;
+        Vector3D endHalfTorque = stageTorque(0).scale(timeUse/2);
+        // Torques use trapezoidal rule instead. This gives 2nd power accuracy instead of third power when torque is applied
+        rotationalMomentumGlobal = rotationalMomentumGlobal.sum(startHalfTorque).sum(endHalfTorque);
+    }
+    /**
+     * Returns the adaptive error tolerance, or 0 if the step size follows the rotation threshold.
+     *
+     * @return The tolerance, in radians per step.
+     */
+    public double adaptiveTolerance() {
+        return adaptiveTolerance;
+    }
+    /**
+     * Sets the error tolerance of adaptive stepping, or turns it off.
+     * <p>
+     * With a positive tolerance, {@link #rotateForTime(double)} estimates the error of each step by step doubling:
+     * it takes the step once at full size and again as two half steps, and measures how far apart the results are,
+     * as the angle between the two orientations plus the difference in momentum converted to an angle over the step.
+     * The step is accepted if the error is within the tolerance, keeping the more accurate half-step result, and
+     * otherwise retried with a smaller size. The local error of the integrator grows as the power p = order + 1 of the
+     * step size, so the next step is scaled by 0.9 (tolerance / error)^(1/p), by at most a factor of 4 in either direction, and
+     * limited to a rotation of {@link #MAX_ADAPTIVE_ROTATION} so that the error estimate stays meaningful.
+     * </p>
+     * <p>
+     * Each adaptive step costs three fixed steps, so it pays off for bodies whose motion is smooth compared with the
+     * rotation threshold, such as bodies spinning near a principal axis.
+     * </p>
+     *
+     * @param tolerance The largest error allowed per step, in radians, or 0 to use the rotation threshold.
+     * @throws IllegalArgumentException If {@code tolerance} is negative or NaN.
+     */
+    public void setAdaptiveTolerance(double tolerance) {
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        this.adaptiveTolerance = tolerance;
+        this.adaptiveStep = 0.0;
+    }
+    /**
+     * Returns the number of steps {@link #rotateForTime(double)} has advanced the body by.
+     * Adaptive steps count once each, even though each evaluates three fixed steps, and rejected steps are not counted.
+     *
+     * @return The step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+    /**
+     * Counts one step taken by a subclass's own stepping loop.
+     */
+    void countStep() {
+        stepCount++;
+    }
+    private void propagateAnalytically(double time) {
+        if (symmetryAxis == null) {
+            TorqueFreeSolution<T> solution = solution();
+            double end = getElapsedTime() + time;
+            T angle = solution.angleAt(end);
+            setPrincipalAngle(angle);
+            setTime(end);
+            solutionAngle = angle;
+            solutionTime = end;
+            stepCount++;
+            return;
+        }
+        T start = getPrincipalAngle();
+        Vector3D momentum = getRotationalMomentum();
+        double axialMomentum = start.inverseRotate(momentum).dotProduct(symmetryAxis);
+        double spinRate = axialMomentum * (1 / axialInertia - 1 / transverseInertia);
+        // Precession is a global rotation, applied on the left, and spin a local one, applied on the right
+        T precession = start.getAngleSystem().fromAxis(momentum.scale(time / transverseInertia));
+        T spin = start.getAngleSystem().fromAxis(symmetryAxis.scale(spinRate * time));
+        setPrincipalAngle(precession.rotate(start).rotate(spin));
+        setTime(getElapsedTime() + time);
+        stepCount++;
+    }
+    private void rotateAdaptive(double time) {
+        double proposed = adaptiveStep > 0 ? adaptiveStep : stepSize(time);
+        while (time > 0) {
+            // Read through the accessors, which subclasses holding their own state override
+            double speed = getPrincipalAngle().inverseRotate(getRotationalMomentum()).elementWiseDivide(rotationalInertia).magnitude();
+            double timeUse = Math.min(Math.min(proposed, MAX_ADAPTIVE_ROTATION / speed), time);
+            T startAngle = getPrincipalAngle();
+            Vector3D startMomentum = getRotationalMomentum();
+            double startTime = getElapsedTime();
+            step(timeUse);
+            T fullAngle = getPrincipalAngle();
+            Vector3D fullMomentum = getRotationalMomentum();
+            setPrincipalAngle(startAngle);
+            setRotationalMomentum(startMomentum);
+            setTime(startTime);
+            step(timeUse/2);
+            step(timeUse/2);
+            double angleError = fullAngle.inverse().rotate(getPrincipalAngle()).magnitude();
+            double momentumError = fullMomentum.difference(getRotationalMomentum()).elementWiseDivide(rotationalInertia).magnitude() * timeUse;
+            double error = angleError + momentumError;
+            double factor = error == 0 ? MAX_ADAPTIVE_GROWTH : 0.9 * Math.pow(adaptiveTolerance / error, 1.0 / (integrator.order() + 1));
+            factor = Math.max(1 / MAX_ADAPTIVE_GROWTH, Math.min(MAX_ADAPTIVE_GROWTH, factor));
+            // Steps too small to change the time are accepted regardless, so the loop always ends
+            if (error <= adaptiveTolerance || startTime + timeUse / 2 == startTime) {
+                stepCount++;
+                time -= timeUse;
+                double next = timeUse * factor;
+                // A step shortened to end the duration or limit the rotation only shrinks the next if its error requires it
+                if (timeUse < proposed && factor >= 1) next = Math.max(next, proposed);
+                proposed = next;
+            } else {
+                setPrincipalAngle(startAngle);
+                setRotationalMomentum(startMomentum);
+                setTime(startTime);
+                proposed = timeUse * factor;
+            }
         }
+        adaptiveStep = proposed;
+    }
+    /**
+     * Estimates the number of steps {@link #rotateForTime(double)} takes to advance by the given duration,
+     * assuming the current angular velocity and acceleration hold throughout. With an adaptive tolerance,
+     * the estimate uses the last adaptive step size once there is one, and closed-form propagation takes one step.
+     *
+     * @param time The duration.
+     * @return The estimated number of steps, or 0 if {@code time} is not positive.
+     */
+    public int estimateSubsteps(double time) {
+        if (!(time > 0)) return 0;
+        if (propagatesAnalytically()) return 1;
+        double timeUse = adaptiveTolerance > 0 && adaptiveStep > 0 ? Math.min(adaptiveStep, time) : stepSize(time);
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(time / timeUse));
     }
     private Vector3D rotationalMomentumAfterTime(double time) {
-        return rotationalMomentumGlobal.sum(getTorqueGlobal(time/2).scale(time));
+        return rotationalMomentumGlobal.sum(stageTorque(time/2).scale(time));
     }
     private Vector3D estimateAverageVelocity(Vector3D startingVelocity, Vector3D halfVelocity, Vector3D fullVelocity) {
         double midFactor = 4;
@@ -196,7 +691,7 @@ public class RotatableBody<T extends Angle3D<T>> {
         T localShiftHalf = getLocalRotation(velocity, time/2);
         rotateAverageVelocity(velocity, time);
         //Local half shift is correction for noncomunative rotation.
-        // Correction for local angles use angle.rotate(newVelocity), correction for global angles use angle.inverse().rotate(newVelocity)
+        // Correction for local angles use angle.rotate(newVelocity), correction for global angles use angle.inverseRotate(newVelocity)
         // RotatableBody uses local angles
         Vector3D out = localShiftHalf.rotate(rotationalVelocityLocal(time));
         angle=temp;
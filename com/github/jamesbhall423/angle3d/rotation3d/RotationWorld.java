@@ -0,0 +1,183 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+/**
+ * A collection of independent bodies that are stepped through time together, in parallel.
+ * <p>
+ * Each call to {@link #step(double)} advances every body by the same duration with
+ * {@link RotatableBody#rotateForTime(double)}. The bodies take very different numbers of steps, depending on
+ * their angular velocity, acceleration and rotation threshold, so the world first asks each body for
+ * {@link RotatableBody#estimateSubsteps(double)} and then splits the bodies into fork-join tasks of about equal
+ * estimated cost, rather than equal numbers of bodies. Every body is still stepped by a single thread with the same
+ * arithmetic as a serial loop, so the results are identical for any number of threads.
+ * </p>
+ * <p>
+ * Torque fetchers are called from the pool's threads, and must be safe to call concurrently if they are shared
+ * between bodies. When the pool has a parallelism of 1 the bodies are stepped in a plain loop.
+ * </p>
+ *
+ * @param <T> The type of 3D angle representation used by the bodies.
+ * @author James Hall
+ */
+public class RotationWorld<T extends Angle3D<T>> {
+    /**
+     * The number of bodies whose steps are estimated by each task.
+     */
+    public static final int ESTIMATE_BLOCK = 1024;
+
+    // The total estimated cost is split into about this many tasks per thread, to absorb estimation error
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final List<RotatableBody<T>> bodies = new ArrayList<>();
+    private final ForkJoinPool pool;
+    private double timeElapsed = 0.0;
+
+    /**
+     * Constructs an empty world stepped on the common pool.
+     */
+    public RotationWorld() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs an empty world stepped on the given pool.
+     *
+     * @param pool The pool running the steps.
+     */
+    public RotationWorld(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Adds a body. A body should belong to one world only, and should not be modified while the world is stepping.
+     *
+     * @param body The body to add.
+     */
+    public void add(RotatableBody<T> body) {
+        bodies.add(body);
+    }
+
+    /**
+     * @return A read-only view of the bodies, in the order they were added.
+     */
+    public List<RotatableBody<T>> bodies() {
+        return Collections.unmodifiableList(bodies);
+    }
+
+    /**
+     * @return The number of bodies.
+     */
+    public int size() {
+        return bodies.size();
+    }
+
+    /**
+     * Returns the total duration the world has been stepped by.
+     *
+     * @return The elapsed time.
+     */
+    public double getElapsedTime() {
+        return timeElapsed;
+    }
+
+    /**
+     * Advances every body by the given duration.
+     *
+     * @param time The duration.
+     */
+    public void step(double time) {
+        int size = bodies.size();
+        if (pool.getParallelism() <= 1 || size <= 1) {
+            for (RotatableBody<T> body : bodies) body.rotateForTime(time);
+        } else {
+            // Cumulative estimated cost; body n costs cost[n + 1] - cost[n], counting one for the body itself
+            double[] cost = new double[size + 1];
+            pool.invoke(new Estimate(cost, time, 0, size));
+            for (int n = 0; n < size; n++) cost[n + 1] += cost[n];
+            double leafCost = cost[size] / (pool.getParallelism() * TASKS_PER_THREAD);
+            pool.invoke(new Step(cost, time, leafCost, 0, size));
+        }
+        timeElapsed += time;
+    }
+
+    @SuppressWarnings("serial")
+    private final class Estimate extends RecursiveAction {
+        private final double[] cost;
+        private final double time;
+        private final int from;
+        private final int to;
+
+        Estimate(double[] cost, double time, int from, int to) {
+            this.cost = cost;
+            this.time = time;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ESTIMATE_BLOCK) {
+                for (int n = from; n < to; n++) cost[n + 1] = 1.0 + bodies.get(n).estimateSubsteps(time);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Estimate(cost, time, from, middle), new Estimate(cost, time, middle, to));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class Step extends RecursiveAction {
+        private final double[] cost;
+        private final double time;
+        private final double leafCost;
+        private final int from;
+        private final int to;
+
+        Step(double[] cost, double time, double leafCost, int from, int to) {
+            this.cost = cost;
+            this.time = time;
+            this.leafCost = leafCost;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || cost[to] - cost[from] <= leafCost) {
+                for (int n = from; n < to; n++) bodies.get(n).rotateForTime(time);
+                return;
+            }
+            int middle = split();
+            invokeAll(new Step(cost, time, leafCost, from, middle), new Step(cost, time, leafCost, middle, to));
+        }
+
+        /**
+         * Returns the first index in (from, to) at which the cumulative cost reaches half of the range's cost.
+         */
+        private int split() {
+            double half = 0.5 * (cost[from] + cost[to]);
+            int low = from + 1, high = to - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cost[middle] >= half) high = middle;
+                else low = middle + 1;
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Returns a string representation of the world.
+     *
+     * @return A string giving the number of bodies and the elapsed time.
+     */
+    @Override
+    public String toString() {
+        return "RotationWorld: " + bodies.size() + " bodies at time " + timeElapsed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+/**
+ * The {@link AttitudeIntegrator} running the averaged-velocity step built into {@link RotatableBody}.
+ *
+ * @author James Hall
+ */
+final class SimpsonIntegrator implements AttitudeIntegrator {
+    static final SimpsonIntegrator INSTANCE = new SimpsonIntegrator();
+
+    private SimpsonIntegrator() {
+    }
+
+    @Override
+    public int order() {
+        return 3;
+    }
+
+    @Override
+    public <T extends Angle3D<T>> void step(RotatableBody<T> body, double time) {
+        body.simpsonStep(time);
+    }
+
+    @Override
+    public String toString() {
+        return "Simpson";
+    }
+}
@@ -5,4 +5,16 @@ import com.github.jamesbhall423.angle3d.position3d.Vector3D;
 
 public interface TorqueFetcher<T extends Angle3D<T>> {
     Vector3D getExternalTorque(T angle, double time);
+
+    /**
+     * Returns the fetcher of a body without torque, which always returns the zero vector. Bodies recognize it, and skip
+     * torque evaluations or propagate in closed form; a fetcher that merely returns zero is called at every stage.
+     *
+     * @param <T> The type of 3D angle representation used.
+     * @return The shared fetcher without torque.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Angle3D<T>> TorqueFetcher<T> none() {
+        return (TorqueFetcher<T>) NoTorque.INSTANCE;
+    }
 }
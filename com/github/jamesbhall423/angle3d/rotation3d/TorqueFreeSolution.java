@@ -0,0 +1,333 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+
+import com.github.jamesbhall423.angle3d.angle3d.Angle3D;
+import com.github.jamesbhall423.angle3d.angle3d.Angle3DSystem;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * The exact torque-free motion of a rigid body, evaluated at any time in a cost independent of the time.
+ * <p>
+ * With the principal moments ordered as I_a, I_b, I_c, where c is the axis the momentum circles in the body frame
+ * (the axis of largest inertia when |L|^2 &gt; 2 E I_b, otherwise the smallest) and b is the intermediate axis,
+ * the local momentum is M_a = A_a cn(u), M_b = +-A_b sn(u), M_c = +-A_c dn(u), with u advancing at a constant rate
+ * (Landau and Lifshitz, Mechanics, section 37). The orientation is written as R(t) = R0 P0^-1 N(phi) P(t), where
+ * P(t) is the shortest rotation taking the momentum direction m(t) to the circled axis n, which never fails because
+ * m stays in the hemisphere of n, and N(phi) turns about n by the precession angle. The angle obeys
+ * phi' = w . (m + n) / (1 + m . n), an even periodic function of dn(u). Its cosine series is found once from equally
+ * spaced samples, which converges geometrically, as the nome q = exp(-pi K' / K), and is integrated term by term, so
+ * evaluating the angle costs one set of elliptic functions and a sum of a few dozen terms.
+ * </p>
+ * <p>
+ * Near the separatrix, where the momentum of a body spinning about its intermediate axis passes close to the
+ * unstable axis, the period grows without bound and the motion becomes very sensitive to the state. Solutions with
+ * a parameter within {@link #SEPARATRIX_LIMIT} of 1 report {@link #nearSeparatrix()}, and bodies step through such
+ * motion numerically. Bodies with two equal moments are solved as well, with a parameter of 0.
+ * A solution keeps scratch space, so it should not be evaluated by several threads at once.
+ * </p>
+ *
+ * @param <T> The type of 3D angle representation used.
+ * @author James Hall
+ */
+public class TorqueFreeSolution<T extends Angle3D<T>> {
+    /**
+     * The distance of the elliptic parameter from 1 below which a solution is near the separatrix.
+     */
+    public static final double SEPARATRIX_LIMIT = 1e-6;
+
+    // The series is cut where the nome to the power of the term count falls below this
+    private static final double SERIES_TOLERANCE = 1e-17;
+    private static final int MIN_TERMS = 4;
+
+    private final T base;
+    private final Angle3DSystem<T> system;
+    private final Vector3D momentum;
+    private final double startTime;
+    private final boolean spherical;
+    private final Vector3D sphericalVelocity;
+
+    // Axis indices, amplitudes, signs and elliptic constants
+    private final int a, b, c;
+    private final double amplitudeA, amplitudeB, amplitudeC;
+    private final double signB, signC;
+    private final double rate, parameter, quarterPeriod;
+    private final double magnitude, twiceEnergy, inertiaC;
+    private final double startArgument, startPrecession;
+    // The mean precession rate per unit of argument, and the sine coefficients of the integral of the rest
+    private final double meanRate;
+    private final double[] series;
+    private final double[] scratch = new double[3];
+    // The arithmetic-geometric mean sequences of the parameter
+    private final double[] agmA = new double[JacobiElliptic.MAX_AGM + 1];
+    private final double[] agmC = new double[JacobiElliptic.MAX_AGM + 1];
+    private final int agmLevels;
+
+    /**
+     * Constructs the solution starting from the current state of a body. The torque of the body is ignored.
+     *
+     * @param body The body.
+     */
+    public TorqueFreeSolution(RotatableBody<T> body) {
+        this(body.getPrincipalAngle(), body.getRotationalMomentum(), body.getRotationalInertia(), body.getElapsedTime());
+    }
+
+    /**
+     * Constructs the solution starting from the given state.
+     *
+     * @param principalAngle The orientation of the principal axes.
+     * @param momentum The angular momentum in global coordinates.
+     * @param inertia The moments of inertia along the principal axes.
+     * @param time The time of the state.
+     */
+    public TorqueFreeSolution(T principalAngle, Vector3D momentum, Vector3D inertia, double time) {
+        this.system = principalAngle.getAngleSystem();
+        this.momentum = momentum;
+        this.startTime = time;
+        double[] moments = {inertia.x(), inertia.y(), inertia.z()};
+        Vector3D local = principalAngle.inverseRotate(momentum);
+        double[] m = {local.x(), local.y(), local.z()};
+        magnitude = momentum.magnitude();
+        twiceEnergy = twiceEnergy(moments, m);
+        int[] axes = axes(moments, magnitude, twiceEnergy);
+        a = axes[0];
+        b = axes[1];
+        c = axes[2];
+        spherical = moments[a] == moments[c];
+        sphericalVelocity = local.scale(1 / moments[c]);
+        boolean circlesHigh = moments[c] > moments[a];
+        double ia = moments[a], ib = moments[b], ic = moments[c];
+        inertiaC = ic;
+        double squared = magnitude * magnitude;
+        double outer = Math.abs(twiceEnergy * ic - squared);
+        double inner = Math.abs(squared - twiceEnergy * ia);
+        amplitudeA = Math.sqrt(outer * ia / Math.abs(ic - ia));
+        amplitudeB = Math.sqrt(outer * ib / Math.abs(ic - ib));
+        amplitudeC = Math.sqrt(inner * ic / Math.abs(ic - ia));
+        rate = Math.sqrt(Math.abs(ic - ib) * inner / (ia * ib * ic));
+        parameter = parameter(moments, axes, magnitude, twiceEnergy);
+        signC = m[c] < 0 ? -1 : 1;
+        // The sign of M_b follows from Euler's equations, flipping with the handedness of (a, b, c) and the circled axis
+        boolean even = (b - a + 3) % 3 == 1;
+        signB = signC * (even == circlesHigh ? 1 : -1);
+        agmLevels = JacobiElliptic.landen(parameter, agmA, agmC);
+        if (spherical || magnitude == 0 || nearSeparatrix()) {
+            quarterPeriod = 0;
+            startArgument = 0;
+            startPrecession = 0;
+            meanRate = 0;
+            series = new double[0];
+            base = principalAngle;
+            return;
+        }
+        quarterPeriod = JacobiElliptic.completeK(parameter);
+        double nome = parameter == 0 ? 0 : Math.exp(-Math.PI * JacobiElliptic.completeK(1 - parameter) / quarterPeriod);
+        int terms = nome == 0 ? MIN_TERMS : Math.max(MIN_TERMS, (int) Math.ceil(Math.log(SERIES_TOLERANCE) / Math.log(nome)) + 1);
+        // Samples over the period 2K of dn, enough to resolve every term kept
+        int samples = 2 * terms + 2;
+        double[] rates = new double[samples];
+        double mean = 0;
+        for (int n = 0; n < samples; n++) {
+            rates[n] = precessionRate(2 * quarterPeriod * n / samples);
+            mean += rates[n];
+        }
+        meanRate = mean / samples;
+        double[] cosines = new double[samples];
+        for (int n = 0; n < samples; n++) cosines[n] = Math.cos(2 * Math.PI * n / samples);
+        // The term a_k cos(k pi u / K) integrates to a_k K / (k pi) sin(k pi u / K)
+        series = new double[terms + 1];
+        for (int k = 1; k <= terms; k++) {
+            double sum = 0;
+            for (int n = 0; n < samples; n++) sum += rates[n] * cosines[k * n % samples];
+            series[k] = 2 * sum / samples * quarterPeriod / (k * Math.PI);
+        }
+        double cn = amplitudeA > 0 ? m[a] / amplitudeA : 1;
+        double sn = amplitudeB > 0 ? signB * m[b] / amplitudeB : 0;
+        startArgument = JacobiElliptic.incompleteF(Math.atan2(sn, cn), parameter);
+        startPrecession = precession(startArgument);
+        base = principalAngle.rotate(alignment(local.scale(1 / magnitude)).inverse());
+    }
+
+    /**
+     * Returns whether the motion from a state is too close to the separatrix for the elliptic solution, as
+     * {@link #nearSeparatrix()} of the solution through it would, without constructing the solution.
+     */
+    static <T extends Angle3D<T>> boolean nearSeparatrix(T principalAngle, Vector3D momentum, Vector3D inertia) {
+        double[] moments = {inertia.x(), inertia.y(), inertia.z()};
+        Vector3D local = principalAngle.inverseRotate(momentum);
+        double[] m = {local.x(), local.y(), local.z()};
+        double magnitude = momentum.magnitude();
+        double twiceEnergy = twiceEnergy(moments, m);
+        return 1 - parameter(moments, axes(moments, magnitude, twiceEnergy), magnitude, twiceEnergy) < SEPARATRIX_LIMIT;
+    }
+
+    private static double twiceEnergy(double[] moments, double[] m) {
+        return m[0] * m[0] / moments[0] + m[1] * m[1] / moments[1] + m[2] * m[2] / moments[2];
+    }
+
+    /**
+     * Returns the indices of the axes a, b and c, where c is the axis the momentum circles.
+     */
+    private static int[] axes(double[] moments, double magnitude, double twiceEnergy) {
+        int low = 0, high = 0;
+        for (int n = 1; n < 3; n++) {
+            if (moments[n] < moments[low]) low = n;
+            if (moments[n] >= moments[high]) high = n;
+        }
+        int middle = 3 - low - high;
+        // The momentum circles the largest axis when |L|^2 > 2 E I_b; with two equal moments it circles the other one
+        boolean circlesHigh;
+        if (moments[middle] == moments[high]) circlesHigh = false;
+        else if (moments[middle] == moments[low]) circlesHigh = true;
+        else circlesHigh = magnitude * magnitude > twiceEnergy * moments[middle];
+        return circlesHigh ? new int[] {low, middle, high} : new int[] {high, middle, low};
+    }
+
+    /**
+     * Returns the elliptic parameter, 0 for a spherical or still body.
+     */
+    private static double parameter(double[] moments, int[] axes, double magnitude, double twiceEnergy) {
+        double ia = moments[axes[0]], ib = moments[axes[1]], ic = moments[axes[2]];
+        if (ia == ic || magnitude == 0) return 0;
+        double squared = magnitude * magnitude;
+        double outer = Math.abs(twiceEnergy * ic - squared);
+        double inner = Math.abs(squared - twiceEnergy * ia);
+        return Math.min(1, Math.abs(ib - ia) * outer / (Math.abs(ic - ib) * inner));
+    }
+
+    /**
+     * Returns whether the motion is too close to the separatrix for the elliptic solution, in which case
+     * {@link #angleAt(double)} and {@link #localMomentumAt(double)} throw.
+     *
+     * @return True if the parameter is within {@link #SEPARATRIX_LIMIT} of 1.
+     */
+    public boolean nearSeparatrix() {
+        return !spherical && magnitude > 0 && 1 - parameter < SEPARATRIX_LIMIT;
+    }
+
+    /**
+     * @return The elliptic parameter m = k^2 of the motion, in [0, 1].
+     */
+    public double parameter() {
+        return parameter;
+    }
+
+    /**
+     * Returns the period after which the momentum returns to the same place in the body frame, or infinity
+     * if it never moves.
+     *
+     * @return The period.
+     */
+    public double period() {
+        if (spherical || magnitude == 0 || amplitudeA == 0 || nearSeparatrix()) return Double.POSITIVE_INFINITY;
+        return 4 * quarterPeriod / rate;
+    }
+
+    /**
+     * Returns the orientation of the principal axes at the given time.
+     *
+     * @param time The time, which may be before the start.
+     * @return The orientation.
+     * @throws IllegalStateException If the solution is near the separatrix.
+     */
+    public T angleAt(double time) {
+        double elapsed = time - startTime;
+        if (magnitude == 0) return base;
+        if (spherical) return base.rotate(system.fromAxis(sphericalVelocity.scale(elapsed)));
+        checkSeparatrix();
+        double argument = startArgument + rate * elapsed;
+        double phi = precession(argument) - startPrecession;
+        Vector3D direction = localMomentum(argument).scale(1 / magnitude);
+        return base.rotate(system.fromAxis(axis(signC * phi))).rotate(alignment(direction));
+    }
+
+    /**
+     * Returns the angular momentum in the body frame at the given time.
+     *
+     * @param time The time, which may be before the start.
+     * @return The local momentum.
+     * @throws IllegalStateException If the solution is near the separatrix.
+     */
+    public Vector3D localMomentumAt(double time) {
+        if (magnitude == 0) return Vector3D.ZERO_VECTOR;
+        if (spherical) return angleAt(time).inverseRotate(momentum);
+        checkSeparatrix();
+        return localMomentum(startArgument + rate * (time - startTime));
+    }
+
+    /**
+     * @return The angular momentum in global coordinates, which does not change.
+     */
+    public Vector3D getRotationalMomentum() {
+        return momentum;
+    }
+
+    private void checkSeparatrix() {
+        if (nearSeparatrix()) throw new IllegalStateException("Motion is within " + SEPARATRIX_LIMIT + " of the separatrix.");
+    }
+
+    private Vector3D localMomentum(double argument) {
+        double[] values = scratch;
+        JacobiElliptic.snCnDnReduced(reduce(argument, 4 * quarterPeriod), parameter, agmLevels, agmA, agmC, values, 0);
+        double[] m = new double[3];
+        m[a] = amplitudeA * values[1];
+        m[b] = signB * amplitudeB * values[0];
+        m[c] = signC * amplitudeC * values[2];
+        return new Vector3D(m[0], m[1], m[2]);
+    }
+
+    /**
+     * Returns the unit vector along axis c, scaled by the given length.
+     */
+    private Vector3D axis(double length) {
+        return new Vector3D(c == 0 ? length : 0, c == 1 ? length : 0, c == 2 ? length : 0);
+    }
+
+    /**
+     * Returns the shortest rotation taking the unit vector {@code direction} to the circled axis, signed.
+     */
+    private T alignment(Vector3D direction) {
+        Vector3D target = axis(signC);
+        Vector3D cross = direction.crossProduct(target);
+        double sine = cross.magnitude();
+        double angle = Math.atan2(sine, direction.dotProduct(target));
+        return system.fromAxis(sine == 0 ? Vector3D.ZERO_VECTOR : cross.scale(angle / sine));
+    }
+
+    private static double reduce(double argument, double period) {
+        return argument - period * Math.floor(argument / period);
+    }
+
+    /**
+     * Returns the precession angle gained while the elliptic argument advances from 0 to {@code argument}.
+     */
+    private double precession(double argument) {
+        double angle = Math.PI * reduce(argument, 2 * quarterPeriod) / quarterPeriod;
+        // Clenshaw's recurrence for the sum of series[k] sin(k angle)
+        double cos2 = 2 * Math.cos(angle);
+        double next = 0, after = 0;
+        for (int k = series.length - 1; k > 0; k--) {
+            double current = series[k] + cos2 * next - after;
+            after = next;
+            next = current;
+        }
+        return (meanRate * argument + next * Math.sin(angle)) / rate;
+    }
+
+    /**
+     * Returns phi' = w . (m + n) / (1 + m . n) at the given elliptic argument, where w . m = 2E / |L| and
+     * m . n = A_c dn / |L|.
+     */
+    private double precessionRate(double argument) {
+        JacobiElliptic.snCnDnReduced(argument, parameter, agmLevels, agmA, agmC, scratch, 0);
+        double axial = amplitudeC * scratch[2];
+        return (twiceEnergy / magnitude + axial / inertiaC) / (1 + axial / magnitude);
+    }
+
+    /**
+     * Returns a string representation of the solution.
+     *
+     * @return A string giving the momentum, the elliptic parameter and the period.
+     */
+    @Override
+    public String toString() {
+        return "TorqueFreeSolution: " + momentum + " parameter " + parameter + " period " + period();
+    }
+}
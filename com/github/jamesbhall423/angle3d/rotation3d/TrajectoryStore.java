@@ -0,0 +1,390 @@
+package com.github.jamesbhall423.angle3d.rotation3d;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.github.jamesbhall423.angle3d.angle3d.Quaternion;
+import com.github.jamesbhall423.angle3d.angle3d.QuaternionAngle3D;
+import com.github.jamesbhall423.angle3d.angle3d.QuaternionInterpolator;
+import com.github.jamesbhall423.angle3d.position3d.Vector3D;
+/**
+ * Records the state of a rotating body over time in a memory-mapped file, and answers queries for the state
+ * at any time in between.
+ * <p>
+ * Each record is {@link #RECORD_BYTES} bytes: the time, the four quaternion components of the orientation and
+ * the three components of the global angular momentum, as little-endian doubles. The file begins with a header
+ * of the same size holding the record count, and is mapped in segments of {@link #SEGMENT_RECORDS} records.
+ * Appending writes the record into the mapped memory and leaves writing it to disk to the operating system,
+ * so the integrator makes no system call except when a new segment is mapped. Call {@link #flush()} to force
+ * the records to disk.
+ * </p>
+ * <p>
+ * The time of every {@link #INDEX_STRIDE}th record is kept in a sparse index in memory. {@link #stateAt(double)}
+ * binary searches the index, then the times of one stride of records in the file, and interpolates between the
+ * two records around the requested time, with slerp for the orientation and linearly for the momentum. Only
+ * those records are read, and reopening a file reads only the indexed times.
+ * </p>
+ * <p>
+ * One thread may append while others query. A query sees every record appended before it started.
+ * </p>
+ *
+ * @author James Hall
+ */
+public class TrajectoryStore implements Closeable {
+    /**
+     * The size of each record, and of the header, in bytes.
+     */
+    public static final int RECORD_BYTES = 64;
+
+    /**
+     * The number of records between entries of the sparse time index.
+     */
+    public static final int INDEX_STRIDE = 64;
+
+    /**
+     * The number of records in each mapped segment of the file.
+     */
+    public static final int SEGMENT_RECORDS = 1 << 16;
+
+    private static final long MAGIC = 0x4133445452414A31L; // "A3DTRAJ1"
+    private static final int SEGMENT_BYTES = SEGMENT_RECORDS * RECORD_BYTES;
+    // Header offsets
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RECORD_BYTES_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int HEADER_BYTES = 24;
+    // Record offsets
+    private static final int TIME = 0;
+    private static final int REAL = 8;
+    private static final int I = 16;
+    private static final int J = 24;
+    private static final int K = 32;
+    private static final int MOMENTUM_X = 40;
+    private static final int MOMENTUM_Y = 48;
+    private static final int MOMENTUM_Z = 56;
+
+    private final FileChannel channel;
+    // Arrays are replaced, never modified in place below the published count, so readers need no lock
+    private volatile MappedByteBuffer[] segments;
+    private volatile double[] indexTimes;
+    private volatile long count;
+    private double lastTime = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Opens a trajectory file, creating it if it does not exist. The records of an existing file are kept,
+     * and new records are appended after them.
+     *
+     * @param path The file.
+     * @throws IOException If the file cannot be opened or mapped, or is not a trajectory file.
+     */
+    public TrajectoryStore(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            // Mapping extends the file, so a foreign file is checked with a plain read and left as it was
+            if (!created) {
+                ByteBuffer check = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                try {
+                    readFully(channel, check, 0);
+                } catch (EOFException e) {
+                    throw new IOException("Not a trajectory file: " + path, e);
+                }
+                if (check.getLong(MAGIC_OFFSET) != MAGIC || check.getLong(RECORD_BYTES_OFFSET) != RECORD_BYTES) {
+                    throw new IOException("Not a trajectory file: " + path);
+                }
+            }
+            segments = new MappedByteBuffer[] {map(0)};
+            MappedByteBuffer header = segments[0];
+            if (created) {
+                header.putLong(MAGIC_OFFSET, MAGIC);
+                header.putLong(RECORD_BYTES_OFFSET, RECORD_BYTES);
+                header.putLong(COUNT_OFFSET, 0);
+            }
+            long existing = header.getLong(COUNT_OFFSET);
+            int segmentCount = segment(existing) + 1;
+            MappedByteBuffer[] mapped = Arrays.copyOf(segments, segmentCount);
+            for (int n = 1; n < segmentCount; n++) mapped[n] = map(n);
+            segments = mapped;
+            double[] index = new double[Math.max(16, (int) (existing / INDEX_STRIDE) + 1)];
+            for (long n = 0; n < existing; n += INDEX_STRIDE) index[(int) (n / INDEX_STRIDE)] = read(n, TIME);
+            indexTimes = index;
+            if (existing > 0) lastTime = read(existing - 1, TIME);
+            count = existing;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fills a buffer from the channel, starting at the given position in the file.
+     *
+     * @throws EOFException If the file ends before the buffer is full.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new EOFException("File ends at " + position + " with " + buffer.remaining() + " bytes to read");
+            position += read;
+        }
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * SEGMENT_BYTES, SEGMENT_BYTES);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Returns the segment holding a record; record n follows the header, at byte (n + 1) * RECORD_BYTES.
+     */
+    private static int segment(long record) {
+        return (int) ((record + 1) / SEGMENT_RECORDS);
+    }
+
+    private static int offset(long record) {
+        return (int) ((record + 1) % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    private double read(long record, int field) {
+        return segments[segment(record)].getDouble(offset(record) + field);
+    }
+
+    /**
+     * Appends the current state of a body.
+     *
+     * @param body The body.
+     * @throws IllegalArgumentException If the body's time is earlier than the last record.
+     * @throws UncheckedIOException If a new segment of the file cannot be mapped.
+     */
+    public void append(RotatableBody<QuaternionAngle3D> body) {
+        append(body.getElapsedTime(), body.getAngle(), body.getRotationalMomentum());
+    }
+
+    /**
+     * Appends a state.
+     *
+     * @param time The time of the state, no earlier than the last record.
+     * @param angle The orientation.
+     * @param momentum The angular momentum in global coordinates.
+     * @throws IllegalArgumentException If {@code time} is earlier than the last record or NaN.
+     * @throws UncheckedIOException If a new segment of the file cannot be mapped.
+     */
+    public void append(double time, QuaternionAngle3D angle, Vector3D momentum) {
+        if (!(time >= lastTime)) throw new IllegalArgumentException("Time " + time + " is before the last record at " + lastTime);
+        long record = count;
+        int segment = segment(record);
+        MappedByteBuffer[] mapped = segments;
+        if (segment == mapped.length) {
+            mapped = Arrays.copyOf(mapped, segment + 1);
+            try {
+                mapped[segment] = map(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments = mapped;
+        }
+        MappedByteBuffer buffer = mapped[segment];
+        int offset = offset(record);
+        Quaternion q = angle.getQuaternion();
+        buffer.putDouble(offset + TIME, time);
+        buffer.putDouble(offset + REAL, q.real());
+        buffer.putDouble(offset + I, q.i());
+        buffer.putDouble(offset + J, q.j());
+        buffer.putDouble(offset + K, q.k());
+        buffer.putDouble(offset + MOMENTUM_X, momentum.x());
+        buffer.putDouble(offset + MOMENTUM_Y, momentum.y());
+        buffer.putDouble(offset + MOMENTUM_Z, momentum.z());
+        if (record % INDEX_STRIDE == 0) {
+            double[] index = indexTimes;
+            int entry = (int) (record / INDEX_STRIDE);
+            if (entry == index.length) index = Arrays.copyOf(index, 2 * entry);
+            index[entry] = time;
+            indexTimes = index;
+        }
+        mapped[0].putLong(COUNT_OFFSET, record + 1);
+        lastTime = time;
+        count = record + 1;
+    }
+
+    /**
+     * @return The number of records.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @param record The index of a record.
+     * @return The time of the record.
+     * @throws IndexOutOfBoundsException If there is no such record.
+     */
+    public double time(long record) {
+        checkIndex(record, count);
+        return read(record, TIME);
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param record The index of the record.
+     * @return The recorded state.
+     * @throws IndexOutOfBoundsException If there is no such record.
+     */
+    public State get(long record) {
+        checkIndex(record, count);
+        return new State(read(record, TIME), angle(record), momentum(record));
+    }
+
+    private static void checkIndex(long record, long size) {
+        if (record < 0 || record >= size) throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+    }
+
+    private QuaternionAngle3D angle(long record) {
+        return new QuaternionAngle3D(new Quaternion(read(record, REAL), read(record, I), read(record, J), read(record, K)));
+    }
+
+    private Vector3D momentum(long record) {
+        return new Vector3D(read(record, MOMENTUM_X), read(record, MOMENTUM_Y), read(record, MOMENTUM_Z));
+    }
+
+    /**
+     * Returns the state at a time, interpolated between the records on either side. Times before the first
+     * record give the first record, and times after the last give the last.
+     *
+     * @param time The time.
+     * @return The state at {@code time}.
+     * @throws IllegalStateException If the store is empty.
+     */
+    public State stateAt(double time) {
+        long size = count;
+        if (size == 0) throw new IllegalStateException("The trajectory is empty");
+        long before = floor(time, size);
+        if (before < 0) return get(0);
+        if (before == size - 1) return get(before);
+        return interpolate(before, time);
+    }
+
+    private State interpolate(long before, double time) {
+        double startTime = read(before, TIME);
+        double duration = read(before + 1, TIME) - startTime;
+        double t = duration > 0 ? (time - startTime) / duration : 0;
+        QuaternionAngle3D angle = QuaternionInterpolator.slerp(angle(before), angle(before + 1), t);
+        Vector3D start = momentum(before);
+        Vector3D momentum = start.sum(momentum(before + 1).difference(start).scale(t));
+        return new State(time, angle, momentum);
+    }
+
+    /**
+     * Returns the last record with a time no later than {@code time}, or -1 if there is none.
+     */
+    private long floor(double time, long size) {
+        double[] index = indexTimes;
+        int entries = (int) ((size - 1) / INDEX_STRIDE) + 1;
+        // Last index entry at or before the time
+        int low = 0, high = entries - 1;
+        if (!(index[0] <= time)) return -1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (index[middle] <= time) low = middle;
+            else high = middle - 1;
+        }
+        long from = (long) low * INDEX_STRIDE;
+        long to = Math.min(size, from + INDEX_STRIDE) - 1;
+        while (from < to) {
+            long middle = (from + to + 1) >>> 1;
+            if (read(middle, TIME) <= time) from = middle;
+            else to = middle - 1;
+        }
+        return from;
+    }
+
+    /**
+     * Forces the records appended so far to disk.
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) segment.force();
+    }
+
+    /**
+     * Flushes the records and closes the file. The store must not be used afterwards.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Returns a string representation of the store.
+     *
+     * @return A string giving the number of records and the time of the last.
+     */
+    @Override
+    public String toString() {
+        return "TrajectoryStore: " + count + " records to time " + lastTime;
+    }
+
+    /**
+     * The recorded or interpolated state of a body at one time.
+     */
+    public static class State {
+        private final double time;
+        private final QuaternionAngle3D angle;
+        private final Vector3D momentum;
+
+        /**
+         * Constructs a state.
+         *
+         * @param time The time.
+         * @param angle The orientation.
+         * @param momentum The angular momentum in global coordinates.
+         */
+        public State(double time, QuaternionAngle3D angle, Vector3D momentum) {
+            this.time = time;
+            this.angle = angle;
+            this.momentum = momentum;
+        }
+
+        /**
+         * @return The time.
+         */
+        public double time() {
+            return time;
+        }
+
+        /**
+         * @return The orientation.
+         */
+        public QuaternionAngle3D angle() {
+            return angle;
+        }
+
+        /**
+         * @return The angular momentum in global coordinates.
+         */
+        public Vector3D momentum() {
+            return momentum;
+        }
+
+        /**
+         * Returns a string representation of the state.
+         *
+         * @return A string giving the time, orientation and momentum.
+         */
+        @Override
+        public String toString() {
+            return "State: " + time + " " + angle + " " + momentum;
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.github.jamesbhall423.angle3d.test;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.jamesbhall423.angle3d.angle3d.*;
+import com.github.jamesbhall423.angle3d.inertia.*;
+import com.github.jamesbhall423.angle3d.position3d.*;
+import com.github.jamesbhall423.angle3d.rotation3d.*;
+
+/**
+ * Rough throughput measurements for the hot paths of the library.
+ * Each benchmark warms up before timing and prints the time per operation.
+ * Run with {@code --add-modules jdk.incubator.vector} to include the vectorized batch rotator.
+ */
+public class Benchmark {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int TIMED_ROUNDS = 50;
+    // Prevents the JIT from discarding the benchmarked work
+    static double sink;
+
+    /**
+     * Runs the task repeatedly and prints the fastest timed round.
+     */
+    private static void time(String name, long operations, Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + TIMED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            task.run();
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) best = Math.min(best, elapsed);
+        }
+        System.out.println(name + ": " + String.format("%.3f", (double) best / operations) + " ns/op");
+    }
+
+    public void benchmarkBatchRotation() {
+        int count = 1 << 16;
+        Random random = new Random(1);
+        double[] x = new double[count], y = new double[count], z = new double[count];
+        double[] destX = new double[count], destY = new double[count], destZ = new double[count];
+        Vector3D[] vectors = new Vector3D[count];
+        for (int n = 0; n < count; n++) {
+            x[n] = random.nextGaussian();
+            y[n] = random.nextGaussian();
+            z[n] = random.nextGaussian();
+            vectors[n] = new Vector3D(x[n], y[n], z[n]);
+        }
+        QuaternionAngle3D angle = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, 0.5, -0.2));
+        time("QuaternionAngle3D.rotate", count, () -> {
+            for (int n = 0; n < count; n++) sink += angle.rotate(vectors[n]).x();
+        });
+        for (BatchRotator rotator : new BatchRotator[] {BatchRotator.scalar(), BatchRotator.getInstance()}) {
+            time(rotator.toString(), count, () -> {
+                rotator.rotate(angle, x, y, z, destX, destY, destZ, count);
+                sink += destX[count - 1];
+            });
+        }
+    }
+
+    public void benchmarkExpLog() {
+        int count = 1 << 14;
+        Random random = new Random(4);
+        Vector3D[] small = new Vector3D[count], large = new Vector3D[count];
+        for (int n = 0; n < count; n++) {
+            small[n] = new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(0.005);
+            large[n] = small[n].scale(100);
+        }
+        QuaternionSystem system = QuaternionSystem.INSTANCE;
+        time("QuaternionSystem.exp small angle", count, () -> {
+            for (int n = 0; n < count; n++) sink += system.exp(small[n]).getQuaternion().real();
+        });
+        time("QuaternionSystem.exp large angle", count, () -> {
+            for (int n = 0; n < count; n++) sink += system.exp(large[n]).getQuaternion().real();
+        });
+        time("QuaternionSystem.log small angle", count, () -> {
+            for (int n = 0; n < count; n++) sink += system.exp(small[n]).magnitude();
+        });
+    }
+
+    public void benchmarkAviation() {
+        int count = 1 << 14;
+        Random random = new Random(2);
+        double[] pitch = new double[count], yaw = new double[count], roll = new double[count];
+        for (int n = 0; n < count; n++) {
+            pitch[n] = random.nextDouble() - 0.5;
+            yaw[n] = 6 * random.nextDouble() - 3;
+            roll[n] = random.nextDouble() - 0.5;
+        }
+        AviationMapping mapping = new AviationMapping(new DimensionMapping[] {new DimensionMapping(AviationAxis.VERTICAL, false, CartesianAxis.Z), new DimensionMapping(AviationAxis.LATERAL, false, CartesianAxis.X), new DimensionMapping(AviationAxis.LONGITUDINAL, false, CartesianAxis.Y)});
+        QuaternionSystem system = QuaternionSystem.INSTANCE;
+        time("Composed aviation angle", count, () -> {
+            for (int n = 0; n < count; n++) {
+                QuaternionAngle3D pitchT = system.getAngle(mapping.longitudinal(), mapping.vertical(), pitch[n]);
+                QuaternionAngle3D yawT = system.getAngle(mapping.lateral(), mapping.longitudinal(), yaw[n]);
+                QuaternionAngle3D rollT = system.getAngle(mapping.vertical(), mapping.lateral(), roll[n]);
+                sink += yawT.rotate(pitchT.rotate(rollT)).getQuaternion().real();
+            }
+        });
+        time("QuaternionSystem.fromAviation", count, () -> {
+            for (int n = 0; n < count; n++) sink += system.fromAviation(mapping, pitch[n], yaw[n], roll[n]).getQuaternion().real();
+        });
+        QuaternionBuffer buffer = new QuaternionBuffer(count);
+        time("QuaternionSystem.fromAviation columns", count, () -> {
+            system.fromAviation(mapping, pitch, yaw, roll, buffer);
+            sink += buffer.real(count - 1);
+        });
+    }
+
+    public void benchmarkInterpolation() {
+        int keyframes = 64;
+        int samples = 1 << 14;
+        Random random = new Random(3);
+        double[] times = new double[keyframes];
+        QuaternionAngle3D[] keys = new QuaternionAngle3D[keyframes];
+        for (int n = 0; n < keyframes; n++) {
+            times[n] = n;
+            keys[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+        }
+        double interval = (keyframes - 1.0) / samples;
+        time("Scale and rotate interpolation", samples, () -> {
+            for (int n = 0; n < samples; n++) {
+                double time = n * interval;
+                int segment = (int) time;
+                QuaternionAngle3D from = keys[segment];
+                sink += from.rotate(from.inverse().rotate(keys[segment + 1]).scale(time - segment)).getQuaternion().real();
+            }
+        });
+        QuaternionBuffer buffer = new QuaternionBuffer(samples);
+        for (QuaternionTrack.Interpolation interpolation : QuaternionTrack.Interpolation.values()) {
+            QuaternionTrack track = new QuaternionTrack(times, keys, interpolation);
+            time("QuaternionTrack " + interpolation, samples, () -> {
+                track.sample(0, interval, buffer);
+                sink += buffer.real(samples - 1);
+            });
+        }
+    }
+
+    private static <A extends Angle3D<A>> void benchmarkSystem(String name, Angle3DSystem<A> system) {
+        int count = 1 << 12;
+        Random random = new Random(5);
+        List<A> angles = new ArrayList<>();
+        Vector3D[] vectors = new Vector3D[count];
+        for (int n = 0; n < count; n++) {
+            angles.add(system.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+            vectors[n] = new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        A fixed = angles.get(0);
+        time(name + " compose", count, () -> {
+            A angle = fixed;
+            for (int n = 0; n < count; n++) angle = angle.rotate(angles.get(n));
+            sink += angle.rotate(vectors[0]).x();
+        });
+        time(name + " rotate vector", count, () -> {
+            for (int n = 0; n < count; n++) sink += fixed.rotate(vectors[n]).x();
+        });
+        time(name + " fromAxis", count, () -> {
+            for (int n = 0; n < count; n++) sink += system.fromAxis(vectors[n]).rotate(vectors[0]).x();
+        });
+        int steps = 1000;
+        time(name + " RotatableBody step", steps, () -> {
+            RotatableBody<A> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+            body.setAngle(system.fromAxis(new Vector3D(0.4, 0.2, 0.3)));
+            body.setRotationalMomentum(new Vector3D(2.1, 2.3, 1.9));
+            body.setTorqueFetcher((angle, time) -> angle.rotate(new Vector3D(0.1, 0, -0.2*time)));
+            for (int n = 0; n < steps; n++) body.rotateForTime(0.01);
+            sink += body.getAngle().magnitude();
+        });
+    }
+
+    /**
+     * Benchmarks the named angle systems, or all of them. The systems share the same benchmark code, so the
+     * JIT compiles the later ones with polymorphic call sites; pass a single name for an isolated measurement.
+     */
+    public void benchmarkSystems(String... names) {
+        List<String> selected = names.length == 0 ? Arrays.asList("Quaternion", "QuaternionEvery16", "QuaternionDrift", "FloatQuaternion", "Matrix", "MRP") : Arrays.asList(names);
+        for (String name : selected) {
+            switch (name) {
+                case "Quaternion":
+                    benchmarkSystem(name, QuaternionSystem.INSTANCE);
+                    break;
+                case "QuaternionEvery16":
+                    benchmarkSystem(name, QuaternionSystem.withRenormalization(RenormalizationPolicy.everyN(16)));
+                    break;
+                case "QuaternionDrift":
+                    benchmarkSystem(name, QuaternionSystem.withRenormalization(RenormalizationPolicy.whenDriftExceeds(1e-12)));
+                    break;
+                case "FloatQuaternion":
+                    benchmarkSystem(name, FloatQuaternionSystem.INSTANCE);
+                    break;
+                case "Matrix":
+                    benchmarkSystem(name, MatrixSystem.INSTANCE);
+                    break;
+                case "MRP":
+                    benchmarkSystem(name, MRPSystem.INSTANCE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown system: " + name);
+            }
+        }
+    }
+
+    public void benchmarkRotationScan() {
+        int count = 1 << 20;
+        Random random = new Random(7);
+        QuaternionBuffer steps = new QuaternionBuffer(count);
+        for (int n = 0; n < count; n++) {
+            steps.set(n, QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(0.01)));
+        }
+        QuaternionBuffer prefixes = new QuaternionBuffer(count);
+        MutableQuaternion product = new MutableQuaternion();
+        time("Sequential prefix products", count, () -> {
+            product.setIdentity();
+            for (int n = 0; n < count; n++) {
+                product.setProduct(product.real(), product.i(), product.j(), product.k(), steps.real(n), steps.i(n), steps.j(n), steps.k(n)).normalize();
+                prefixes.set(n, product.real(), product.i(), product.j(), product.k());
+            }
+            sink += prefixes.real(count - 1);
+        });
+        time("RotationScan.prefixProducts", count, () -> {
+            RotationScan.prefixProducts(steps, prefixes);
+            sink += prefixes.real(count - 1);
+        });
+        time("RotationScan.reduce", count, () -> sink += RotationScan.reduce(steps).magnitude());
+    }
+
+    public void benchmarkRotationAverager() {
+        int count = 1 << 16;
+        Random random = new Random(8);
+        QuaternionBuffer samples = new QuaternionBuffer(count);
+        for (int n = 0; n < count; n++) {
+            samples.set(n, QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(0.1)));
+        }
+        time("RotationAverager.add", count, () -> sink += new RotationAverager().add(samples).totalWeight());
+        RotationAverager averager = new RotationAverager().add(samples);
+        time("RotationAverager.mean", 1, () -> sink += averager.mean().magnitude());
+    }
+
+    public void benchmarkQuaternionCodec() {
+        int count = 1 << 16;
+        Random random = new Random(9);
+        QuaternionBuffer angles = new QuaternionBuffer(count);
+        for (int n = 0; n < count; n++) {
+            angles.set(n, QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+        }
+        QuaternionBuffer decoded = new QuaternionBuffer(count);
+        for (QuaternionCodec codec : QuaternionCodec.values()) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(count * codec.bytes());
+            time(codec + " encode", count, () -> {
+                bytes.clear();
+                codec.encode(angles, bytes);
+                sink += bytes.position();
+            });
+            time(codec + " decode", count, () -> {
+                bytes.flip();
+                codec.decode(bytes, decoded);
+                sink += decoded.real(count - 1);
+            });
+        }
+    }
+
+    /**
+     * Compares the generic body with the allocation-free quaternion body. The time per operation is per step.
+     */
+    public void benchmarkQuaternionRotatableBody() {
+        RotatableBody<QuaternionAngle3D> generic = new RotatableBody<>(new Vector3D(1, 2, 3));
+        QuaternionRotatableBody specialized = new QuaternionRotatableBody(new Vector3D(1, 2, 3));
+        for (RotatableBody<QuaternionAngle3D> body : Arrays.asList(generic, specialized)) {
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.4, 0.1, -0.7)));
+            body.setRotationalMomentum(new Vector3D(0.5, 1.5, -2));
+        }
+        int steps = generic.estimateSubsteps(1);
+        time("RotatableBody step", steps, () -> generic.rotateForTime(1));
+        time("QuaternionRotatableBody step", steps, () -> specialized.rotateForTime(1));
+    }
+
+    /**
+     * Compares fixed and adaptive stepping for a body spinning slightly off a principal axis, over one simulated second.
+     * The time per operation is per second simulated; {@code Test.testAdaptiveStepping} compares the accuracy.
+     */
+    public void benchmarkAdaptiveStepping() {
+        RotatableBody<QuaternionAngle3D> fixed = new RotatableBody<>(new Vector3D(1, 2, 3));
+        RotatableBody<QuaternionAngle3D> adaptive = new RotatableBody<>(new Vector3D(1, 2, 3));
+        for (RotatableBody<QuaternionAngle3D> body : Arrays.asList(fixed, adaptive)) {
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+            body.setRotationalMomentum(body.getAngle().rotate(new Vector3D(0.001, 0.002, 3)));
+        }
+        adaptive.setAdaptiveTolerance(1e-10);
+        time("Fixed steps", 1, () -> fixed.rotateForTime(1));
+        time("Adaptive steps", 1, () -> adaptive.rotateForTime(1));
+        System.out.println("Steps per second: fixed " + fixed.getStepCount() / (double) (WARMUP_ROUNDS + TIMED_ROUNDS)
+                           + ", adaptive " + adaptive.getStepCount() / (double) (WARMUP_ROUNDS + TIMED_ROUNDS));
+    }
+
+    /**
+     * Takes single steps of 0.01 s on a tumbling, torque-free body with each integrator.
+     * The time per operation is per step.
+     */
+    public void benchmarkIntegrators() {
+        AttitudeIntegrator[] integrators = {AttitudeIntegrator.SIMPSON, AttitudeIntegrator.RKMK4, AttitudeIntegrator.CROUCH_GROSSMAN, AttitudeIntegrator.BODY_FRAME};
+        for (AttitudeIntegrator integrator : integrators) {
+            RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+            body.setRotationalMomentum(body.getAngle().rotate(new Vector3D(1.2, -0.9, 1.5)));
+            body.setIntegrator(integrator);
+            time(integrator + " steps", 1000, () -> {
+                for (int n = 0; n < 1000; n++) body.step(0.01);
+            });
+        }
+    }
+
+    /**
+     * Propagates a torque-free axisymmetric body for an hour in closed form, and for a second in steps.
+     */
+    public void benchmarkAnalyticPropagation() {
+        RotatableBody<QuaternionAngle3D> analytic = new RotatableBody<>(new Vector3D(1, 1, 2.5));
+        RotatableBody<QuaternionAngle3D> stepped = new RotatableBody<>(new Vector3D(1, 1, 2.5));
+        for (RotatableBody<QuaternionAngle3D> body : Arrays.asList(analytic, stepped)) {
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+            body.setRotationalMomentum(body.getAngle().rotate(new Vector3D(1.2, -0.9, 1.5)));
+        }
+        analytic.setAnalyticPropagation(true);
+        time("Closed form, one hour", 1, () -> analytic.rotateForTime(3600));
+        time("Steps, one second", 1, () -> stepped.rotateForTime(1));
+    }
+
+    /**
+     * Builds the elliptic solution of a tumbling body, and evaluates it at times spread over a day.
+     */
+    public void benchmarkTorqueFreeSolution() {
+        RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+        body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+        body.setRotationalMomentum(body.getAngle().rotate(new Vector3D(1.2, -0.9, 1.5)));
+        time("TorqueFreeSolution construction", 100, () -> {
+            for (int n = 0; n < 100; n++) sink += new TorqueFreeSolution<>(body).parameter();
+        });
+        TorqueFreeSolution<QuaternionAngle3D> solution = new TorqueFreeSolution<>(body);
+        time("TorqueFreeSolution.angleAt", 1000, () -> {
+            for (int n = 0; n < 1000; n++) sink += solution.angleAt(86.4 * n).getQuaternion().real();
+        });
+    }
+
+    /**
+     * Steps a body under a torque costing about a microsecond per call, and prints the fetcher calls per simulated
+     * second and the calls the memo saved. The time per operation is per simulated second.
+     */
+    public void benchmarkTorqueMemo() {
+        RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+        body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+        body.setRotationalMomentum(new Vector3D(1.2, -0.9, 1.5));
+        body.setTorqueFetcher((angle, moment) -> {
+            double field = 0;
+            for (int n = 1; n <= 40; n++) field += Math.sin(moment * n) / n;
+            return angle.rotate(new Vector3D(0.01 * field, 0, 0));
+        });
+        time("Torqued body", 1, () -> body.rotateForTime(1));
+        System.out.println("Torque evaluations per simulated second: " + body.torqueEvaluationsPerSecond() + ", memo hits " + body.getTorqueMemoHits() + " of " + (body.getTorqueEvaluations() + body.getTorqueMemoHits()));
+    }
+
+    /**
+     * Steps bodies with a spread of speeds in a serial loop and in a {@link RotationWorld} on the common pool.
+     * The time per operation is per body.
+     */
+    public void benchmarkRotationWorld() {
+        int count = 1000;
+        Random random = new Random(11);
+        List<RotatableBody<QuaternionAngle3D>> serial = new ArrayList<>();
+        RotationWorld<QuaternionAngle3D> world = new RotationWorld<>();
+        for (int n = 0; n < 2 * count; n++) {
+            RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1 + random.nextDouble(), 1 + random.nextDouble(), 1 + random.nextDouble()));
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+            body.setRotationalMomentum(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(Math.pow(10, 2 * random.nextDouble() - 1)));
+            if (n < count) serial.add(body);
+            else world.add(body);
+        }
+        time("Serial bodies", count, () -> {
+            for (RotatableBody<QuaternionAngle3D> body : serial) body.rotateForTime(0.01);
+        });
+        time("RotationWorld (" + ForkJoinPool.getCommonPoolParallelism() + " threads)", count, () -> world.step(0.01));
+    }
+
+    /**
+     * Appends to and queries a trajectory file in the temporary directory, which grows to about 64 MB.
+     */
+    public void benchmarkTrajectoryStore() {
+        int count = 1 << 12;
+        Random random = new Random(10);
+        QuaternionAngle3D[] angles = new QuaternionAngle3D[count];
+        for (int n = 0; n < count; n++) {
+            angles[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+        }
+        Vector3D momentum = new Vector3D(1, 2, 3);
+        try {
+            Path path = Files.createTempFile("trajectory", ".bin");
+            Files.delete(path);
+            try (TrajectoryStore store = new TrajectoryStore(path)) {
+                double[] time = {0};
+                time("TrajectoryStore.append", count, () -> {
+                    for (int n = 0; n < count; n++) store.append(time[0]++, angles[n], momentum);
+                });
+                double[] queries = new double[count];
+                for (int n = 0; n < count; n++) queries[n] = random.nextDouble() * (time[0] - 1);
+                time("TrajectoryStore.stateAt", count, () -> {
+                    for (int n = 0; n < count; n++) sink += store.stateAt(queries[n]).angle().magnitude();
+                });
+            }
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compares the strict and fast trigonometric providers. Both share the timed call sites, so the second
+     * provider runs against polymorphic code; the error sweeps are in {@code Test.testTrig}.
+     */
+    public void benchmarkTrig() {
+        int count = 1 << 12;
+        Random random = new Random(6);
+        double[] angles = new double[count];
+        for (int n = 0; n < count; n++) angles[n] = (2 * random.nextDouble() - 1) * Math.PI;
+        double[] sinCos = new double[2];
+        time("Math sin + cos", count, () -> {
+            for (int n = 0; n < count; n++) sink += Math.sin(angles[n]) + Math.cos(angles[n]);
+        });
+        for (TrigProvider trig : new TrigProvider[] {TrigProvider.STRICT, TrigProvider.FAST}) {
+            time(trig + " sinCos", count, () -> {
+                for (int n = 0; n < count; n++) {
+                    trig.sinCos(angles[n], sinCos, 0);
+                    sink += sinCos[0] + sinCos[1];
+                }
+            });
+            QuaternionSystem system = QuaternionSystem.INSTANCE.withTrig(trig);
+            time(trig + " angleXY", count, () -> {
+                for (int n = 0; n < count; n++) sink += system.angleXY(angles[n]).getQuaternion().real();
+            });
+            SquareInertia inertia = new SquareInertia(2, 3, 4, 0.3, -0.2, 0.5);
+            time(trig + " getRotationToAxis", 1, () -> {
+                sink += MomentCalculator.getRotationToAxis(system, inertia).magnitude();
+            });
+        }
+    }
+
+    /**
+     * Estimates the heap retained per angle by holding a large array of distinct angles from each system.
+     * Caches that a system fills lazily are not included.
+     */
+    public void benchmarkMemory() {
+        int count = 1 << 18;
+        System.out.println("Quaternion bytes/angle: " + bytesPerAngle(QuaternionSystem.INSTANCE, count));
+        System.out.println("FloatQuaternion bytes/angle: " + bytesPerAngle(FloatQuaternionSystem.INSTANCE, count));
+        System.out.println("Matrix bytes/angle: " + bytesPerAngle(MatrixSystem.INSTANCE, count));
+        System.out.println("MRP bytes/angle: " + bytesPerAngle(MRPSystem.INSTANCE, count));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int n = 0; n < 3; n++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static <A extends Angle3D<A>> long bytesPerAngle(Angle3DSystem<A> system, int count) {
+        Object[] angles = new Object[count];
+        long before = usedMemory();
+        for (int n = 0; n < count; n++) angles[n] = system.angleXY(n * 1e-6);
+        long after = usedMemory();
+        sink += angles.length;
+        return Math.round((double) (after - before) / count);
+    }
+
+    public void benchmarkRotatableBody() {
+        int steps = 1000;
+        double timeStep = 0.01;
+        time("RotatableBody.rotateForTime step", steps, () -> {
+            RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.4, 0.2, 0.3)));
+            body.setRotationalMomentum(new Vector3D(2.1, 2.3, 1.9));
+            body.setTorqueFetcher((angle, time) -> angle.rotate(new Vector3D(0.1, 0, -0.2*time)));
+            for (int n = 0; n < steps; n++) body.rotateForTime(timeStep);
+            sink += body.getAngle().magnitude();
+        });
+    }
+
+    /**
+     * Runs every benchmark, or with arguments, only the angle system benchmarks for the named systems.
+     */
+    public static void main(String[] args) {
+        Benchmark benchmark = new Benchmark();
+        if (args.length > 0) {
+            benchmark.benchmarkSystems(args);
+            benchmark.benchmarkMemory();
+            System.out.println("Benchmark completed " + (sink != 0));
+            return;
+        }
+        benchmark.benchmarkBatchRotation();
+        benchmark.benchmarkExpLog();
+        benchmark.benchmarkAviation();
+        benchmark.benchmarkInterpolation();
+        benchmark.benchmarkRotatableBody();
+        benchmark.benchmarkTrig();
+        benchmark.benchmarkRotationScan();
+        benchmark.benchmarkRotationAverager();
+        benchmark.benchmarkQuaternionCodec();
+        benchmark.benchmarkTrajectoryStore();
+        benchmark.benchmarkRotationWorld();
+        benchmark.benchmarkQuaternionRotatableBody();
+        benchmark.benchmarkAdaptiveStepping();
+        benchmark.benchmarkIntegrators();
+        benchmark.benchmarkAnalyticPropagation();
+        benchmark.benchmarkTorqueFreeSolution();
+        benchmark.benchmarkTorqueMemo();
+        benchmark.benchmarkSystems();
+        benchmark.benchmarkMemory();
+        System.out.println("Benchmark completed " + (sink != 0));
+    }
+}
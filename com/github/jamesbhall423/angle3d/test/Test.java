@@ -1,7 +1,16 @@
 package com.github.jamesbhall423.angle3d.test;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.github.jamesbhall423.angle3d.angle3d.*;
@@ -82,12 +91,11 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         assertEquivelant(result,expected);
     }
     public void testAssociation() {
-        QuaternionSystem sys = (QuaternionSystem) system;
         Vector3D testVector = new Vector3D(1,0,0);
         double shift = Math.PI/2;
-        Vector3D result = sys.angleYZ(shift).rotate(sys.angleXY(shift)).rotate(testVector);
+        Vector3D result = system.angleYZ(shift).rotate(system.angleXY(shift)).rotate(testVector);
         System.out.println("Result ="+result);
-        Vector3D expected = sys.angleXZ(shift).rotate(testVector);
+        Vector3D expected = system.angleXZ(shift).rotate(testVector);
         assertEquivelant(result, expected);
     }
     public void testAxis() {
@@ -105,6 +113,798 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         Vector3D result = angle.axis();
         assertEquivelant(result, testVector);
     }
+    public void testExpLog() {
+        Vector3D direction = new Vector3D(0.48, -0.6, 0.64);
+        double[] magnitudes = new double[] {0, 1e-12, 1e-7, 1e-3, 0.0199, 0.0201, 0.0499, 0.0501, 0.3, 2, 3.1};
+        for (double magnitude : magnitudes) {
+            Vector3D rotation = direction.scale(magnitude);
+            Quaternion q = QuaternionSystem.INSTANCE.exp(rotation).getQuaternion();
+            double sinScale = Math.sin(magnitude/2);
+            if (Math.abs(q.real()-Math.cos(magnitude/2))>4e-16 || q.getVector().distance(direction.scale(sinScale))>4e-16) throw new RuntimeException("Exp: "+magnitude+" "+q);
+            Vector3D log = QuaternionSystem.INSTANCE.log(QuaternionSystem.INSTANCE.exp(rotation));
+            if (log.distance(rotation)>1e-15*magnitude) throw new RuntimeException("Log: "+magnitude+" "+log);
+        }
+    }
+    public void testMutableQuaternion() {
+        Quaternion left = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)).getQuaternion();
+        Quaternion right = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(-0.7, 0.1, 0.4)).getQuaternion();
+        MutableQuaternion product = new MutableQuaternion(left).mult(new MutableQuaternion(right));
+        Quaternion expected = left.mult(right);
+        if (Math.abs(product.dot(new MutableQuaternion(expected))-expected.sqMagnitude())>1e-12) throw new RuntimeException(product+" "+expected);
+        MutableQuaternion preProduct = new MutableQuaternion(right).preMult(new MutableQuaternion(left));
+        if (Math.abs(preProduct.dot(product)-expected.sqMagnitude())>1e-12) throw new RuntimeException(preProduct+" "+expected);
+        Vector3D testVector = new Vector3D(1.5, -2, 0.25);
+        double[] packed = new double[] {testVector.x(), testVector.y(), testVector.z(), 0, 1, 0};
+        product.rotate(packed, 0, packed, 0, 2);
+        assertEquivelant(new Vector3D(packed[0], packed[1], packed[2]), expected.rotateVector(testVector));
+        assertEquivelant(new Vector3D(packed[3], packed[4], packed[5]), expected.rotateVector(new Vector3D(0, 1, 0)));
+        assertEquivelant(product.normalize().toAngle().rotate(testVector), expected.normalize().rotateVector(testVector));
+    }
+    public void testQuaternionBuffer() {
+        Random random = new Random(3141);
+        int size = 20;
+        QuaternionBuffer left = new QuaternionBuffer(size);
+        QuaternionBuffer right = new QuaternionBuffer(size);
+        QuaternionAngle3D[] leftAngles = new QuaternionAngle3D[size];
+        QuaternionAngle3D[] rightAngles = new QuaternionAngle3D[size];
+        for (int n = 0; n < size; n++) {
+            leftAngles[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            rightAngles[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            left.set(n, leftAngles[n]);
+            right.set(n, rightAngles[n]);
+        }
+        QuaternionBuffer product = new QuaternionBuffer(size).mult(left, right).normalize();
+        QuaternionBuffer broadcast = new QuaternionBuffer(size).mult(leftAngles[0].getQuaternion(), right).normalize();
+        double[] dots = product.dot(product, new double[size]);
+        Vector3D testVector = new Vector3D(0.3, 1.1, -0.8);
+        for (int n = 0; n < size; n++) {
+            assertEquivelant(product.get(n).rotate(testVector), leftAngles[n].rotate(rightAngles[n]).rotate(testVector));
+            assertEquivelant(broadcast.get(n).rotate(testVector), leftAngles[0].rotate(rightAngles[n]).rotate(testVector));
+            if (product.real(n) < 0 || Math.abs(dots[n]-1) > 1e-12) throw new RuntimeException(product.get(n).toString());
+        }
+        left.conjugate().mult(left, right).canonicalize();
+        for (int n = 0; n < size; n++) {
+            assertEquivelant(left.get(n).rotate(testVector), leftAngles[n].inverse().rotate(rightAngles[n]).rotate(testVector));
+            if (left.real(n) < 0) throw new RuntimeException(left.get(n).toString());
+        }
+    }
+    public void testBatchRotation() {
+        Random random = new Random(2718);
+        int count = 37;
+        QuaternionAngle3D angle = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.9, -1.3, 0.4));
+        double[] x = new double[count], y = new double[count], z = new double[count], packed = new double[3*count];
+        for (int n = 0; n < count; n++) {
+            x[n] = packed[3*n] = random.nextGaussian();
+            y[n] = packed[3*n+1] = random.nextGaussian();
+            z[n] = packed[3*n+2] = random.nextGaussian();
+        }
+        BatchRotator[] rotators = new BatchRotator[] {BatchRotator.getInstance(), BatchRotator.scalar()};
+        double[][] results = new double[rotators.length][];
+        for (int r = 0; r < rotators.length; r++) {
+            System.out.println(rotators[r]);
+            double[] destX = new double[count], destY = new double[count], destZ = new double[count], destPacked = new double[3*count];
+            rotators[r].rotate(angle, x, y, z, destX, destY, destZ, count);
+            rotators[r].rotate(angle, packed, 0, destPacked, 0, count);
+            for (int n = 0; n < count; n++) {
+                Vector3D expected = angle.getQuaternion().rotateVector(new Vector3D(x[n], y[n], z[n]));
+                if (expected.distance(new Vector3D(destX[n], destY[n], destZ[n])) > 1e-12) throw new RuntimeException(rotators[r]+" "+n);
+                if (expected.distance(new Vector3D(destPacked[3*n], destPacked[3*n+1], destPacked[3*n+2])) > 1e-12) throw new RuntimeException(rotators[r]+" "+n);
+            }
+            results[r] = destX;
+        }
+        if (!Arrays.equals(results[0], results[1])) throw new RuntimeException("Vector and scalar rotation differ");
+    }
+    public void testAngleCaches() {
+        QuaternionAngle3D angle = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(-0.4, 1.2, 0.7));
+        Vector3D testVector = new Vector3D(2, -1, 0.5);
+        if (angle.inverse().inverse() != angle || angle.inverse() != angle.inverse()) throw new RuntimeException("Inverse not cached");
+        if (angle.axis() != angle.axis()) throw new RuntimeException("Axis not cached");
+        assertEquivelant(angle.rotate(testVector), angle.getQuaternion().rotateVector(testVector));
+        assertEquivelant(angle.inverse().rotate(angle.rotate(testVector)), testVector);
+        assertEquivelant(angle.axis(), new Vector3D(-0.4, 1.2, 0.7));
+        if (Math.abs(angle.magnitude()-angle.axis().magnitude())>1e-12) throw new RuntimeException();
+        if (angle.clone().rotate(testVector).distance(angle.rotate(testVector))>1e-15) throw new RuntimeException();
+    }
+    public void testRenormalization() {
+        RenormalizationPolicy[] policies = {RenormalizationPolicy.everyN(16), RenormalizationPolicy.whenDriftExceeds(1e-12)};
+        double[] driftBounds = {1e-14, 2e-12 + 1e-15};
+        QuaternionSystem reference = QuaternionSystem.INSTANCE;
+        for (int p = 0; p < policies.length; p++) {
+            QuaternionSystem deferred = QuaternionSystem.withRenormalization(policies[p]);
+            Random random = new Random(77);
+            QuaternionAngle3D angle = deferred.angleXY(0);
+            double maxDrift = 0;
+            for (int n = 0; n < 1000; n++) {
+                angle = angle.rotate(deferred.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+                maxDrift = Math.max(maxDrift, Math.abs(angle.getQuaternion().sqMagnitude() - 1));
+            }
+            if (angle.getAngleSystem() != deferred) throw new RuntimeException("System not kept: "+policies[p]);
+            if (maxDrift == 0 || maxDrift > driftBounds[p]) throw new RuntimeException("Drift "+maxDrift+" for "+policies[p]);
+            if (compositionScenario(reference).distance(compositionScenario(deferred)) > 1e-12) throw new RuntimeException("Compositions: "+policies[p]);
+            if (torqueScenario(reference).distance(torqueScenario(deferred)) > 1e-12) throw new RuntimeException("Torque: "+policies[p]);
+            if (freeBodyScenario(reference).distance(freeBodyScenario(deferred)) > 1e-12) throw new RuntimeException("Free body: "+policies[p]);
+            new Test<>(deferred).testSystem();
+        }
+        if (QuaternionSystem.withRenormalization(RenormalizationPolicy.everyN(1)) != reference) throw new RuntimeException();
+    }
+    private static double ulpError(double value, double expected) {
+        return Math.abs(value - expected) / Math.ulp(expected);
+    }
+    public void testTrig() {
+        TrigProvider fast = TrigProvider.FAST;
+        Random random = new Random(4242);
+        double[] ranges = {Math.PI / 4, 2 * Math.PI, 1e4, 0x1p18};
+        double[] bounds = {1, 1, 2, 2};
+        double[] sinCos = new double[2];
+        for (int r = 0; r < ranges.length; r++) {
+            double maxError = 0;
+            for (int n = 0; n < 200000; n++) {
+                double x = (2 * random.nextDouble() - 1) * ranges[r];
+                fast.sinCos(x, sinCos, 0);
+                if (sinCos[0] != fast.sin(x) || sinCos[1] != fast.cos(x)) throw new RuntimeException("sinCos at "+x);
+                maxError = Math.max(maxError, Math.max(ulpError(sinCos[0], StrictMath.sin(x)), ulpError(sinCos[1], StrictMath.cos(x))));
+            }
+            System.out.println("Fast trig within "+ranges[r]+": "+maxError+" ulp");
+            if (maxError > bounds[r]) throw new RuntimeException("Fast trig error "+maxError+" within "+ranges[r]);
+        }
+        for (int k = 1; k < 100000; k += 7) {
+            double x = k * Math.PI / 2;
+            for (double y = Math.nextDown(Math.nextDown(x)); y <= Math.nextUp(Math.nextUp(x)); y = Math.nextUp(y)) {
+                if (ulpError(fast.sin(y), StrictMath.sin(y)) > 2 || ulpError(fast.cos(y), StrictMath.cos(y)) > 2) throw new RuntimeException("Fast trig near "+y);
+            }
+        }
+        for (int e = -40; e <= 3; e++) {
+            double x = Math.scalb(1.0, e);
+            if (ulpError(fast.sin(x), StrictMath.sin(x)) > 1 || fast.sin(-x) != -fast.sin(x) || ulpError(fast.cos(x), StrictMath.cos(x)) > 1) throw new RuntimeException("Fast trig at 2^"+e);
+        }
+        if (fast.sin(1e300) != Math.sin(1e300) || !Double.isNaN(fast.cos(Double.POSITIVE_INFINITY)) || !Double.isNaN(fast.sin(Double.NaN))) throw new RuntimeException();
+        QuaternionSystem fastSystem = QuaternionSystem.INSTANCE.withTrig(fast);
+        if (fastSystem.withTrig(TrigProvider.STRICT) != QuaternionSystem.INSTANCE || fastSystem.fromAxis(new Vector3D(1, 2, 3)).scale(0.5).getAngleSystem() != fastSystem) throw new RuntimeException();
+        new Test<>(fastSystem).testSystem();
+        if (compositionScenario(QuaternionSystem.INSTANCE).distance(compositionScenario(fastSystem)) > 1e-12) throw new RuntimeException("Fast compositions");
+        if (aviationScenario(QuaternionSystem.INSTANCE).distance(aviationScenario(fastSystem)) > 1e-14) throw new RuntimeException("Fast aviation angles");
+    }
+    public void testRotationScan() {
+        Random random = new Random(8086);
+        int size = 3 * RotationScan.BLOCK_SIZE + 17;
+        QuaternionBuffer steps = new QuaternionBuffer(size);
+        List<QuaternionAngle3D> stepList = new ArrayList<>();
+        for (int n = 0; n < size; n++) {
+            QuaternionAngle3D step = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(0.01));
+            steps.set(n, step);
+            stepList.add(step);
+        }
+        QuaternionBuffer prefixes = RotationScan.prefixProducts(steps, new QuaternionBuffer(size));
+        List<QuaternionAngle3D> listPrefixes = RotationScan.prefixProducts(stepList);
+        Vector3D testVector = new Vector3D(0.2, -0.7, 1.1);
+        QuaternionAngle3D expected = QuaternionSystem.INSTANCE.angleXY(0);
+        for (int n = 0; n < size; n++) {
+            expected = expected.rotate(stepList.get(n));
+            Quaternion q = expected.getQuaternion();
+            if (n < RotationScan.BLOCK_SIZE && (prefixes.real(n) != q.real() || prefixes.i(n) != q.i() || prefixes.j(n) != q.j() || prefixes.k(n) != q.k())) throw new RuntimeException("First block differs at "+n);
+            if (prefixes.get(n).rotate(testVector).distance(expected.rotate(testVector)) > 1e-12) throw new RuntimeException("Buffer prefix "+n);
+            if (listPrefixes.get(n).rotate(testVector).distance(expected.rotate(testVector)) > 1e-12) throw new RuntimeException("List prefix "+n);
+        }
+        if (RotationScan.reduce(steps).rotate(testVector).distance(expected.rotate(testVector)) > 1e-12) throw new RuntimeException("Buffer reduce");
+        if (RotationScan.reduce(stepList).rotate(testVector).distance(expected.rotate(testVector)) > 1e-12) throw new RuntimeException("List reduce");
+        RotationScan.prefixProducts(steps, steps);
+        if (steps.get(size - 1).rotate(testVector).distance(prefixes.get(size - 1).rotate(testVector)) != 0) throw new RuntimeException("In place scan");
+        if (RotationScan.reduce(new QuaternionBuffer(0)).magnitude() != 0 || !RotationScan.prefixProducts(new ArrayList<QuaternionAngle3D>()).isEmpty()) throw new RuntimeException();
+    }
+    public void testRotationAverager() {
+        Random random = new Random(2718);
+        QuaternionAngle3D center = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.9, -1.4, 2.2));
+        double sigma = 0.01;
+        List<QuaternionAngle3D> samples = new ArrayList<>();
+        RotationAverager averager = new RotationAverager();
+        for (int n = 0; n < 20000; n++) {
+            QuaternionAngle3D sample = center.rotate(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(sigma)));
+            // The sign of a sample does not matter
+            samples.add(sample);
+            if (n % 2 == 0) averager.add(sample);
+            else averager.add(-sample.getQuaternion().real(), -sample.getQuaternion().i(), -sample.getQuaternion().j(), -sample.getQuaternion().k(), 1);
+        }
+        Vector3D testVector = new Vector3D(1, 0.5, -0.3);
+        if (averager.mean().rotate(testVector).distance(center.rotate(testVector)) > 5 * sigma / Math.sqrt(samples.size())) throw new RuntimeException("Mean "+averager.mean());
+        double[][] covariance = averager.covariance();
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                double expected = row == column ? sigma * sigma : 0;
+                if (Math.abs(covariance[row][column] - expected) > 0.05 * sigma * sigma) throw new RuntimeException("Covariance "+row+","+column+": "+covariance[row][column]);
+            }
+        }
+        if (Math.abs(averager.dispersion() - 0.75 * sigma * sigma) > 0.05 * sigma * sigma) throw new RuntimeException("Dispersion "+averager.dispersion());
+        RotationAverager parallel = samples.parallelStream().collect(RotationAverager.collector());
+        if (parallel.count() != samples.size() || parallel.mean().rotate(testVector).distance(averager.mean().rotate(testVector)) > 1e-12) throw new RuntimeException("Collector");
+        RotationAverager first = new RotationAverager(), second = new RotationAverager();
+        QuaternionBuffer buffer = new QuaternionBuffer(samples.size() / 2);
+        for (int n = 0; n < samples.size(); n++) {
+            if (n < buffer.size()) buffer.set(n, samples.get(n));
+            else second.add(samples.get(n));
+        }
+        first.add(buffer);
+        if (first.merge(second).mean().rotate(testVector).distance(averager.mean().rotate(testVector)) > 1e-12) throw new RuntimeException("Merge");
+        RotationAverager identical = new RotationAverager().add(center, 2).add(center, 0.5);
+        if (identical.dispersion() > 1e-15 || identical.mean().rotate(testVector).distance(center.rotate(testVector)) > 1e-15) throw new RuntimeException("Identical samples");
+        RotationAverager opposite = new RotationAverager().add(QuaternionSystem.INSTANCE.angleXY(0.4), 3).add(QuaternionSystem.INSTANCE.angleXY(-0.4), 1);
+        if (Math.abs(opposite.mean().magnitude() - 0.2) > 0.01) throw new RuntimeException("Weighted mean "+opposite.mean().magnitude());
+    }
+    public void testQuaternionCodec() {
+        Random random = new Random(1701);
+        int size = 5000;
+        QuaternionBuffer angles = new QuaternionBuffer(size);
+        for (int n = 0; n < size; n++) {
+            angles.set(n, QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+        }
+        for (QuaternionCodec codec : QuaternionCodec.values()) {
+            for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteBuffer bytes = ByteBuffer.allocate(size * codec.bytes()).order(order);
+                codec.encode(angles, bytes);
+                if (bytes.remaining() != 0) throw new RuntimeException("Encoded length "+codec);
+                bytes.flip();
+                QuaternionBuffer decoded = codec.decode(bytes, new QuaternionBuffer(size));
+                bytes.rewind();
+                double maxError = 0;
+                for (int n = 0; n < size; n++) {
+                    QuaternionAngle3D single = codec.decode(bytes);
+                    QuaternionAngle3D original = angles.get(n);
+                    double error = original.inverse().rotate(decoded.get(n)).magnitude();
+                    maxError = Math.max(maxError, error);
+                    if (error > codec.maxAngleError()) throw new RuntimeException(codec+" error "+error);
+                    if (single.inverse().rotate(decoded.get(n)).magnitude() > 1e-15) throw new RuntimeException(codec+" bulk and single decode differ");
+                    byte[] encoded = codec.encode(original, ByteBuffer.allocate(codec.bytes()).order(order)).array();
+                    if (!Arrays.equals(encoded, 0, encoded.length, bytes.array(), n * codec.bytes(), (n + 1) * codec.bytes())) throw new RuntimeException(codec+" bulk and single encode differ");
+                }
+                System.out.println(codec+" "+order+" max error "+maxError+" of "+codec.maxAngleError());
+            }
+            Quaternion q = angles.get(0).getQuaternion();
+            if (codec.pack(q.real(), q.i(), q.j(), q.k()) != codec.pack(-q.real(), -q.i(), -q.j(), -q.k())) throw new RuntimeException("Sign "+codec);
+            if (codec.bytes() < 8 && codec.pack(-0.3, 0.1, -0.9, 0.3) >>> (8 * codec.bytes()) != 0) throw new RuntimeException("Width "+codec);
+        }
+    }
+    public void testTrajectoryStore() {
+        Vector3D axis = new Vector3D(0.3, -0.5, 0.8);
+        Vector3D momentumStart = new Vector3D(1, 2, 3);
+        Vector3D momentumRate = new Vector3D(-0.5, 0.25, 0.125);
+        double step = 0.01;
+        // Records a rotation about a fixed axis with a momentum changing linearly, which slerp and linear interpolation follow exactly
+        int size = TrajectoryStore.SEGMENT_RECORDS + 1000;
+        Path path = null;
+        try {
+            path = Files.createTempFile("trajectory", ".bin");
+            Files.delete(path);
+            try (TrajectoryStore store = new TrajectoryStore(path)) {
+                for (int n = 0; n < size; n++) {
+                    double time = n * step;
+                    store.append(time, QuaternionSystem.INSTANCE.fromAxis(axis.scale(time)), momentumStart.sum(momentumRate.scale(time)));
+                }
+                try {
+                    store.append(0, QuaternionSystem.INSTANCE.fromAxis(axis), momentumStart);
+                    throw new RuntimeException("Time order not checked");
+                } catch (IllegalArgumentException e) {
+                }
+                checkTrajectory(store, size, step, axis, momentumStart, momentumRate);
+            }
+            try (TrajectoryStore store = new TrajectoryStore(path)) {
+                if (store.size() != size) throw new RuntimeException("Reopened size "+store.size());
+                checkTrajectory(store, size, step, axis, momentumStart, momentumRate);
+                RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+                body.setAngle(QuaternionSystem.INSTANCE.fromAxis(axis.scale(size * step)));
+                body.setRotationalMomentum(momentumStart.sum(momentumRate.scale(size * step)));
+                body.setTime(size * step);
+                store.append(body);
+                checkTrajectory(store, size + 1, step, axis, momentumStart, momentumRate);
+            }
+            for (int length : new int[] {100, 10}) {
+                Files.write(path, new byte[length]);
+                boolean opened;
+                try {
+                    new TrajectoryStore(path).close();
+                    opened = true;
+                } catch (IOException e) {
+                    opened = false;
+                }
+                if (opened) throw new RuntimeException("Foreign file opened");
+                if (Files.size(path) != length) throw new RuntimeException("Foreign file resized to "+Files.size(path));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                if (path != null) Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+    public void testRotationWorld() {
+        List<RotatableBody<QuaternionAngle3D>> serial = randomBodies(300);
+        for (RotatableBody<QuaternionAngle3D> body : serial) {
+            body.rotateForTime(0.25);
+            body.rotateForTime(0.25);
+        }
+        for (int threads : new int[] {1, 2, 5}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            RotationWorld<QuaternionAngle3D> world = new RotationWorld<>(pool);
+            for (RotatableBody<QuaternionAngle3D> body : randomBodies(300)) world.add(body);
+            world.step(0.25);
+            world.step(0.25);
+            pool.shutdown();
+            for (int n = 0; n < serial.size(); n++) {
+                Quaternion expected = serial.get(n).getAngle().getQuaternion();
+                Quaternion actual = world.bodies().get(n).getAngle().getQuaternion();
+                if (expected.real() != actual.real() || expected.i() != actual.i() || expected.j() != actual.j() || expected.k() != actual.k()) throw new RuntimeException("World with "+threads+" threads differs at body "+n);
+                if (!world.bodies().get(n).getRotationalMomentum().toString().equals(serial.get(n).getRotationalMomentum().toString())) throw new RuntimeException("Momentum with "+threads+" threads at body "+n);
+            }
+            if (world.getElapsedTime() != 0.5) throw new RuntimeException("World time "+world.getElapsedTime());
+        }
+        RotatableBody<QuaternionAngle3D> body = serial.get(0);
+        if (body.estimateSubsteps(0) != 0 || body.estimateSubsteps(1) < body.estimateSubsteps(0.5)) throw new RuntimeException("Substep estimate");
+    }
+    public void testQuaternionRotatableBody() {
+        List<RotatableBody<QuaternionAngle3D>> generic = randomBodies(60);
+        List<RotatableBody<QuaternionAngle3D>> specialized = randomBodies(60, QuaternionRotatableBody::new);
+        for (int round = 0; round < 3; round++) {
+            for (int n = 0; n < generic.size(); n++) {
+                generic.get(n).rotateForTime(0.4);
+                specialized.get(n).rotateForTime(0.4);
+                Quaternion expected = generic.get(n).getAngle().getQuaternion();
+                Quaternion actual = specialized.get(n).getAngle().getQuaternion();
+                if (expected.real() != actual.real() || expected.i() != actual.i() || expected.j() != actual.j() || expected.k() != actual.k()) throw new RuntimeException("Specialized body angle differs at body "+n+": "+expected+" "+actual);
+                if (!generic.get(n).getRotationalMomentum().toString().equals(specialized.get(n).getRotationalMomentum().toString())) throw new RuntimeException("Specialized body momentum differs at body "+n);
+                if (generic.get(n).rotationalEnergy() != specialized.get(n).rotationalEnergy()) throw new RuntimeException("Specialized body energy differs at body "+n);
+                if (generic.get(n).estimateSubsteps(0.3) != specialized.get(n).estimateSubsteps(0.3)) throw new RuntimeException("Specialized body estimate differs at body "+n);
+            }
+        }
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("Allocation counting unavailable");
+            return;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        QuaternionRotatableBody body = new QuaternionRotatableBody(new Vector3D(1, 2, 3));
+        body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.4, 0.1, -0.7)));
+        body.setRotationalMomentum(new Vector3D(0.5, 1.5, -2));
+        // Compile the loop before counting
+        for (int n = 0; n < 200; n++) body.rotateForTime(1);
+        int substeps = body.estimateSubsteps(10);
+        long thread = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(thread);
+        body.rotateForTime(10);
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        System.out.println("Specialized body allocated "+allocated+" bytes in about "+substeps+" steps");
+        if (allocated > 256) throw new RuntimeException("Specialized body allocated "+allocated+" bytes");
+    }
+    public void testAdaptiveStepping() {
+        Vector3D testVector = new Vector3D(0.6, -0.8, 0.3);
+        // Tumbling about all three axes, spinning slightly off the principal axis of largest inertia, and spinning about it
+        Vector3D[] localMomenta = {new Vector3D(1.2, -0.9, 1.5), new Vector3D(0.001, 0.002, 3), new Vector3D(0, 0, 3)};
+        double tolerance = 1e-10;
+        double target = 0;
+        for (int m = 0; m < localMomenta.length; m++) {
+            RotatableBody<QuaternionAngle3D> reference = adaptiveTestBody(localMomenta[m]);
+            reference.setRotationThreshold(1e-4);
+            reference.rotateForTime(20);
+            RotatableBody<QuaternionAngle3D> fixed = adaptiveTestBody(localMomenta[m]);
+            fixed.rotateForTime(20);
+            RotatableBody<QuaternionAngle3D> adaptive = adaptiveTestBody(localMomenta[m]);
+            adaptive.setAdaptiveTolerance(tolerance);
+            for (int n = 0; n < 20; n++) adaptive.rotateForTime(1);
+            Vector3D expected = reference.getAngle().rotate(testVector);
+            double fixedError = fixed.getAngle().rotate(testVector).distance(expected);
+            double adaptiveError = adaptive.getAngle().rotate(testVector).distance(expected);
+            System.out.println("Fixed: "+fixed.getStepCount()+" steps, error "+fixedError+"; adaptive: "+adaptive.getStepCount()+" steps, error "+adaptiveError);
+            // The accuracy of fixed steps on the tumbling body is the target for all three
+            if (m == 0) target = fixedError;
+            if (adaptiveError > target) throw new RuntimeException("Adaptive error "+adaptiveError+" above "+target);
+            if (m > 0 && adaptive.getStepCount() * 3 > fixed.getStepCount()) throw new RuntimeException("Adaptive stepping took "+adaptive.getStepCount()+" steps");
+            if (Math.abs(adaptive.getElapsedTime() - 20) > 1e-12) throw new RuntimeException("Adaptive time "+adaptive.getElapsedTime());
+            if (Math.abs(adaptive.rotationalEnergy() - reference.rotationalEnergy()) > 1e-7) throw new RuntimeException("Adaptive energy "+adaptive.rotationalEnergy());
+            QuaternionRotatableBody specialized = new QuaternionRotatableBody(new Vector3D(1, 2, 3));
+            specialized.setAngle(adaptiveTestBody(localMomenta[m]).getAngle());
+            specialized.setRotationalMomentum(adaptiveTestBody(localMomenta[m]).getRotationalMomentum());
+            specialized.setAdaptiveTolerance(tolerance);
+            for (int n = 0; n < 20; n++) specialized.rotateForTime(1);
+            if (!specialized.getAngle().getQuaternion().toString().equals(adaptive.getAngle().getQuaternion().toString())) throw new RuntimeException("Specialized adaptive body differs");
+        }
+        RotatableBody<QuaternionAngle3D> torqued = adaptiveTestBody(localMomenta[0]);
+        torqued.setTorqueFetcher((angle, time) -> angle.rotate(new Vector3D(0.3, 0, 0)));
+        torqued.setAdaptiveTolerance(1e-8);
+        torqued.rotateForTime(5);
+        if (Math.abs(torqued.getElapsedTime() - 5) > 1e-12) throw new RuntimeException("Adaptive time with torque "+torqued.getElapsedTime());
+        try {
+            torqued.setAdaptiveTolerance(-1);
+            throw new RuntimeException("Negative tolerance accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+    private static final AttitudeIntegrator[] INTEGRATORS = {AttitudeIntegrator.SIMPSON, AttitudeIntegrator.RKMK4, AttitudeIntegrator.CROUCH_GROSSMAN, AttitudeIntegrator.BODY_FRAME};
+    public void testIntegrators() {
+        Vector3D testVector = new Vector3D(0.6, -0.8, 0.3);
+        TorqueFetcher<QuaternionAngle3D> torque = (angle, time) -> angle.rotate(new Vector3D(0.3, 0, 0.1 * time));
+        for (int torqued = 0; torqued < 2; torqued++) {
+            RotatableBody<QuaternionAngle3D> reference = adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5));
+            if (torqued == 1) reference.setTorqueFetcher(torque);
+            reference.setIntegrator(AttitudeIntegrator.RKMK4);
+            for (int n = 0; n < 20000; n++) reference.step(1e-4);
+            Vector3D expected = reference.getAngle().rotate(testVector);
+            for (AttitudeIntegrator integrator : INTEGRATORS) {
+                double[] errors = new double[2];
+                for (int h = 0; h < 2; h++) {
+                    RotatableBody<QuaternionAngle3D> body = adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5));
+                    if (torqued == 1) body.setTorqueFetcher(torque);
+                    body.setIntegrator(integrator);
+                    int steps = 50 << h;
+                    for (int n = 0; n < steps; n++) body.step(2.0 / steps);
+                    errors[h] = body.getAngle().rotate(testVector).distance(expected);
+                    if (Math.abs(body.getElapsedTime() - 2) > 1e-12) throw new RuntimeException(integrator+" time "+body.getElapsedTime());
+                }
+                // Torques limit the Simpson scheme to second order
+                double order = Math.log(errors[0] / errors[1]) / Math.log(2);
+                int expectedOrder = torqued == 1 && integrator == AttitudeIntegrator.SIMPSON ? 2 : integrator.order();
+                System.out.println(integrator+(torqued == 1 ? " with torque" : "")+": error "+errors[1]+", order "+order);
+                if (order < expectedOrder - 0.3) throw new RuntimeException(integrator+" order "+order);
+            }
+        }
+        // The specialized body runs other integrators through its accessors, with the same arithmetic
+        for (AttitudeIntegrator integrator : INTEGRATORS) {
+            List<RotatableBody<QuaternionAngle3D>> generic = randomBodies(30);
+            List<RotatableBody<QuaternionAngle3D>> specialized = randomBodies(30, QuaternionRotatableBody::new);
+            for (int n = 0; n < generic.size(); n++) {
+                generic.get(n).setIntegrator(integrator);
+                specialized.get(n).setIntegrator(integrator);
+                generic.get(n).rotateForTime(2);
+                specialized.get(n).rotateForTime(2);
+                if (!generic.get(n).getAngle().getQuaternion().toString().equals(specialized.get(n).getAngle().getQuaternion().toString())) throw new RuntimeException(integrator+" specialized body differs");
+            }
+        }
+        RotatableBody<QuaternionAngle3D> adaptive = adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5));
+        adaptive.setIntegrator(AttitudeIntegrator.RKMK4);
+        adaptive.setAdaptiveTolerance(1e-10);
+        adaptive.rotateForTime(20);
+        RotatableBody<QuaternionAngle3D> simpson = adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5));
+        simpson.setAdaptiveTolerance(1e-10);
+        simpson.rotateForTime(20);
+        System.out.println("Adaptive steps for 20 s: RKMK4 "+adaptive.getStepCount()+", Simpson "+simpson.getStepCount());
+        if (adaptive.getStepCount() * 3 > simpson.getStepCount() * 2) throw new RuntimeException("RKMK4 took "+adaptive.getStepCount()+" adaptive steps");
+        try {
+            adaptive.setIntegrator(null);
+            throw new RuntimeException("Null integrator accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+    public void testAnalyticPropagation() {
+        Vector3D testVector = new Vector3D(0.6, -0.8, 0.3);
+        // Symmetric about z, about x, and about z with moments differing by rounding
+        Vector3D[] inertias = {new Vector3D(1, 1, 2.5), new Vector3D(0.7, 2, 2), new Vector3D(1.5, 1.5 * (1 + 1e-15), 0.6)};
+        for (Vector3D inertia : inertias) {
+            RotatableBody<QuaternionAngle3D> stepped = analyticTestBody(inertia);
+            stepped.setIntegrator(AttitudeIntegrator.RKMK4);
+            stepped.setRotationThreshold(0.002);
+            stepped.rotateForTime(5);
+            RotatableBody<QuaternionAngle3D> analytic = analyticTestBody(inertia);
+            analytic.setAnalyticPropagation(true);
+            if (analytic.estimateSubsteps(5) != 1) throw new RuntimeException("Analytic estimate "+analytic.estimateSubsteps(5));
+            analytic.rotateForTime(5);
+            double error = analytic.getAngle().rotate(testVector).distance(stepped.getAngle().rotate(testVector));
+            System.out.println("Closed form against steps for "+inertia+": "+error);
+            if (error > 1e-9) throw new RuntimeException("Closed form differs by "+error);
+            if (analytic.getStepCount() != 1 || analytic.getElapsedTime() != 5) throw new RuntimeException("Closed form took "+analytic.getStepCount()+" steps");
+            if (Math.abs(analytic.rotationalEnergy() - stepped.rotationalEnergy()) > 1e-12) throw new RuntimeException("Closed form energy "+analytic.rotationalEnergy());
+            // An hour in one jump agrees with an hour in pieces
+            RotatableBody<QuaternionAngle3D> pieces = analyticTestBody(inertia);
+            pieces.setAnalyticPropagation(true);
+            for (int n = 0; n < 3600; n++) pieces.rotateForTime(1);
+            analytic.rotateForTime(3595);
+            error = analytic.getAngle().rotate(testVector).distance(pieces.getAngle().rotate(testVector));
+            if (error > 1e-9) throw new RuntimeException("Closed form for an hour differs by "+error);
+            QuaternionRotatableBody specialized = new QuaternionRotatableBody(inertia);
+            specialized.setAngle(pieces.getAngle());
+            specialized.setRotationalMomentum(pieces.getRotationalMomentum());
+            specialized.setAnalyticPropagation(true);
+            pieces.rotateForTime(100);
+            specialized.rotateForTime(100);
+            if (!specialized.getAngle().getQuaternion().toString().equals(pieces.getAngle().getQuaternion().toString())) throw new RuntimeException("Specialized closed form differs");
+        }
+        // Torque, or motion near the separatrix, falls back to steps
+        RotatableBody<QuaternionAngle3D> torqued = analyticTestBody(inertias[0]);
+        torqued.setAnalyticPropagation(true);
+        torqued.setTorqueFetcher((angle, time) -> Vector3D.ZERO_VECTOR);
+        torqued.rotateForTime(1);
+        if (torqued.getStepCount() == 1) throw new RuntimeException("Closed form used with a torque fetcher");
+        torqued.setTorqueFetcher(null);
+        long steps = torqued.getStepCount();
+        torqued.rotateForTime(1);
+        if (torqued.getStepCount() != steps + 1) throw new RuntimeException("Null torque fetcher not recognized");
+        RotatableBody<QuaternionAngle3D> separatrix = analyticTestBody(new Vector3D(1, 2, 3));
+        separatrix.setRotationalMomentum(separatrix.getAngle().rotate(new Vector3D(0.001, 2, 0.0007)));
+        separatrix.setAnalyticPropagation(true);
+        separatrix.rotateForTime(1);
+        if (separatrix.getStepCount() == 1) throw new RuntimeException("Closed form used near the separatrix");
+    }
+    public void testTorqueFreeSolution() {
+        double[] values = new double[3];
+        // Known values of K(0.5), F(pi/3 | 0.5), and sn, cn and dn of 0.7 for m = 0.3, from independent quadrature
+        if (Math.abs(JacobiElliptic.completeK(0.5) - 1.8540746773013719) > 1e-15) throw new RuntimeException("K "+JacobiElliptic.completeK(0.5));
+        if (Math.abs(JacobiElliptic.incompleteF(Math.PI / 3, 0.5) - 1.1424290580457828) > 1e-13) throw new RuntimeException("F "+JacobiElliptic.incompleteF(Math.PI / 3, 0.5));
+        JacobiElliptic.snCnDn(0.7, 0.3, values, 0);
+        if (Math.abs(values[0] - 0.6323047763108637) > 1e-13 || Math.abs(values[1] - 0.7747197363269305) > 1e-13 || Math.abs(values[2] - 0.9381136396814304) > 1e-13) throw new RuntimeException("Jacobi functions "+Arrays.toString(values));
+        // The amplitude inverts the elliptic integral, including near m = 1 and for large arguments
+        for (double m : new double[] {0, 0.1, 0.9, 1 - 1e-6}) {
+            for (double u : new double[] {-3.1, 0.2, 1.9, 40.5, 1e4 + 0.3}) {
+                JacobiElliptic.snCnDn(u, m, values, 0);
+                double back = JacobiElliptic.incompleteF(Math.atan2(values[0], values[1]), m);
+                double period = 4 * JacobiElliptic.completeK(m);
+                double difference = Math.abs(Math.IEEEremainder(back - u, period));
+                if (difference > 1e-14 * Math.max(1, Math.abs(u))) throw new RuntimeException("F(am("+u+") | "+m+") = "+back);
+                if (Math.abs(values[2] * values[2] - (1 - m * values[0] * values[0])) > 1e-15) throw new RuntimeException("dn at "+u);
+            }
+        }
+        // The solution follows small RKMK4 steps, circling either extreme axis, and at equal moments
+        Vector3D testVector = new Vector3D(0.6, -0.8, 0.3);
+        Vector3D[] inertias = {new Vector3D(1, 2, 3), new Vector3D(1, 2, 3), new Vector3D(2.5, 0.7, 1.3), new Vector3D(1, 1, 2)};
+        Vector3D[] localMomenta = {new Vector3D(1.2, -0.9, 1.5), new Vector3D(2, 0.3, -0.2), new Vector3D(-0.4, 1.1, 0.8), new Vector3D(0.5, -0.3, 1)};
+        for (int n = 0; n < inertias.length; n++) {
+            RotatableBody<QuaternionAngle3D> body = analyticTestBody(inertias[n]);
+            body.setRotationalMomentum(body.getAngle().rotate(localMomenta[n]));
+            TorqueFreeSolution<QuaternionAngle3D> solution = new TorqueFreeSolution<>(body);
+            body.setIntegrator(AttitudeIntegrator.RKMK4);
+            for (int k = 0; k < 10; k++) {
+                for (int q = 0; q < 1000; q++) body.step(0.001);
+                double time = body.getElapsedTime();
+                double error = solution.angleAt(time).rotate(testVector).distance(body.getAngle().rotate(testVector));
+                if (error > 1e-10) throw new RuntimeException("Solution angle differs by "+error+" at "+time);
+                error = solution.localMomentumAt(time).distance(body.getAngle().inverseRotate(body.getRotationalMomentum()));
+                if (error > 1e-10) throw new RuntimeException("Solution momentum differs by "+error+" at "+time);
+            }
+            // The momentum returns after a period
+            double period = solution.period();
+            if (solution.localMomentumAt(3 * period + 0.4).distance(solution.localMomentumAt(0.4)) > 1e-12) throw new RuntimeException("Period "+period);
+        }
+        // A body coasting for an hour takes one step, and agrees with coasting in pieces
+        RotatableBody<QuaternionAngle3D> jump = analyticTestBody(inertias[0]);
+        RotatableBody<QuaternionAngle3D> pieces = analyticTestBody(inertias[0]);
+        jump.setAnalyticPropagation(true);
+        pieces.setAnalyticPropagation(true);
+        jump.rotateForTime(3600);
+        for (int n = 0; n < 60; n++) {
+            pieces.rotateForTime(60);
+            pieces.setAngle(pieces.getAngle().rotate(QuaternionSystem.INSTANCE.angleXY(0)));
+        }
+        double error = jump.getAngle().rotate(testVector).distance(pieces.getAngle().rotate(testVector));
+        System.out.println("Elliptic solution, one hour in one step against 60 restarts: "+error);
+        if (jump.getStepCount() != 1 || error > 1e-9) throw new RuntimeException("Hour-long coast differs by "+error);
+        if (Math.abs(jump.rotationalEnergy() - pieces.rotationalEnergy()) > 1e-12) throw new RuntimeException("Coasting energy "+jump.rotationalEnergy());
+        // Bodies built by MomentCalculator map the correction angle as usual
+        List<PointMass> masses = new ArrayList<>();
+        masses.add(new PointMass(1.1, new Vector3D(0.8,0.2,0)));
+        masses.add(new PointMass(0.8, new Vector3D(-0.6,-0.5,0)));
+        masses.add(new PointMass(3.6, new Vector3D(0.8,0.4,1)));
+        RotatableBody<QuaternionAngle3D> cross = MomentCalculator.getRotatableBody(QuaternionSystem.INSTANCE, SquareInertia.getAbsolute(masses));
+        RotatableBody<QuaternionAngle3D> crossStepped = MomentCalculator.getRotatableBody(QuaternionSystem.INSTANCE, SquareInertia.getAbsolute(masses));
+        for (RotatableBody<QuaternionAngle3D> body : Arrays.asList(cross, crossStepped)) body.setRotationalMomentum(new Vector3D(1.43724, -0.8226, 0.3115));
+        cross.setAnalyticPropagation(true);
+        crossStepped.setIntegrator(AttitudeIntegrator.RKMK4);
+        crossStepped.setRotationThreshold(0.002);
+        cross.rotateForTime(5);
+        crossStepped.rotateForTime(5);
+        error = cross.getAngle().rotate(testVector).distance(crossStepped.getAngle().rotate(testVector));
+        if (cross.getStepCount() != 1 || error > 1e-9) throw new RuntimeException("Cross body coast differs by "+error);
+        // A body coasting in several calls keeps one solution, so its result matches a single call bit for bit,
+        // and queries in between do not disturb it
+        RotatableBody<QuaternionAngle3D> whole = analyticTestBody(new Vector3D(1, 2, 3));
+        whole.setAnalyticPropagation(true);
+        whole.rotateForTime(30);
+        QuaternionRotatableBody specialized = new QuaternionRotatableBody(new Vector3D(1, 2, 3));
+        RotatableBody<QuaternionAngle3D> generic = analyticTestBody(new Vector3D(1, 2, 3));
+        specialized.setAngle(generic.getAngle());
+        specialized.setRotationalMomentum(generic.getRotationalMomentum());
+        for (RotatableBody<QuaternionAngle3D> body : Arrays.<RotatableBody<QuaternionAngle3D>>asList(generic, specialized)) {
+            body.setAnalyticPropagation(true);
+            for (int n = 0; n < 3; n++) {
+                body.estimateSubsteps(10);
+                body.rotateForTime(10);
+            }
+            if (!body.getAngle().getQuaternion().toString().equals(whole.getAngle().getQuaternion().toString())) throw new RuntimeException(body.getClass().getSimpleName()+" rebuilt its solution: "+body.getAngle()+" vs "+whole.getAngle());
+        }
+    }
+    public void testTorqueMemo() {
+        long[] calls = new long[1];
+        TorqueFetcher<QuaternionAngle3D> fetcher = (angle, time) -> {
+            calls[0]++;
+            return angle.rotate(new Vector3D(0.3, 0, 0.1 * time));
+        };
+        List<RotatableBody<QuaternionAngle3D>> bodies = Arrays.asList(adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5)), new QuaternionRotatableBody(new Vector3D(1, 2, 3)));
+        bodies.get(1).setAngle(bodies.get(0).getAngle());
+        bodies.get(1).setRotationalMomentum(bodies.get(0).getRotationalMomentum());
+        for (RotatableBody<QuaternionAngle3D> body : bodies) {
+            calls[0] = 0;
+            body.setTorqueFetcher(fetcher);
+            body.rotateForTime(1);
+            body.rotateForTime(1);
+            long steps = body.getStepCount();
+            // Each step asks for seven torques: three at its start, which the end of the last step already fetched,
+            // three at its stages and one at its end. Each call to rotateForTime fetches its first torque afresh.
+            if (body.getTorqueEvaluations() != calls[0] || calls[0] != 2 + 4 * steps) throw new RuntimeException("Torque evaluations "+calls[0]+" for "+steps+" steps");
+            if (body.getTorqueMemoHits() != 3 * steps - 2) throw new RuntimeException("Torque memo hits "+body.getTorqueMemoHits()+" for "+steps+" steps");
+            if (Math.abs(body.torqueEvaluationsPerSecond() - calls[0] / 2.0) > 1e-9) throw new RuntimeException("Evaluation rate "+body.torqueEvaluationsPerSecond());
+            System.out.println(body.getClass().getSimpleName()+": "+body.torqueEvaluationsPerSecond()+" torque evaluations per simulated second, "+body.getTorqueMemoHits()+" memo hits");
+            // Setting the fetcher again forgets the remembered torque
+            body.setTorqueFetcher(fetcher);
+            body.resetTorqueCounters();
+            if (body.getTorqueEvaluations() != 0 || body.getTorqueMemoHits() != 0 || body.torqueEvaluationsPerSecond() != 0) throw new RuntimeException("Counters not reset");
+            // Queries outside rotateForTime always call the fetcher and leave the counters alone
+            calls[0] = 0;
+            body.getTorqueGlobal(0);
+            body.getTorqueGlobal(0);
+            body.stepSize(1);
+            if (calls[0] < 3) throw new RuntimeException("Torque query answered from memory");
+            if (body.getTorqueEvaluations() != 0 || body.getTorqueMemoHits() != 0) throw new RuntimeException("Torque query counted");
+        }
+        if (!bodies.get(0).getAngle().getQuaternion().toString().equals(bodies.get(1).getAngle().getQuaternion().toString())) throw new RuntimeException("Specialized body differs with torque memo");
+        // A fetcher reading state changed between calls sees the new state at the start of the next call, on every path
+        double[] thrust = new double[1];
+        double[] frameStart = new double[1];
+        int[] fresh = new int[1];
+        TorqueFetcher<QuaternionAngle3D> thruster = (angle, time) -> {
+            if (time == frameStart[0] && thrust[0] < 0) fresh[0]++;
+            return angle.rotate(new Vector3D(thrust[0], 0, 0.1));
+        };
+        for (AttitudeIntegrator integrator : new AttitudeIntegrator[] {AttitudeIntegrator.SIMPSON, AttitudeIntegrator.RKMK4}) {
+            for (double tolerance : new double[] {0, 1e-8}) {
+                List<RotatableBody<QuaternionAngle3D>> pair = Arrays.asList(adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5)), new QuaternionRotatableBody(new Vector3D(1, 2, 3)));
+                pair.get(1).setAngle(pair.get(0).getAngle());
+                pair.get(1).setRotationalMomentum(pair.get(0).getRotationalMomentum());
+                for (RotatableBody<QuaternionAngle3D> body : pair) {
+                    body.setIntegrator(integrator);
+                    body.setAdaptiveTolerance(tolerance);
+                    body.setTorqueFetcher(thruster);
+                    thrust[0] = 0.3;
+                    body.rotateForTime(1);
+                    thrust[0] = -0.3;
+                    frameStart[0] = body.getElapsedTime();
+                    fresh[0] = 0;
+                    body.rotateForTime(1);
+                    if (fresh[0] == 0) throw new RuntimeException("Stale torque at the start of a call: "+body.getClass().getSimpleName()+", "+integrator+", tolerance "+tolerance);
+                }
+                if (!pair.get(0).getAngle().getQuaternion().toString().equals(pair.get(1).getAngle().getQuaternion().toString())) throw new RuntimeException("Specialized body differs after a state change: "+integrator+", tolerance "+tolerance);
+            }
+        }
+        // Bodies without torque never call a fetcher
+        RotatableBody<QuaternionAngle3D> free = adaptiveTestBody(new Vector3D(1.2, -0.9, 1.5));
+        free.rotateForTime(1);
+        if (free.getTorqueEvaluations() != 0 || free.getTorqueMemoHits() != 0) throw new RuntimeException("Torque counted without a fetcher");
+    }
+    private static RotatableBody<QuaternionAngle3D> analyticTestBody(Vector3D inertia) {
+        RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(inertia);
+        body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+        body.setRotationalMomentum(body.getAngle().rotate(new Vector3D(1.2, -0.9, 1.5)));
+        body.setTorqueFetcher(TorqueFetcher.none());
+        return body;
+    }
+    private static RotatableBody<QuaternionAngle3D> adaptiveTestBody(Vector3D localMomentum) {
+        RotatableBody<QuaternionAngle3D> body = new RotatableBody<>(new Vector3D(1, 2, 3));
+        body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.2, 0.5)));
+        body.setRotationalMomentum(body.getAngle().rotate(localMomentum));
+        return body;
+    }
+    /**
+     * Bodies with a spread of speeds and rotation thresholds, under a torque depending on angle and time.
+     */
+    private static List<RotatableBody<QuaternionAngle3D>> randomBodies(int count) {
+        return randomBodies(count, RotatableBody::new);
+    }
+    private static List<RotatableBody<QuaternionAngle3D>> randomBodies(int count, Function<Vector3D, RotatableBody<QuaternionAngle3D>> constructor) {
+        Random random = new Random(4242);
+        List<RotatableBody<QuaternionAngle3D>> bodies = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            RotatableBody<QuaternionAngle3D> body = constructor.apply(new Vector3D(1 + random.nextDouble(), 1 + random.nextDouble(), 1 + random.nextDouble()));
+            body.setAngle(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian())));
+            double speed = Math.pow(10, 2 * random.nextDouble() - 1);
+            body.setRotationalMomentum(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(speed));
+            body.setRotationThreshold(0.005 + 0.05 * random.nextDouble());
+            if (n % 3 == 0) body.setTorqueFetcher((angle, time) -> angle.rotate(new Vector3D(0, 0, 0.1 * Math.sin(time))));
+            bodies.add(body);
+        }
+        return bodies;
+    }
+    private static void checkTrajectory(TrajectoryStore store, int size, double step, Vector3D axis, Vector3D momentumStart, Vector3D momentumRate) {
+        Random random = new Random(2001);
+        Vector3D testVector = new Vector3D(0.9, -0.2, 0.4);
+        double end = (size - 1) * step;
+        for (int n = 0; n < 2000; n++) {
+            double time = n < 20 ? (n - 10) * step * 0.37 + (n % 2) * end : random.nextDouble() * end;
+            double clamped = Math.max(0, Math.min(end, time));
+            TrajectoryStore.State state = store.stateAt(time);
+            if (state.angle().rotate(testVector).distance(QuaternionSystem.INSTANCE.fromAxis(axis.scale(clamped)).rotate(testVector)) > 1e-12) throw new RuntimeException("Angle at "+time);
+            if (state.momentum().distance(momentumStart.sum(momentumRate.scale(clamped))) > 1e-12) throw new RuntimeException("Momentum at "+time);
+        }
+        long record = size / 2 + 7;
+        if (store.stateAt(store.time(record)).momentum().distance(store.get(record).momentum()) != 0) throw new RuntimeException("Record lookup");
+    }
+    public void testMRPShadowSet() {
+        Random random = new Random(1312);
+        Vector3D testVector = new Vector3D(0.3, -1.1, 0.6);
+        for (int n = 0; n < 200; n++) {
+            Vector3D axisA = new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            Vector3D axisB = n % 2 == 0 ? axisA.scale(random.nextDouble()) : new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+            MRPAngle3D a = MRPSystem.INSTANCE.fromAxis(axisA);
+            MRPAngle3D b = MRPSystem.INSTANCE.fromAxis(axisB);
+            MRPAngle3D product = a.rotate(b);
+            if (product.x()*product.x()+product.y()*product.y()+product.z()*product.z() > 1+1e-15) throw new RuntimeException("Shadow set not used: "+product);
+            QuaternionAngle3D expected = QuaternionSystem.INSTANCE.fromAxis(axisA).rotate(QuaternionSystem.INSTANCE.fromAxis(axisB));
+            assertEquivelant(product.rotate(testVector), expected.rotate(testVector));
+            assertEquivelant(product.toQuaternionAngle().rotate(testVector), new MRPAngle3D(expected).rotate(testVector));
+        }
+        MRPAngle3D half = MRPSystem.INSTANCE.angleXY(Math.PI);
+        MRPAngle3D full = half.rotate(half);
+        if (!(full.magnitude() <= 1e-15)) throw new RuntimeException("Full turn: "+full);
+        MRPAngle3D axisHalf = MRPSystem.INSTANCE.fromAxis(new Vector3D(0, 0, Math.PI));
+        if (!(axisHalf.rotate(axisHalf).magnitude() <= 1e-15)) throw new RuntimeException("Full turn from axis: "+axisHalf.rotate(axisHalf));
+        for (double offset = 1e-12; offset < 0.1; offset *= 10) {
+            for (double magnitude : new double[] {Math.PI - offset, Math.PI + offset}) {
+                MRPAngle3D nearHalf = MRPSystem.INSTANCE.angleXY(magnitude);
+                QuaternionAngle3D expected = QuaternionSystem.INSTANCE.angleXY(magnitude);
+                double error = new MRPAngle3D(expected.rotate(expected)).toQuaternionAngle().inverse().rotate(nearHalf.rotate(nearHalf).toQuaternionAngle()).magnitude();
+                if (!(error < 1e-15)) throw new RuntimeException("Near full turn at "+magnitude+": "+error);
+            }
+        }
+        MRPAngle3D quarter = MRPSystem.INSTANCE.angleXY(Math.PI/2);
+        MRPAngle3D turn = quarter;
+        for (int n = 0; n < 7; n++) turn = turn.rotate(quarter);
+        if (turn.magnitude() > 1e-14) throw new RuntimeException("Two turns: "+turn);
+    }
+    public void testInterpolation() {
+        QuaternionAngle3D from = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(0.3, -0.8, 0.2));
+        QuaternionAngle3D to = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(-0.5, 0.4, 1.1));
+        QuaternionAngle3D difference = from.inverse().rotate(to);
+        Vector3D testVector = new Vector3D(0.7, 1.2, -0.4);
+        for (double t = 0; t <= 1; t += 0.125) {
+            QuaternionAngle3D expected = from.rotate(difference.scale(t));
+            if (QuaternionInterpolator.slerp(from, to, t).rotate(testVector).distance(expected.rotate(testVector))>1e-12) throw new RuntimeException("Slerp at "+t);
+            double nlerpError = QuaternionInterpolator.nlerp(from, to, t).inverse().rotate(expected).magnitude();
+            if (nlerpError > QuaternionInterpolator.nlerpError(difference.magnitude())) throw new RuntimeException("Nlerp at "+t+": "+nlerpError);
+        }
+        Random random = new Random(5150);
+        int size = 6;
+        double[] times = new double[size];
+        QuaternionAngle3D[] keyframes = new QuaternionAngle3D[size];
+        for (int n = 0; n < size; n++) {
+            times[n] = n == 0 ? 0 : times[n-1] + 0.5 + random.nextDouble();
+            keyframes[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+        }
+        int samples = 200;
+        double interval = times[size-1]/(samples-1);
+        for (QuaternionTrack.Interpolation interpolation : QuaternionTrack.Interpolation.values()) {
+            QuaternionTrack track = new QuaternionTrack(times, keyframes, interpolation);
+            QuaternionBuffer buffer = track.sample(0, interval, new QuaternionBuffer(samples));
+            for (int n = 0; n < samples; n++) {
+                QuaternionAngle3D single = track.sample(n*interval);
+                if (buffer.get(n).rotate(testVector).distance(single.rotate(testVector))>1e-15) throw new RuntimeException(interpolation+" "+n);
+            }
+            for (int n = 0; n < size; n++) {
+                if (track.sample(times[n]).rotate(testVector).distance(keyframes[n].rotate(testVector))>1e-12) throw new RuntimeException(interpolation+" keyframe "+n);
+            }
+            for (int n = 0; n + 1 < size; n++) {
+                double time = 0.7*times[n] + 0.3*times[n+1];
+                QuaternionAngle3D expected;
+                if (interpolation == QuaternionTrack.Interpolation.NLERP) expected = QuaternionInterpolator.nlerp(keyframes[n], keyframes[n+1], 0.3);
+                else if (interpolation == QuaternionTrack.Interpolation.SLERP) expected = QuaternionInterpolator.slerp(keyframes[n], keyframes[n+1], 0.3);
+                else expected = QuaternionInterpolator.squad(keyframes[n], keyframes[n+1],
+                    QuaternionInterpolator.squadControl(keyframes[Math.max(0,n-1)], keyframes[n], keyframes[n+1]),
+                    QuaternionInterpolator.squadControl(keyframes[n], keyframes[n+1], keyframes[Math.min(size-1,n+2)]), 0.3);
+                if (track.sample(time).rotate(testVector).distance(expected.rotate(testVector))>1e-12) throw new RuntimeException(interpolation+" segment "+n);
+            }
+        }
+        // On short arcs a slerp track switches to nlerp exactly where QuaternionInterpolator.slerp does
+        for (int n = 0; n < size; n++) keyframes[n] = keyframes[0].rotate(QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(1e-4*n)));
+        QuaternionTrack shortTrack = new QuaternionTrack(times, keyframes, QuaternionTrack.Interpolation.SLERP);
+        for (int n = 0; n + 1 < size; n++) {
+            QuaternionAngle3D expected = QuaternionInterpolator.slerp(keyframes[n], keyframes[n+1], 0.3);
+            double error = shortTrack.sample(0.7*times[n] + 0.3*times[n+1]).rotate(testVector).distance(expected.rotate(testVector));
+            if (error>1e-15) throw new RuntimeException("Short slerp segment "+n+": "+error);
+        }
+    }
     public void testRotationKE() {
         Vector3D inertia = new Vector3D(1,2,3);
         RotatableBody<T> body = new RotatableBody<>(inertia);
@@ -296,6 +1096,58 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         testAviationAngles(classic, threshold);
         testAviationAngles(pointy, threshold);
         testAviationAngles(rotated, threshold);
+        testAttitudes(classic);
+        testAttitudes(pointy);
+        testAttitudes(rotated);
+    }
+    public void testAviationMappings() {
+        Random random = new Random(4321);
+        DimensionMapping[] dimensions = new DimensionMapping[] {new DimensionMapping(LATERAL, true, Z),new DimensionMapping(VERTICAL, false, X),new DimensionMapping(LONGITUDINAL, true, Y)};
+        AviationMapping constructed = new AviationMapping(dimensions);
+        AviationMapping interned = AviationMapping.of(dimensions);
+        if (interned != AviationMapping.of(dimensions) || interned != constructed.canonical() || !interned.equals(constructed)) throw new RuntimeException("Mapping not interned");
+        int count = 5;
+        double[] packed = new double[3*count];
+        for (int n = 0; n < packed.length; n++) packed[n] = random.nextGaussian();
+        double[] aviation = new double[3*count];
+        interned.toAviation(packed, 0, aviation, 0, count);
+        for (int n = 0; n < count; n++) {
+            Vector3D vector = new Vector3D(packed[3*n], packed[3*n+1], packed[3*n+2]);
+            if (aviation[3*n]!=vector.getCoordinate(dimensions[2]) || aviation[3*n+1]!=vector.getCoordinate(dimensions[0]) || aviation[3*n+2]!=vector.getCoordinate(dimensions[1])) throw new RuntimeException(vector.toString());
+            Vector3D built = new AviationVectorBuilder().set(LONGITUDINAL, aviation[3*n]).set(LATERAL, aviation[3*n+1]).set(VERTICAL, aviation[3*n+2]).build(constructed);
+            if (built.distance(vector)!=0) throw new RuntimeException(built+" "+vector);
+        }
+        interned.fromAviation(aviation, 0, aviation, 0, count);
+        if (!Arrays.equals(aviation, packed)) throw new RuntimeException("Round trip failed");
+    }
+    private void testAttitudes(AviationMapping mapping) {
+        Random random = new Random(1618);
+        int size = 20;
+        QuaternionBuffer buffer = new QuaternionBuffer(size);
+        QuaternionAngle3D[] angles = new QuaternionAngle3D[size];
+        for (int n = 0; n < size; n++) {
+            angles[n] = QuaternionSystem.INSTANCE.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+            buffer.set(n, angles[n]);
+        }
+        double[] pitch = new double[size], yaw = new double[size], roll = new double[size];
+        buffer.getAttitudes(mapping, pitch, yaw, roll);
+        for (int n = 0; n < size; n++) {
+            Attitude attitude = angles[n].getAttitude(mapping);
+            if (Math.abs(attitude.pitch()-pitch[n])>1e-12 || Math.abs(attitude.yaw()-yaw[n])>1e-12 || Math.abs(attitude.roll()-roll[n])>1e-12) throw new RuntimeException(attitude+" "+pitch[n]+" "+yaw[n]+" "+roll[n]);
+        }
+        for (int n = 0; n < size; n++) {
+            pitch[n] = (random.nextDouble()-0.5)*3;
+            yaw[n] = (random.nextDouble()-0.5)*6;
+            roll[n] = (random.nextDouble()-0.5)*3;
+        }
+        QuaternionBuffer fromAviation = QuaternionSystem.INSTANCE.fromAviation(mapping, pitch, yaw, roll, new QuaternionBuffer(size));
+        double[] resultPitch = new double[size], resultYaw = new double[size], resultRoll = new double[size];
+        fromAviation.getAttitudes(mapping, resultPitch, resultYaw, resultRoll);
+        for (int n = 0; n < size; n++) {
+            Quaternion single = QuaternionSystem.INSTANCE.fromAviation(mapping, pitch[n], yaw[n], roll[n]).getQuaternion();
+            if (fromAviation.real(n)!=single.real() || fromAviation.i(n)!=single.i() || fromAviation.j(n)!=single.j() || fromAviation.k(n)!=single.k()) throw new RuntimeException(fromAviation.get(n)+" "+single);
+            if (Math.abs(resultPitch[n]-pitch[n])>1e-9 || Math.abs(resultYaw[n]-yaw[n])>1e-9 || Math.abs(resultRoll[n]-roll[n])>1e-9) throw new RuntimeException(pitch[n]+" "+yaw[n]+" "+roll[n]);
+        }
     }
     private void testAviationAngles(AviationMapping mapping, double threshold) {
         testAviationAngle(Math.PI/4, 0, 0, mapping, threshold);
@@ -309,6 +1161,11 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         if (Math.abs(angle.getYaw(mapping)-yaw)>threshold) throw new RuntimeException("Yaw Result: "+angle.getYaw(mapping)+" does not match expected: "+yaw);
         if (Math.abs(angle.getPitch(mapping)-pitch)>threshold) throw new RuntimeException("Pitch Result: "+angle.getPitch(mapping)+" does not match expected: "+pitch);
         if (Math.abs(angle.getRoll(mapping)-roll)>threshold) throw new RuntimeException("Roll Result: "+angle.getRoll(mapping)+" does not match expected: "+roll);
+        T composed = system.getAngle(mapping.lateral(), mapping.longitudinal(), yaw).rotate(system.getAngle(mapping.longitudinal(), mapping.vertical(), pitch).rotate(system.getAngle(mapping.vertical(), mapping.lateral(), roll)));
+        Vector3D testVector = new Vector3D(0.4, -1.3, 0.9);
+        if (angle.rotate(testVector).distance(composed.rotate(testVector))>1e-12) throw new RuntimeException("Aviation angle: "+angle+" does not match composition: "+composed);
+        Attitude attitude = angle.getAttitude(mapping);
+        if (attitude.pitch()!=angle.getPitch(mapping) || attitude.yaw()!=angle.getYaw(mapping) || attitude.roll()!=angle.getRoll(mapping)) throw new RuntimeException("Attitude: "+attitude+" does not match individual angles");
     }
     public void testRigidBodyAsemby() {
         System.out.println("Rigid test");
@@ -377,6 +1234,9 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         assertEquivelant(momentum, correct);
     }
     public void testTorquePrecision() {
+        testTorquePrecision(AttitudeIntegrator.SIMPSON);
+    }
+    public void testTorquePrecision(AttitudeIntegrator integrator) {
         Vector3D inertia = new Vector3D(2, 2.1, 0.8);
         Vector3D initialMomentum = new Vector3D(1, -1.2, 0.93);
         Vector3D translationVector = new Vector3D(-0.5, 0.2, 0.8);
@@ -394,8 +1254,9 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
             body.setAngle(initialAngle);
             body.setRotationThreshold(rotationThreasholds[i]);
             body.setTorqueFetcher(torqueFetcher);
+            body.setIntegrator(integrator);
             body.rotateForTime(timeStep);
-            System.out.println("Threshold: "+rotationThreasholds[i]);
+            System.out.println(integrator+" threshold: "+rotationThreasholds[i]);
             System.out.println(body.getAngle());
             System.out.println(body.getRotationalMomentum());
             System.out.println(body.getElapsedTime());
@@ -453,6 +1314,9 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         if (Math.abs(massInertia.yz()-solidInertia.yz())>0.002) throw new RuntimeException(massInertia.yz()+" "+solidInertia.yz());
     }
     public void testTrueKE() {
+        testTrueKE(AttitudeIntegrator.SIMPSON);
+    }
+    public void testTrueKE(AttitudeIntegrator integrator) {
         List<PointMass> massOriginal = new ArrayList<>();
         massOriginal.add(new PointMass(1.1, new Vector3D(0.8,0.2,0)));
         massOriginal.add(new PointMass(0.8, new Vector3D(-0.6,-0.5,0)));
@@ -462,6 +1326,7 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
         SquareInertia inertia = SquareInertia.getAbsolute(massOriginal);
         RotatableBody<T> body = MomentCalculator.getRotatableBody(system, inertia);
         body.setRotationalMomentum(new Vector3D(1.43724, -0.8226, 0.3115));
+        body.setIntegrator(integrator);
         double timeGap = 0.0001;
         double rejectionThreshold = 0.001;
         double totalTime = 1;
@@ -488,34 +1353,116 @@ public class Test<T extends Angle3D<T>, S extends Angle3DSystem<T>> {
             oldAngle=angle;
         }
     }
+    /**
+     * Runs the tests that apply to any angle system.
+     */
+    public void testSystem() {
+        testXY();
+        testYX();
+        testYZ();
+        testZY();
+        testZX();
+        testXZ();
+        testAssociation();
+        testScale();
+        testInverse();
+        testAxis();
+        testFromAxis();
+        testRotationKE();
+        testRotationMagnitude();
+        nonCommutivenessTest();
+        testRotationThresholdChanges();
+        //intermediateAxisTest();
+        testInertia();
+        // rotationFlipTest();
+        testRotBodyComute();
+        testAviationAngles();
+        testRigidBodyAsemby();
+        testGyroscope();
+        testTorqueMagnitude();
+        for (AttitudeIntegrator integrator : INTEGRATORS) {
+            testTorquePrecision(integrator);
+            testTrueKE(integrator);
+        }
+    }
+    private static <A extends Angle3D<A>> Vector3D compositionScenario(Angle3DSystem<A> system) {
+        Random random = new Random(99);
+        A angle = system.angleXY(0);
+        for (int n = 0; n < 10000; n++) {
+            angle = angle.rotate(system.fromAxis(new Vector3D(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).scale(0.1)));
+        }
+        return angle.rotate(new Vector3D(0.6, -0.8, 0.3));
+    }
+    private static <A extends Angle3D<A>> Vector3D torqueScenario(Angle3DSystem<A> system) {
+        Vector3D translationVector = new Vector3D(-0.5, 0.2, 0.8);
+        RotatableBody<A> body = new RotatableBody<>(new Vector3D(2, 2.1, 0.8));
+        body.setRotationalMomentum(new Vector3D(1, -1.2, 0.93));
+        body.setAngle(system.angleXY(0.3));
+        body.setRotationThreshold(0.001);
+        body.setTorqueFetcher((angle, time) -> {
+            Vector3D translated = angle.rotate(translationVector);
+            return new Vector3D(0.2*translated.y(),-0.4,0.2*time);
+        });
+        body.rotateForTime(10);
+        return body.getAngle().rotate(translationVector);
+    }
+    private static <A extends Angle3D<A>> Vector3D aviationScenario(Angle3DSystem<A> system) {
+        AviationMapping mapping = AviationMapping.of(new DimensionMapping(VERTICAL, false, Z),new DimensionMapping(LATERAL, false, X),new DimensionMapping(LONGITUDINAL, false, Y));
+        Attitude attitude = new AviationAngleBuilder().pitch(0.2).yaw(0.35).roll(-0.7).build(mapping, system).getAttitude(mapping);
+        return new Vector3D(attitude.pitch(), attitude.yaw(), attitude.roll());
+    }
+    private static <A extends Angle3D<A>> Vector3D freeBodyScenario(Angle3DSystem<A> system) {
+        List<PointMass> masses = new ArrayList<>();
+        masses.add(new PointMass(1.1, new Vector3D(0.8,0.2,0)));
+        masses.add(new PointMass(0.8, new Vector3D(-0.6,-0.5,0)));
+        masses.add(new PointMass(3.6, new Vector3D(0.8,0.4,1)));
+        masses.add(new PointMass(2.4, new Vector3D(2.2,0,-1)));
+        RotatableBody<A> body = MomentCalculator.getRotatableBody(system, SquareInertia.getAbsolute(masses));
+        body.setRotationalMomentum(new Vector3D(1.43724, -0.8226, 0.3115));
+        for (int n = 0; n < 1000; n++) body.rotateForTime(0.01);
+        return body.getAngle().rotate(new Vector3D(0.6, -0.8, 0.3));
+    }
+    /**
+     * Prints the distance between the results of several scenarios under an angle system and the quaternion system.
+     */
+    public static <A extends Angle3D<A>> void accuracyReport(String name, Angle3DSystem<A> system) {
+        QuaternionSystem reference = QuaternionSystem.INSTANCE;
+        System.out.println(name+" accuracy, 10000 compositions: "+compositionScenario(reference).distance(compositionScenario(system)));
+        System.out.println(name+" accuracy, torque for 10 s: "+torqueScenario(reference).distance(torqueScenario(system)));
+        System.out.println(name+" accuracy, aviation angles: "+aviationScenario(reference).distance(aviationScenario(system)));
+        System.out.println(name+" accuracy, free body for 10 s: "+freeBodyScenario(reference).distance(freeBodyScenario(system)));
+    }
     public static void main(String[] args) {
         Test<?,?> test = new Test<>(QuaternionSystem.INSTANCE);
-        test.testXY();
-        test.testYX();
-        test.testYZ();
-        test.testZY();
-        test.testZX();
-        test.testXZ();
-        test.testAssociation();
-        test.testScale();
-        test.testInverse();
-        test.testAxis();
-        test.testFromAxis();
-        test.testRotationKE();
-        test.testRotationMagnitude();
-        test.nonCommutivenessTest();
-        test.testRotationThresholdChanges();
-        //test.intermediateAxisTest();
-        test.testInertia();
-        // test.rotationFlipTest();
-        test.testRotBodyComute();
-        test.testAviationAngles();
-        test.testRigidBodyAsemby();
-        test.testGyroscope();
-        test.testTorquePrecision();
+        test.testSystem();
+        test.testExpLog();
+        test.testMutableQuaternion();
+        test.testQuaternionBuffer();
+        test.testBatchRotation();
+        test.testAngleCaches();
+        test.testInterpolation();
+        test.testMRPShadowSet();
+        test.testRenormalization();
+        test.testTrig();
+        test.testRotationScan();
+        test.testRotationAverager();
+        test.testQuaternionCodec();
+        test.testTrajectoryStore();
+        test.testRotationWorld();
+        test.testQuaternionRotatableBody();
+        test.testAdaptiveStepping();
+        test.testIntegrators();
+        test.testAnalyticPropagation();
+        test.testTorqueFreeSolution();
+        test.testTorqueMemo();
+        test.testAviationMappings();
         test.testSolids();
-        test.testTorqueMagnitude();
-        test.testTrueKE();
+        new Test<>(FloatQuaternionSystem.INSTANCE).testSystem();
+        new Test<>(MatrixSystem.INSTANCE).testSystem();
+        new Test<>(MRPSystem.INSTANCE).testSystem();
+        accuracyReport("Float", FloatQuaternionSystem.INSTANCE);
+        accuracyReport("Matrix", MatrixSystem.INSTANCE);
+        accuracyReport("MRP", MRPSystem.INSTANCE);
 
         System.out.println("Test completed");
     }